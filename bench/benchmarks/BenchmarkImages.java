@@ -0,0 +1,52 @@
+package benchmarks;
+
+import helpers.TestImages;
+import model.Image;
+import model.Pixel;
+import model.RGBAPixel;
+
+/**
+ * Creates the images used by the benchmarks. The images are the same noise that the tests use,
+ * which is the same every time the benchmarks are run, so the results of two runs can be compared.
+ */
+final class BenchmarkImages {
+
+  private BenchmarkImages() {
+  }
+
+  /**
+   * Creates a packed image of noise.
+   *
+   * @param height is the height of the image.
+   * @param width  is the width of the image.
+   * @param seed   decides the noise.
+   * @return the image.
+   */
+  static Image noise(int height, int width, int seed) {
+    return TestImages.noise(height, width, seed);
+  }
+
+  /**
+   * Creates the pixels of an image of noise, as {@code RGBAPixel}s.
+   *
+   * @param height is the height of the image.
+   * @param width  is the width of the image.
+   * @param seed   decides the noise.
+   * @return the pixels.
+   */
+  static Pixel[][] noiseRGBAPixels(int height, int width, int seed) {
+    int[] packed = TestImages.noisePixels(height * width, seed);
+    Pixel[][] pixels = new Pixel[height][width];
+
+    for (int i = 0; i < height; i++) {
+
+      for (int j = 0; j < width; j++) {
+        int pixel = packed[i * width + j];
+        pixels[i][j] = new RGBAPixel((pixel >> 16) & 0xFF, (pixel >> 8) & 0xFF, pixel & 0xFF,
+                pixel >>> 24, 255);
+      }
+    }
+
+    return pixels;
+  }
+}
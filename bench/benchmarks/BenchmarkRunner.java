@@ -0,0 +1,45 @@
+package benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks of this folder. Takes the same arguments as the JMH command line, for
+ * example a regular expression to only run some of the benchmarks. Unless told otherwise, the
+ * results are written as JSON to {@code bench-results.json}, so that the results of two builds
+ * can be compared.
+ */
+public class BenchmarkRunner {
+
+  /**
+   * The file the results are written to if no file is given.
+   */
+  public static final String DEFAULT_RESULTS = "bench-results.json";
+
+  /**
+   * Runs the benchmarks.
+   *
+   * @param args are the JMH command line arguments.
+   * @throws CommandLineOptionException if the arguments are invalid.
+   * @throws RunnerException            if the benchmarks fail to run.
+   */
+  public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+    CommandLineOptions commandLine = new CommandLineOptions(args);
+    ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+
+    if (!commandLine.getResultFormat().hasValue()) {
+      options.resultFormat(ResultFormatType.JSON);
+    }
+
+    if (!commandLine.getResult().hasValue()) {
+      options.result(DEFAULT_RESULTS);
+    }
+
+    new Runner(options.build()).run();
+  }
+}
@@ -0,0 +1,100 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import model.Collager;
+import model.Image;
+import model.RGBACollager;
+
+/**
+ * Benchmarks rendering the final image of a project and converting it to a Java image, for several
+ * canvas sizes and numbers of layers. The layers use a mix of filters, and each has an image that
+ * covers half of the canvas.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollagerBenchmark {
+
+  private static final String[] FILTERS = {"normal", "brighten_luma", "darken_multiply",
+      "red_filter", "brighten_screen", "inversion_difference", "darken_max"};
+
+  @Param({"256", "1024", "2048"})
+  private int size;
+
+  @Param({"2", "8"})
+  private int layers;
+
+  private Collager collager;
+  private Image finalImage;
+  private boolean bottomFiltered;
+
+  /**
+   * Creates the project to render.
+   */
+  @Setup
+  public void setUp() {
+    this.collager = new RGBACollager(this.size, this.size);
+
+    for (int i = 0; i < this.layers; i++) {
+      String name = "layer" + i;
+
+      this.collager.addLayer(name);
+      this.collager.addImage(name, BenchmarkImages.noise(this.size / 2, this.size / 2, i),
+              (i * this.size / 8) % (this.size / 2), (i * this.size / 5) % (this.size / 2));
+      this.collager.setFilter(name, FILTERS[i % FILTERS.length]);
+    }
+
+    this.finalImage = this.collager.getFinalImage();
+  }
+
+  /**
+   * Renders the final image after changing the filter of the bottom layer, so every layer is
+   * composited again.
+   *
+   * @return the final image.
+   */
+  @Benchmark
+  public Image renderFinalImage() {
+    this.bottomFiltered = !this.bottomFiltered;
+    this.collager.setFilter("layer0", this.bottomFiltered ? "brighten_intensity" : "normal");
+
+    return this.collager.getFinalImage();
+  }
+
+  /**
+   * Gets the final image when nothing in the project has changed.
+   *
+   * @return the final image.
+   */
+  @Benchmark
+  public Image cachedFinalImage() {
+    return this.collager.getFinalImage();
+  }
+
+  /**
+   * Converts the final image to a Java image.
+   *
+   * @return the Java image.
+   */
+  @Benchmark
+  public BufferedImage createJavaImage() {
+    return this.collager.createJavaImage(this.finalImage, BufferedImage.TYPE_INT_ARGB);
+  }
+}
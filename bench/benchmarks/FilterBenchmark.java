@@ -0,0 +1,64 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import model.Image;
+import model.filters.FilterName;
+import model.filters.FilterType;
+
+/**
+ * Benchmarks applying every filter of {@code FilterName} to an image. Filters that use two images
+ * are applied with a second image of the same size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterBenchmark {
+
+  @Param
+  private FilterName filter;
+
+  @Param({"512"})
+  private int size;
+
+  private Image top;
+  private Image bottom;
+
+  /**
+   * Creates the images to filter.
+   */
+  @Setup
+  public void setUp() {
+    this.top = BenchmarkImages.noise(this.size, this.size, 1);
+    this.bottom = BenchmarkImages.noise(this.size, this.size, 2);
+  }
+
+  /**
+   * Applies the filter.
+   *
+   * @return the filtered image.
+   */
+  @Benchmark
+  public Image apply() {
+    if (this.filter.getFilterType() == FilterType.TWO) {
+      return this.filter.getTwoFilter().apply(this.top, this.bottom);
+    }
+
+    return this.filter.getFilter().apply(this.top);
+  }
+}
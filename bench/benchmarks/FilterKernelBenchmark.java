@@ -0,0 +1,96 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import model.filters.Filter;
+import model.filters.FilterName;
+import model.filters.PixelKernel;
+import model.filters.RGBAColorFilter;
+
+/**
+ * Benchmarks the compiled kernel of every filter of {@code FilterName} against filtering each
+ * pixel on its own, which is what the filter does without a kernel. Both filter a copy of the same
+ * pixels, so the copy is part of both times. The normal filter does nothing, so it only measures
+ * the copy.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterKernelBenchmark {
+
+  @Param
+  private FilterName filter;
+
+  @Param({"1024"})
+  private int size;
+
+  private int[] source;
+  private int[] pixels;
+  private PixelKernel compiled;
+  private PixelKernel uncompiled;
+
+  /**
+   * Creates the pixels to filter and gets both kernels of the filter.
+   */
+  @Setup
+  public void setUp() {
+    this.source = BenchmarkImages.noise(this.size, this.size, 1).getARGBPixels();
+    this.pixels = new int[this.source.length];
+
+    Filter filter = this.filter.getFilter();
+
+    if (filter instanceof RGBAColorFilter) {
+      this.compiled = ((RGBAColorFilter) filter).getKernel();
+      this.uncompiled = ((RGBAColorFilter) filter).getUncompiledKernel();
+    } else {
+      this.compiled = (pixels, from, to) -> {
+      };
+      this.uncompiled = this.compiled;
+    }
+  }
+
+  /**
+   * Filters the pixels with the compiled kernel.
+   *
+   * @return the filtered pixels.
+   */
+  @Benchmark
+  public int[] kernel() {
+    return filter(this.compiled);
+  }
+
+  /**
+   * Filters each pixel on its own.
+   *
+   * @return the filtered pixels.
+   */
+  @Benchmark
+  public int[] eachPixel() {
+    return filter(this.uncompiled);
+  }
+
+  /*
+   * Filters a copy of the pixels with the given kernel.
+   */
+  private int[] filter(PixelKernel kernel) {
+    System.arraycopy(this.source, 0, this.pixels, 0, this.source.length);
+    kernel.apply(this.pixels, 0, this.pixels.length);
+
+    return this.pixels;
+  }
+}
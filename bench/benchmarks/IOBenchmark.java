@@ -0,0 +1,145 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import controller.utils.ImageUtil;
+import model.Collager;
+import model.Image;
+import model.RGBACollager;
+
+/**
+ * Benchmarks reading and writing PPM images and project files with {@code ImageUtil}. The files
+ * are written to a temporary directory that is deleted once the benchmarks finish.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IOBenchmark {
+
+  @Param({"256", "1024"})
+  private int size;
+
+  private Path directory;
+  private Image image;
+  private Collager collager;
+  private String imageFile;
+  private String projectFile;
+  private String savedImageFile;
+  private String savedProjectFile;
+
+  /**
+   * Writes the image and project files that are read by the benchmarks.
+   *
+   * @throws IOException if the temporary directory cannot be created.
+   */
+  @Setup
+  public void setUp() throws IOException {
+    this.directory = Files.createTempDirectory("collagebench");
+    this.image = BenchmarkImages.noise(this.size, this.size, 1);
+    this.collager = new RGBACollager(this.size, this.size);
+    this.collager.addLayer("bottom");
+    this.collager.addLayer("top");
+    this.collager.addImage("bottom", this.image, 0, 0);
+    this.collager.addImage("top", BenchmarkImages.noise(this.size / 2, this.size / 2, 2), 0, 0);
+    this.collager.setFilter("top", "darken_luma");
+
+    this.imageFile = this.directory.resolve("image.ppm").toString();
+    this.projectFile = this.directory.resolve("project.collage").toString();
+    this.savedImageFile = this.directory.resolve("saved.ppm").toString();
+    this.savedProjectFile = this.directory.resolve("saved.collage").toString();
+
+    ImageUtil.saveImage(this.imageFile, this.image);
+    saveCollage(this.projectFile);
+  }
+
+  /**
+   * Deletes the files written by the benchmarks.
+   *
+   * @throws IOException if a file cannot be deleted.
+   */
+  @TearDown
+  public void tearDown() throws IOException {
+    for (String file : new String[]{this.imageFile, this.projectFile, this.savedImageFile,
+        this.savedProjectFile}) {
+      Files.deleteIfExists(Path.of(file));
+    }
+
+    Files.deleteIfExists(this.directory);
+  }
+
+  /**
+   * Reads a plain PPM file into a string.
+   *
+   * @return the contents of the file.
+   */
+  @Benchmark
+  public String readPPM() {
+    return ImageUtil.readPPM(this.imageFile);
+  }
+
+  /**
+   * Reads a plain PPM file into an image.
+   *
+   * @return the image.
+   */
+  @Benchmark
+  public Image readPPMImage() {
+    return ImageUtil.readPPMImage(this.imageFile);
+  }
+
+  /**
+   * Saves an image as a plain PPM file.
+   */
+  @Benchmark
+  public void saveImage() {
+    ImageUtil.saveImage(this.savedImageFile, this.image);
+  }
+
+  /**
+   * Saves a project as a plain collage file.
+   */
+  @Benchmark
+  public void saveCollage() {
+    saveCollage(this.savedProjectFile);
+  }
+
+  /**
+   * Reads a plain collage file and renders its final image.
+   *
+   * @return the final image of the project.
+   */
+  @Benchmark
+  public Image readCollage() {
+    Collager loaded = new RGBACollager();
+    ImageUtil.readCollage(this.projectFile, loaded);
+
+    return loaded.getFinalImage();
+  }
+
+  /*
+   * Saves the project to the given file.
+   */
+  private void saveCollage(String file) {
+    ImageUtil.saveCollage(file, this.collager.getHeight(), this.collager.getWidth(),
+            this.collager.getLayers());
+  }
+}
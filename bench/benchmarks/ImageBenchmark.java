@@ -0,0 +1,71 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import model.Image;
+import model.RGBALayerImage;
+
+/**
+ * Benchmarks placing an image over another, for both the {@code RGBALayerImage} made of
+ * {@code RGBAPixel}s and the packed {@code PackedRGBAImage}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ImageBenchmark {
+
+  @Param({"256", "1024"})
+  private int size;
+
+  private Image layerBottom;
+  private Image layerTop;
+  private Image packedBottom;
+  private Image packedTop;
+
+  /**
+   * Creates the images to combine. The top image covers a quarter of the bottom image.
+   */
+  @Setup
+  public void setUp() {
+    this.layerBottom = new RGBALayerImage(BenchmarkImages.noiseRGBAPixels(this.size, this.size, 1));
+    this.layerTop = new RGBALayerImage(BenchmarkImages.noiseRGBAPixels(this.size / 2,
+            this.size / 2, 2));
+    this.packedBottom = BenchmarkImages.noise(this.size, this.size, 1);
+    this.packedTop = BenchmarkImages.noise(this.size / 2, this.size / 2, 2);
+  }
+
+  /**
+   * Combines two {@code RGBALayerImage}s.
+   *
+   * @return the combined image.
+   */
+  @Benchmark
+  public Image combineLayerImage() {
+    return this.layerBottom.combine(this.layerTop, this.size / 4, this.size / 4);
+  }
+
+  /**
+   * Combines two {@code PackedRGBAImage}s.
+   *
+   * @return the combined image.
+   */
+  @Benchmark
+  public Image combinePackedImage() {
+    return this.packedBottom.combine(this.packedTop, this.size / 4, this.size / 4);
+  }
+}
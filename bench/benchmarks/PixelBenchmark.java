@@ -0,0 +1,89 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import model.Pixel;
+import model.RGBAPixel;
+
+/**
+ * Benchmarks creating, caching, and combining single {@code RGBAPixel}s.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PixelBenchmark {
+
+  private int red;
+  private int green;
+  private int blue;
+  private int alpha;
+  private Pixel bottom;
+  private Pixel top;
+
+  /**
+   * Creates the values and pixels used by the benchmarks.
+   */
+  @Setup
+  public void setUp() {
+    this.red = 200;
+    this.green = 100;
+    this.blue = 50;
+    this.alpha = 128;
+    this.bottom = new RGBAPixel(10, 220, 40, 65, 255);
+    this.top = new RGBAPixel(134, 122, 3, 200, 255);
+  }
+
+  /**
+   * Creates an opaque pixel.
+   *
+   * @return the pixel.
+   */
+  @Benchmark
+  public Pixel createOpaque() {
+    return new RGBAPixel(this.red, this.green, this.blue, 255);
+  }
+
+  /**
+   * Creates a pixel with an opacity and a maximum value that is not 255.
+   *
+   * @return the pixel.
+   */
+  @Benchmark
+  public Pixel createScaled() {
+    return new RGBAPixel(this.red, this.green, this.blue, this.alpha, 1000);
+  }
+
+  /**
+   * Gets a pixel through the cache of {@code RGBAPixel.of}, where it is already cached.
+   *
+   * @return the pixel.
+   */
+  @Benchmark
+  public Pixel createCached() {
+    return RGBAPixel.of(this.red, this.green, this.blue, this.alpha);
+  }
+
+  /**
+   * Places a pixel over another.
+   *
+   * @return the combined pixel.
+   */
+  @Benchmark
+  public Pixel combine() {
+    return this.bottom.combine(this.top);
+  }
+}
@@ -1,6 +1,7 @@
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.InputStreamReader;
+import java.util.Arrays;
 
 import controller.CollageController;
 import controller.RGBACollageController;
@@ -24,13 +25,26 @@ public final class CollageCreator {
    * @param args are the command arguments given from the user when starting the program.
    *             Must be "-file PATH-TO-FILE-SCRIPT" to load a script file, "-text" to run
    *             the program using text commands in the console, and no arguments to run
-   *             the program using the GUI.
+   *             the program using the GUI. Any of these can be preceded by
+   *             "-parallelism THREADS" to set the number of threads used to render images.
    */
   public static void main(String[] args) {
 
     Collager collager = new RGBACollager();
     CollageController controller = null;
 
+    if (args.length > 0 && args[0].equals("-parallelism")) {
+
+      try {
+        collager.setParallelism(Integer.parseInt(args.length > 1 ? args[1] : ""));
+      } catch (IllegalArgumentException e) {
+        System.err.println("Invalid parallelism, must be a number of threads of at least 1");
+        System.exit(1);
+      }
+
+      args = Arrays.copyOfRange(args, 2, args.length);
+    }
+
     if (args.length < 1) {
       controller = new RGBAGUICollageController(collager, new CollagerGUIView());
 
@@ -48,12 +62,15 @@ public final class CollageCreator {
         System.exit(1);
       }
 
-      controller = new RGBACollageController(in, collager, new CollagerTextView());
+      // Scripts only decode and combine their images once a command needs the result
+      controller = new RGBACollageController(in, collager, new CollagerTextView(), true);
 
     } else if (args[0].equals("--help")) {
       System.out.println("Use: \"-file PATH-OF-FILE-SCRIPT\" to run a script file\n" +
               "Use: \"-text\" to run the Collager in text mode\n" +
               "Use with no commands to run the Collager in GUI mode\n" +
+              "Use: \"-parallelism THREADS\" before any of these to set the number of threads " +
+              "used to render images\n" +
               "Use: \"--help\" to pull up this menu");
       System.exit(0);
 
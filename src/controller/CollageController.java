@@ -110,6 +110,17 @@ public interface CollageController {
    */
   void createProject(int height, int width) throws IllegalArgumentException;
 
+  /**
+   * Creates a project according to the model, choosing whether its images are stored in
+   * memory-mapped scratch files instead of the heap.
+   *
+   * @param height is the height of the project.
+   * @param width  is the width of the project.
+   * @param mapped is whether to store the images in scratch files.
+   * @throws IllegalArgumentException if the height or width are invalid.
+   */
+  void createProject(int height, int width, boolean mapped) throws IllegalArgumentException;
+
   /**
    * Gets the final image (as default Java {@code BufferedImage} type) according to the model.
    *
@@ -128,6 +139,36 @@ public interface CollageController {
    */
   BufferedImage getImageAt(String layername) throws IllegalStateException, IllegalArgumentException;
 
+  /**
+   * Gets a preview of the final image as a {@code BufferedImage} that is no larger than the given
+   * size according to the model, which is much faster to get than the final image. Previews are
+   * only drawn, so their pixels are premultiplied by their opacity, which Java draws without
+   * converting them.
+   *
+   * @param maxHeight is the largest height of the preview.
+   * @param maxWidth  is the largest width of the preview.
+   * @return the preview of the final image.
+   * @throws IllegalStateException if there are no layers or no project.
+   * @throws IllegalArgumentException if the height or width are less than 1.
+   */
+  BufferedImage getFinalPreview(int maxHeight, int maxWidth)
+          throws IllegalStateException, IllegalArgumentException;
+
+  /**
+   * Gets a preview of the image at the given layer as a {@code BufferedImage} that is no larger
+   * than the given size according to the model, premultiplied like {@code getFinalPreview}.
+   *
+   * @param layername is the name of the layer.
+   * @param maxHeight is the largest height of the preview.
+   * @param maxWidth  is the largest width of the preview.
+   * @return the preview of the image at the layer.
+   * @throws IllegalStateException if there are no layers or no project.
+   * @throws IllegalArgumentException if the layer does not exist, or if the height or width are
+   *                                  less than 1.
+   */
+  BufferedImage getPreviewAt(String layername, int maxHeight, int maxWidth)
+          throws IllegalStateException, IllegalArgumentException;
+
   /**
    * Gets the names of the filters in the model as an array of Strings.
    *
@@ -8,12 +8,15 @@ import view.CollagerView;
 
 /**
  * Defines a controller for the collager program that uses {@code Readable}s to take input. Made
- * for use with a text-based collager program.
+ * for use with a text-based collager program. When running a script, images can be added lazily,
+ * so that the commands only plan the work on each layer, and the pixels are only decoded and
+ * combined once a command saves or reads the result.
  */
 public class RGBACollageController extends RGBAController {
 
   private final Readable in;
   private final CollagerView view;
+  private final boolean lazy;
 
   /**
    * Creates the controller that runs the Collager program.
@@ -25,6 +28,21 @@ public class RGBACollageController extends RGBAController {
    */
   public RGBACollageController(Readable in, Collager model, CollagerView view)
           throws IllegalArgumentException {
+    this(in, model, view, false);
+  }
+
+  /**
+   * Creates the controller that runs the Collager program, choosing whether images are added
+   * lazily, as described by {@code addImageLazily}.
+   *
+   * @param in    is the input to read from.
+   * @param model is the model that defines how the Collager program is run.
+   * @param view  is the view to display the Collager program.
+   * @param lazy  is whether to add images lazily.
+   * @throws IllegalArgumentException if the in, model, or view are null.
+   */
+  public RGBACollageController(Readable in, Collager model, CollagerView view, boolean lazy)
+          throws IllegalArgumentException {
     super(model);
 
     if (in == null) {
@@ -37,6 +55,7 @@ public class RGBACollageController extends RGBAController {
 
     this.in = in;
     this.view = view;
+    this.lazy = lazy;
   }
 
   @Override
@@ -56,9 +75,16 @@ public class RGBACollageController extends RGBAController {
           case "new-project":
             int height = 0;
             int width = 0;
+            boolean mapped = false;
 
             try {
               String widthString = sc.next();
+
+              if (widthString.equals("-mapped")) {
+                mapped = true;
+                widthString = sc.next();
+              }
+
               String heightString = sc.next();
               width = Integer.parseInt(widthString);
               height = Integer.parseInt(heightString);
@@ -72,7 +98,11 @@ public class RGBACollageController extends RGBAController {
             }
 
             try {
-              createProject(height, width);
+              if (mapped) {
+                createProject(height, width, true);
+              } else {
+                createProject(height, width);
+              }
             } catch (IllegalArgumentException e) {
               renderExceptionMessage(e);
             }
@@ -138,7 +168,11 @@ public class RGBACollageController extends RGBAController {
 
             try {
               try {
-                addImage(layerName, filename, yPos, xPos);
+                if (this.lazy) {
+                  addImageLazily(layerName, filename, yPos, xPos);
+                } else {
+                  addImage(layerName, filename, yPos, xPos);
+                }
               } catch (IllegalStateException e) {
                 renderExceptionMessage(e);
               }
@@ -175,6 +209,15 @@ public class RGBACollageController extends RGBAController {
               renderExceptionMessage(e);
             }
 
+            break;
+          case "cache-stats":
+            try {
+              this.view.renderMessage("Cache hits: " + this.model.getCacheHits()
+                      + ", cache misses: " + this.model.getCacheMisses() + "\n");
+            } catch (IllegalStateException e) {
+              throw new IllegalStateException("Unknown IOException: " + e.getMessage());
+            }
+
             break;
           case "quit":
             try {
@@ -188,6 +231,8 @@ public class RGBACollageController extends RGBAController {
                     "project with the provided dimensions\n" +
                     "    CANVAS-HEIGHT and CANVAS-WIDTH must be integers\n" +
                     "    there are no layers by default\n" +
+                    "    add -mapped before the dimensions to keep the images in scratch files " +
+                    "instead of memory\n" +
                     "load-project PATH-TO-PROJECT-FILE -- loads a project from a .collage " +
                     "formatted file\n" +
                     "save-project PATH-TO-PROJECT-FILE -- saves the project in the .collage " +
@@ -223,6 +268,8 @@ public class RGBACollageController extends RGBAController {
                     "the different of RGB values of the composite image and top image \n" +
                     "save-image PATH-TO-IMAGE-FILE -- save the result of applying all filters " +
                     "on their respective layers, and combining those layers\n" +
+                    "cache-stats -- displays how many times the combined layers were reused " +
+                    "or combined again\n" +
                     "quit -- quits the program\n" +
                     "help -- displays this dialog\n";
             try {
@@ -243,6 +290,18 @@ public class RGBACollageController extends RGBAController {
       } catch (NoSuchElementException e) {
         throw new IllegalStateException("Invalid end of input");
       }
+
+      renderLoadErrors();
+    }
+  }
+
+  /*
+   * Renders the errors of the images that were added lazily and could not be loaded by the last
+   * command, the same as if adding them had failed.
+   */
+  private void renderLoadErrors() {
+    for (RuntimeException e : this.model.takeLoadErrors()) {
+      renderExceptionMessage(e);
     }
   }
 
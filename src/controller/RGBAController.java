@@ -3,6 +3,7 @@ package controller;
 import java.awt.image.BufferedImage;
 import java.util.List;
 
+import controller.utils.BinaryCollageUtil;
 import controller.utils.ImageUtil;
 import model.Collager;
 import model.Image;
@@ -28,6 +29,15 @@ public abstract class RGBAController implements CollageController {
     this.model = model;
   }
 
+  /**
+   * Saves the project at the specified filepath. If the filepath ends with ".bcollage" it is
+   * saved in the compressed binary collage format, and otherwise it is saved in the plain collage
+   * format. Both formats can be loaded with {@code loadProject}.
+   *
+   * @param filepath is the filepath to save the project at.
+   * @throws IllegalArgumentException if the filepath is null or if the project fails to save.
+   * @throws IllegalStateException    if the user tries to save the project without a project.
+   */
   @Override
   public void saveProject(String filepath) throws IllegalArgumentException, IllegalStateException {
 
@@ -42,14 +52,21 @@ public abstract class RGBAController implements CollageController {
       throw new IllegalArgumentException("Filepath cannot be null");
     }
 
+    if (filepath.endsWith(".bcollage")) {
+      BinaryCollageUtil.saveCollage(filepath, this.model.getHeight(), this.model.getWidth(),
+              this.model.getLayers(), true);
+      return;
+    }
+
     ImageUtil.saveCollage(filepath, this.model.getHeight(), this.model.getWidth(),
             this.model.getLayers());
   }
 
   /**
    * Saves the image at the specified filepath. If the filepath ends with ".png" it is saved as a
-   * PNG file, if the filepath ends with ".jpeg" or ".jpg" it is saved as a JPEG file, and
-   * otherwise it is saved as a PPM file (case-sensitive).
+   * PNG file, if the filepath ends with ".jpeg" or ".jpg" it is saved as a JPEG file, if the
+   * filepath ends with ".pnm" it is saved as a binary PPM file, and otherwise it is saved as a
+   * plain PPM file (case-sensitive).
    *
    * @param filename is the filepath to save the file at.
    * @throws IllegalArgumentException if the filename is null.
@@ -77,13 +94,19 @@ public abstract class RGBAController implements CollageController {
       return;
     }
 
+    if (filename.endsWith(".pnm")) {
+      ImageUtil.saveBinaryPPM(filename, finalImage, 255);
+      return;
+    }
+
     ImageUtil.saveImage(filename, finalImage);
   }
 
   /**
    * Saves the image from the given layer at the specified filepath. If the filepath ends with
    * ".png" it is saved as a PNG file, if the filepath ends with ".jpeg" or ".jpg" it is saved as
-   * a JPEG file, and otherwise it is saved as a PPM file.
+   * a JPEG file, if the filepath ends with ".pnm" it is saved as a binary PPM file, and otherwise
+   * it is saved as a plain PPM file.
    *
    * @param filename is the name of the file to save to.
    * @param layername is the layer name to save from.
@@ -118,6 +141,11 @@ public abstract class RGBAController implements CollageController {
       return;
     }
 
+    if (filename.endsWith(".pnm")) {
+      ImageUtil.saveBinaryPPM(filename, finalImage, 255);
+      return;
+    }
+
     ImageUtil.saveImage(filename, finalImage);
   }
 
@@ -143,7 +171,38 @@ public abstract class RGBAController implements CollageController {
       return;
     }
 
-    model.addImage(layername, ImageUtil.readPPM(filename), yPos, xPos);
+    model.addImage(layername, ImageUtil.readPPMImage(filename), yPos, xPos);
+  }
+
+  /**
+   * Adds an image file to the given layer the same as {@code addImage}, except that only the
+   * header of a PPM file is read now. Its pixels are decoded once something is rendered from the
+   * layer, and are never decoded if images added on top of it later cover all of it. A file that
+   * cannot be decoded then is left out of the layer, and its error is taken from the model with
+   * {@code takeLoadErrors}, so a file that is covered is never found to be invalid. JPEG and PNG
+   * files are read right away.
+   *
+   * @param layername is the name of the layer to add the image to.
+   * @param filename  is the path of the image file.
+   * @param yPos      is the Y position to add the image at.
+   * @param xPos      is the X position to add the image at.
+   * @throws IllegalArgumentException if the filename or layer name is null, if the layer does not
+   *                                  exist, if the position is invalid, or if the header of the
+   *                                  file is invalid.
+   * @throws IllegalStateException    if the user attempts to add an image without a project.
+   */
+  protected void addImageLazily(String layername, String filename, int yPos, int xPos)
+          throws IllegalArgumentException, IllegalStateException {
+    if (filename == null) {
+      throw new IllegalArgumentException("Filename cannot be null");
+    }
+
+    if (filename.endsWith(".png") || filename.endsWith(".jpg") || filename.endsWith(".jpeg")) {
+      addImage(layername, filename, yPos, xPos);
+      return;
+    }
+
+    model.addImage(layername, ImageUtil.readPPMImageLazily(filename, model), yPos, xPos);
   }
 
   @Override
@@ -167,6 +226,12 @@ public abstract class RGBAController implements CollageController {
     model.createProject(height, width);
   }
 
+  @Override
+  public void createProject(int height, int width, boolean mapped)
+          throws IllegalArgumentException {
+    model.createProject(height, width, mapped);
+  }
+
   @Override
   public BufferedImage getFinalImage() throws IllegalStateException {
     return model.createJavaImage(model.getFinalImage(), BufferedImage.TYPE_INT_ARGB);
@@ -178,6 +243,20 @@ public abstract class RGBAController implements CollageController {
     return model.createJavaImage(model.getImageAtLayer(layername), BufferedImage.TYPE_INT_ARGB);
   }
 
+  @Override
+  public BufferedImage getFinalPreview(int maxHeight, int maxWidth)
+          throws IllegalStateException, IllegalArgumentException {
+    return model.createJavaImage(model.getFinalPreview(maxHeight, maxWidth),
+            BufferedImage.TYPE_INT_ARGB_PRE);
+  }
+
+  @Override
+  public BufferedImage getPreviewAt(String layername, int maxHeight, int maxWidth)
+          throws IllegalStateException, IllegalArgumentException {
+    return model.createJavaImage(model.getPreviewAtLayer(layername, maxHeight, maxWidth),
+            BufferedImage.TYPE_INT_ARGB_PRE);
+  }
+
   @Override
   public String[] getFilterNames() {
     return model.getFilterNames();
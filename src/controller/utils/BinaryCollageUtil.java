@@ -0,0 +1,417 @@
+package controller.utils;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import model.Collager;
+import model.Image;
+import model.ImageWriter;
+import model.Layer;
+import model.utils.PackedPixelUtil;
+
+/**
+ * This class contains utility methods to read and write project files in the binary collage
+ * format. All numbers are big-endian, and a file is laid out as follows:
+ *
+ * <pre>
+ * magic number   4 bytes, 0x89 'C' '2' '\n'
+ * version        2 bytes, currently 1
+ * width          4 bytes
+ * height         4 bytes
+ * layer count    4 bytes
+ * layer table    for each layer from bottom to top:
+ *                  name and filter name, each as a 2 byte length and modified UTF-8 bytes
+ *                  encoding, 1 byte, 0 for raw and 1 for deflate compressed
+ *                  offset of the pixels from the start of the file, 8 bytes
+ *                  length of the pixels in the file, 8 bytes
+ * layer pixels   4 bytes per pixel (red, green, blue, alpha), row by row
+ * </pre>
+ *
+ * <p>Since the layer table says where the pixels of each layer are, opening a project only reads
+ * the table, and the pixels of a layer are read from the file the first time they are needed.
+ */
+public class BinaryCollageUtil {
+
+  /**
+   * The version of the binary collage format that is written by this class.
+   */
+  public static final int VERSION = 1;
+
+  private static final byte[] MAGIC_NUMBER = new byte[]{(byte) 0x89, 'C', '2', '\n'};
+  private static final int RAW = 0;
+  private static final int DEFLATE = 1;
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  /**
+   * Determines if the given file starts with the magic number of the binary collage format.
+   *
+   * @param filename is the path of the file.
+   * @return true if the file is a binary collage file, false otherwise.
+   * @throws IllegalArgumentException if the filename is null or the file cannot be read.
+   */
+  public static boolean isBinaryCollage(String filename) throws IllegalArgumentException {
+    if (filename == null) {
+      throw new IllegalArgumentException("Filename cannot be null");
+    }
+
+    byte[] start = new byte[MAGIC_NUMBER.length];
+
+    try (FileChannel channel = FileChannel.open(Path.of(filename))) {
+      ByteBuffer buffer = ByteBuffer.wrap(start);
+
+      while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+        // Keep reading until the magic number is read or the file ends
+      }
+    } catch (NoSuchFileException | InvalidPathException e) {
+      throw new IllegalArgumentException("File " + filename + " not found");
+    } catch (IOException e) {
+      throw new IllegalArgumentException("File " + filename + " could not be read");
+    }
+
+    return Arrays.equals(start, MAGIC_NUMBER);
+  }
+
+  /**
+   * Opens the binary collage file with the given filename in the given {@code Collager}. Only
+   * the layer table is read, and the pixels of each layer are read from the file the first time
+   * they are needed, so the file should not be changed while the project is open.
+   *
+   * @param filename is the path of the file.
+   * @param collager is the {@code Collager} to open the project with.
+   * @throws IllegalArgumentException if the filename or collager is null, the file cannot be
+   *                                  found or read, or if the file is not a valid binary collage
+   *                                  file.
+   */
+  public static void readCollage(String filename, Collager collager)
+          throws IllegalArgumentException {
+
+    if (filename == null) {
+      throw new IllegalArgumentException("Filename cannot be null");
+    }
+
+    if (collager == null) {
+      throw new IllegalArgumentException("Collager cannot be null");
+    }
+
+    List<String> layerNames = new ArrayList<>();
+    List<String> filterNames = new ArrayList<>();
+    List<Image> images = new ArrayList<>();
+    Path path;
+    int width;
+    int height;
+
+    try {
+      path = Path.of(filename).toAbsolutePath();
+    } catch (InvalidPathException e) {
+      throw new IllegalArgumentException("File " + filename + " not found");
+    }
+
+    try (FileChannel channel = FileChannel.open(path)) {
+      long size = channel.size();
+      DataInputStream in = new DataInputStream(new BufferedInputStream(
+              Channels.newInputStream(channel)));
+
+      byte[] magicNumber = new byte[MAGIC_NUMBER.length];
+      in.readFully(magicNumber);
+
+      if (!Arrays.equals(magicNumber, MAGIC_NUMBER)) {
+        throw new IllegalArgumentException("Invalid Collage file: binary file should begin with "
+                + "the binary collage magic number");
+      }
+
+      int version = in.readUnsignedShort();
+
+      if (version != VERSION) {
+        throw new IllegalArgumentException("Unsupported binary collage file version " + version);
+      }
+
+      width = in.readInt();
+      height = in.readInt();
+      int layerCount = in.readInt();
+
+      if (width < 1 || height < 1 || layerCount < 0
+              || (long) width * height > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("Invalid Collage file: invalid height, width, or "
+                + "number of layers");
+      }
+
+      long pixelBytes = 4L * width * height;
+
+      for (int i = 0; i < layerCount; i++) {
+
+        layerNames.add(in.readUTF());
+        filterNames.add(in.readUTF());
+
+        int encoding = in.readUnsignedByte();
+        long offset = in.readLong();
+        long length = in.readLong();
+
+        if (encoding != RAW && encoding != DEFLATE) {
+          throw new IllegalArgumentException("Invalid Collage file: unknown layer encoding");
+        }
+
+        if (offset < 0 || length < 0 || offset + length > size
+                || (encoding == RAW && length != pixelBytes)) {
+          throw new IllegalArgumentException("Invalid Collage file: layer pixels are outside of "
+                  + "the file");
+        }
+
+        int layerHeight = height;
+        int layerWidth = width;
+
+        images.add(collager.createLazyImage(height, width, false, () -> readLayer(path,
+                encoding, offset, length, layerHeight, layerWidth, collager)));
+      }
+    } catch (EOFException e) {
+      throw new IllegalArgumentException("Invalid Collage file: file ended before the layer "
+              + "table did");
+    } catch (NoSuchFileException e) {
+      throw new IllegalArgumentException("File " + filename + " not found");
+    } catch (IOException e) {
+      throw new IllegalArgumentException("File " + filename + " could not be read");
+    }
+
+    collager.loadProject(height, width, layerNames, filterNames, images);
+  }
+
+  /**
+   * Saves a collager project in the binary collage format to the given filepath, given the
+   * height and width of the images, and given the list of layers in the collager project.
+   *
+   * @param filepath is the filepath to save the project file to.
+   * @param height   is the height of the images in the layers.
+   * @param width    is the width of the images in the layers.
+   * @param layers   is the list of layers that are in the project.
+   * @param compress is whether to compress the pixels of each layer.
+   * @throws IllegalArgumentException if the filepath is null, the height and width are less than
+   *                                  1, the list of layers are null, any of the layers in the list
+   *                                  are null, or if the project fails to save to the file.
+   */
+  public static void saveCollage(String filepath, int height, int width, List<Layer> layers,
+                                 boolean compress) throws IllegalArgumentException {
+
+    if (filepath == null) {
+      throw new IllegalArgumentException("Filepath cannot be null");
+    }
+
+    if (height < 1 || width < 1) {
+      throw new IllegalArgumentException("Width and height must be at least 1");
+    }
+
+    if (layers == null) {
+      throw new IllegalArgumentException("Layers cannot be null");
+    }
+
+    ByteArrayOutputStream header = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(header);
+    long[] offsetPositions = new long[layers.size()];
+
+    try {
+      out.write(MAGIC_NUMBER);
+      out.writeShort(VERSION);
+      out.writeInt(width);
+      out.writeInt(height);
+      out.writeInt(layers.size());
+
+      for (int i = 0; i < layers.size(); i++) {
+
+        if (layers.get(i) == null) {
+          throw new IllegalArgumentException("None of the layers can be null");
+        }
+
+        out.writeUTF(layers.get(i).getLayerName());
+        out.writeUTF(layers.get(i).getFilterName());
+        out.writeByte(compress ? DEFLATE : RAW);
+        offsetPositions[i] = out.size();
+
+        // The offset and length are filled in once the pixels are written
+        out.writeLong(0);
+        out.writeLong(0);
+      }
+    } catch (IOException e) {
+      // Writing to an array cannot fail
+      throw new IllegalStateException(e);
+    }
+
+    Path temp = null;
+
+    try {
+      // The layers may still be loading from the file that is being replaced, so the project is
+      // written next to it first
+      Path path = Path.of(filepath).toAbsolutePath();
+      temp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+
+        writeFully(channel, ByteBuffer.wrap(header.toByteArray()), 0);
+        channel.position(header.size());
+
+        for (int i = 0; i < layers.size(); i++) {
+
+          long offset = channel.position();
+          writeLayer(channel, layers.get(i).getImage(), compress);
+
+          ByteBuffer entry = ByteBuffer.allocate(16);
+          entry.putLong(offset).putLong(channel.position() - offset).flip();
+          writeFully(channel, entry, offsetPositions[i]);
+        }
+      }
+
+      Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException | InvalidPathException e) {
+      throw new IllegalArgumentException("Error creating/writing to file: " + e.getMessage());
+    } finally {
+      if (temp != null) {
+        try {
+          Files.deleteIfExists(temp);
+        } catch (IOException e) {
+          // Do nothing, the project was already saved or failed to save
+        }
+      }
+    }
+  }
+
+  /*
+   * Writes the pixels of the given image at the current position of the channel.
+   */
+  private static void writeLayer(FileChannel channel, Image img, boolean compress)
+          throws IOException {
+
+    ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    Deflater deflater = compress ? new Deflater(Deflater.BEST_SPEED) : null;
+    DeflaterOutputStream deflated = compress ? new DeflaterOutputStream(
+            Channels.newOutputStream(channel), deflater, BUFFER_SIZE) : null;
+
+    // The image is read a band of rows at a time, so images stored outside the heap stay there
+    int width = img.getWidth();
+    int bandRows = Math.max(1, BUFFER_SIZE / width);
+    int[] band = new int[Math.min(bandRows, img.getHeight()) * width];
+
+    try {
+      for (int y = 0; y < img.getHeight(); y += bandRows) {
+
+        int rows = Math.min(bandRows, img.getHeight() - y);
+        img.getARGBRegion(y, 0, rows, width, band, 0, width);
+
+        for (int i = 0; i < rows * width; i++) {
+
+          if (!buffer.hasRemaining()) {
+            flush(channel, deflated, buffer);
+          }
+
+          buffer.put((byte) PackedPixelUtil.red(band[i]));
+          buffer.put((byte) PackedPixelUtil.green(band[i]));
+          buffer.put((byte) PackedPixelUtil.blue(band[i]));
+          buffer.put((byte) PackedPixelUtil.alpha(band[i]));
+        }
+      }
+
+      flush(channel, deflated, buffer);
+
+      if (compress) {
+        // Finishing writes the rest of the compressed data without closing the channel
+        deflated.finish();
+      }
+    } finally {
+      if (compress) {
+        deflater.end();
+      }
+    }
+  }
+
+  private static void flush(FileChannel channel, DeflaterOutputStream deflated, ByteBuffer buffer)
+          throws IOException {
+
+    buffer.flip();
+
+    if (deflated == null) {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    } else {
+      deflated.write(buffer.array(), 0, buffer.limit());
+    }
+
+    buffer.clear();
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer, long position)
+          throws IOException {
+
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+  }
+
+  /*
+   * Reads the pixels of a layer from the given file into an image created by the collager, a band
+   * of rows at a time, so a layer stored outside the heap is never read into it. Called the first
+   * time the layer is needed.
+   */
+  private static Image readLayer(Path path, int encoding, long offset, long length, int height,
+                                 int width, Collager collager) throws IllegalStateException {
+
+    ImageWriter writer = collager.createImageWriter(height, width);
+    int bandRows = Math.max(1, BUFFER_SIZE / 4 / width);
+    int[] band = new int[Math.min(bandRows, height) * width];
+    byte[] buffer = new byte[band.length * 4];
+
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      channel.position(offset);
+      InputStream in = new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE);
+      Inflater inflater = encoding == DEFLATE ? new Inflater() : null;
+
+      try {
+        if (encoding == DEFLATE) {
+          in = new InflaterInputStream(in, inflater, BUFFER_SIZE);
+        }
+
+        DataInputStream data = new DataInputStream(in);
+
+        for (int y = 0; y < height; y += bandRows) {
+
+          int rows = Math.min(bandRows, height - y);
+          data.readFully(buffer, 0, rows * width * 4);
+
+          for (int i = 0; i < rows * width; i++) {
+
+            band[i] = PackedPixelUtil.pack(buffer[4 * i] & 0xff, buffer[4 * i + 1] & 0xff,
+                    buffer[4 * i + 2] & 0xff, buffer[4 * i + 3] & 0xff);
+          }
+
+          writer.setARGBRegion(y, 0, rows, width, band, 0, width);
+        }
+      } finally {
+        if (inflater != null) {
+          inflater.end();
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Layer could not be read from " + path + ": "
+              + e.getMessage());
+    }
+
+    return writer.getImage();
+  }
+}
@@ -6,6 +6,13 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 import java.util.Scanner;
 
@@ -14,14 +21,17 @@ import javax.imageio.ImageIO;
 import model.Collager;
 import model.Image;
 import model.Layer;
-import model.Pixel;
+import model.utils.PPMDecoder;
+import model.utils.PackedPixelUtil;
 
 /**
  * This class contains utility methods to read and write images, and read and write project files.
- * Can read and write from PPM, JPEG, and PNG.
+ * Can read and write from PPM (plain and binary), JPEG, and PNG.
  */
 public class ImageUtil {
 
+  private static final int BAND_PIXELS = 1 << 16;
+
   /**
    * Read an image file in the PPM format and return its contents as a string.
    *
@@ -53,6 +63,75 @@ public class ImageUtil {
     return builder.toString();
   }
 
+  /**
+   * Reads an image file in the plain or binary PPM format, decoding the pixels directly from the
+   * file. The format is chosen by the magic number of the file.
+   *
+   * @param filename the path of the file.
+   * @return the decoded image.
+   * @throws IllegalArgumentException if the filename is null, the file does not exist or cannot be
+   *                                  read, or if the file is not a valid PPM file.
+   */
+  public static Image readPPMImage(String filename) throws IllegalArgumentException {
+    if (filename == null) {
+      throw new IllegalArgumentException("Filename cannot be null");
+    }
+
+    try (InputStream in = new FileInputStream(filename)) {
+      return PPMDecoder.decode(in);
+    } catch (FileNotFoundException e) {
+      throw new IllegalArgumentException("File " + filename + " not found");
+    } catch (IOException e) {
+      throw new IllegalArgumentException("File " + filename + " could not be read");
+    }
+  }
+
+  /**
+   * Reads the header of an image file in the plain or binary PPM format, and returns an image
+   * whose pixels are only decoded from the file the first time they are needed. Every pixel of a
+   * PPM image is fully opaque, which the image knows before it is decoded. Decoding fails if the
+   * size or the last modified time of the file changed since the header was read, so the image is
+   * never different from the file that was added.
+   *
+   * @param filename the path of the file.
+   * @param collager is the {@code Collager} that creates the image.
+   * @return the image that decodes the file once it is needed.
+   * @throws IllegalArgumentException if the filename or collager is null, the file does not exist
+   *                                  or cannot be read, or if the header of the file is not a
+   *                                  valid PPM header.
+   */
+  public static Image readPPMImageLazily(String filename, Collager collager)
+          throws IllegalArgumentException {
+    if (filename == null) {
+      throw new IllegalArgumentException("Filename cannot be null");
+    }
+
+    if (collager == null) {
+      throw new IllegalArgumentException("Collager cannot be null");
+    }
+
+    File file = new File(filename);
+    long length = file.length();
+    long modified = file.lastModified();
+    int[] size;
+
+    try (InputStream in = new FileInputStream(filename)) {
+      size = PPMDecoder.decodeSize(in);
+    } catch (FileNotFoundException e) {
+      throw new IllegalArgumentException("File " + filename + " not found");
+    } catch (IOException e) {
+      throw new IllegalArgumentException("File " + filename + " could not be read");
+    }
+
+    return collager.createLazyImage(size[0], size[1], true, () -> {
+      if (file.length() != length || file.lastModified() != modified) {
+        throw new IllegalArgumentException("File " + filename + " changed after it was added");
+      }
+
+      return readPPMImage(filename);
+    });
+  }
+
   /**
    * Reads a collager file given the filename of the collager file and the resulting
    * {@code Collager} to open the project with.
@@ -73,6 +152,11 @@ public class ImageUtil {
       throw new IllegalArgumentException("Collager cannot be null");
     }
 
+    if (BinaryCollageUtil.isBinaryCollage(filename)) {
+      BinaryCollageUtil.readCollage(filename, collager);
+      return;
+    }
+
     Scanner sc;
 
     try {
@@ -136,12 +220,18 @@ public class ImageUtil {
       contents.append(layer.getFilterName());
       contents.append("\n");
 
-      for (Pixel[] row : layer.getImage().getPixels()) {
+      // The pixels are read from the image a row at a time instead of copying all of them
+      Image image = layer.getImage();
+      int[] row = new int[image.getWidth()];
+
+      for (int i = 0; i < image.getHeight(); i++) {
 
-        for (Pixel pixel : row) {
+        image.getARGBRegion(i, 0, 1, row.length, row, 0, row.length);
 
-          int[] rgba = pixel.asRGBA();
-          contents.append(rgba[0] + " " + rgba[1] + " " + rgba[2] + " " + rgba[3] + "\n");
+        for (int pixel : row) {
+
+          contents.append(PackedPixelUtil.red(pixel) + " " + PackedPixelUtil.green(pixel) + " "
+                  + PackedPixelUtil.blue(pixel) + " " + PackedPixelUtil.alpha(pixel) + "\n");
         }
       }
     }
@@ -181,14 +271,17 @@ public class ImageUtil {
     contents.append(img.getWidth() + " " + img.getHeight() + "\n");
     contents.append("255\n");
 
-    Pixel[][] pixels = img.getPixels();
+    int[] row = new int[img.getWidth()];
 
     for (int i = 0; i < img.getHeight(); i++) {
 
+      img.getARGBRegion(i, 0, 1, row.length, row, 0, row.length);
+
       for (int j = 0; j < img.getWidth(); j++) {
 
-        int[] rgb = pixels[i][j].asRGB();
-        contents.append(rgb[0] + " " + rgb[1] + " " + rgb[2]);
+        int rgb = PackedPixelUtil.toRGB(row[j]);
+        contents.append(PackedPixelUtil.red(rgb) + " " + PackedPixelUtil.green(rgb) + " "
+                + PackedPixelUtil.blue(rgb));
 
         if (j < img.getWidth() - 1) {
           contents.append(" ");
@@ -209,6 +302,94 @@ public class ImageUtil {
     }
   }
 
+  /**
+   * Saves the given image to the given file path in binary PPM (P6) format. The values are written
+   * as one byte each if the maximum value is less than 256 and as two bytes each (most
+   * significant first) otherwise. As with a plain PPM, the colors are changed based on the
+   * opacity of each pixel.
+   *
+   * @param filepath is the file path to save the image to as a binary PPM.
+   * @param img      is the image to save to file.
+   * @param maxValue is the maximum value of the saved image, between 1 and 65535.
+   * @throws IllegalArgumentException if the filepath or image are null, the maximum value is
+   *                                  invalid, or if the image fails to save to the specified file.
+   */
+  public static void saveBinaryPPM(String filepath, Image img, int maxValue)
+          throws IllegalArgumentException {
+
+    if (filepath == null) {
+      throw new IllegalArgumentException("Filepath cannot be null");
+    }
+
+    if (img == null) {
+      throw new IllegalArgumentException("Image cannot be null");
+    }
+
+    if (maxValue < 1 || maxValue > 65535) {
+      throw new IllegalArgumentException("Maximum value must be between 1 and 65535");
+    }
+
+    byte[] header = ("P6\n" + img.getWidth() + " " + img.getHeight() + "\n" + maxValue + "\n")
+            .getBytes(StandardCharsets.US_ASCII);
+    int sampleSize = maxValue > 255 ? 2 : 1;
+    ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+
+    try (FileChannel channel = FileChannel.open(Path.of(filepath), StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+      buffer.put(header);
+
+      // The image is read a band of rows at a time, so images stored outside the heap stay there
+      int width = img.getWidth();
+      int bandRows = Math.max(1, BAND_PIXELS / width);
+      int[] band = new int[Math.min(bandRows, img.getHeight()) * width];
+
+      for (int y = 0; y < img.getHeight(); y += bandRows) {
+
+        int rows = Math.min(bandRows, img.getHeight() - y);
+        img.getARGBRegion(y, 0, rows, width, band, 0, width);
+
+        for (int i = 0; i < rows * width; i++) {
+
+          if (buffer.remaining() < 3 * sampleSize) {
+            buffer.flip();
+            writeFully(channel, buffer);
+            buffer.clear();
+          }
+
+          int rgb = PackedPixelUtil.toRGB(band[i]);
+          putSample(buffer, PackedPixelUtil.red(rgb), maxValue, sampleSize);
+          putSample(buffer, PackedPixelUtil.green(rgb), maxValue, sampleSize);
+          putSample(buffer, PackedPixelUtil.blue(rgb), maxValue, sampleSize);
+        }
+      }
+
+      buffer.flip();
+      writeFully(channel, buffer);
+    } catch (IOException | InvalidPathException e) {
+      throw new IllegalArgumentException("Error creating/writing to file: " + e.getMessage());
+    }
+  }
+
+  /*
+   * Adds a value from the range 0-255 to the buffer after converting it to the range 0-maxValue.
+   */
+  private static void putSample(ByteBuffer buffer, int value, int maxValue, int sampleSize) {
+    int scaled = maxValue == 255 ? value : (int) Math.round(value * maxValue / 255.0);
+
+    if (sampleSize == 2) {
+      buffer.putShort((short) scaled);
+    } else {
+      buffer.put((byte) scaled);
+    }
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
   /**
    * Saves the given image to the given file path. Only works for PNG and JPEG filepaths.
    *
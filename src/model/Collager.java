@@ -2,6 +2,7 @@ package model;
 
 import java.awt.image.BufferedImage;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Defines basic operations for a model of the collager program.
@@ -17,6 +18,18 @@ public interface Collager {
    */
   void createProject(int height, int width) throws IllegalArgumentException;
 
+  /**
+   * Creates a new project given the height and width of the canvas, choosing whether the images
+   * of the project are stored in memory-mapped scratch files instead of the heap. Projects with
+   * more pixels than the pixel budget are always stored in scratch files.
+   *
+   * @param height is the height of the canvas.
+   * @param width  is the width of the canvas.
+   * @param mapped is whether to store the images in scratch files regardless of the budget.
+   * @throws IllegalArgumentException if the height or width are invalid.
+   */
+  void createProject(int height, int width, boolean mapped) throws IllegalArgumentException;
+
   /**
    * Adds a layer to the project with the specified name. The layer starts with an image by default.
    *
@@ -35,6 +48,23 @@ public interface Collager {
    */
   void loadProject(String collagerContents) throws IllegalArgumentException;
 
+  /**
+   * Loads a collager project given the height and width of the canvas, and the name, filter, and
+   * image of each layer from bottom to top. The pixels of the images are not read until they are
+   * needed, so images that load lazily are only loaded when something is rendered from them.
+   *
+   * @param height      is the height of the canvas.
+   * @param width       is the width of the canvas.
+   * @param layerNames  are the names of the layers.
+   * @param filterNames are the names of the filters of the layers.
+   * @param images      are the images of the layers, which must be the size of the canvas.
+   * @throws IllegalArgumentException if any of the lists are null or not the same size, if the
+   *                                  height or width are invalid, or if any of the layers are
+   *                                  invalid.
+   */
+  void loadProject(int height, int width, List<String> layerNames, List<String> filterNames,
+                   List<Image> images) throws IllegalArgumentException;
+
   /**
    * Sets the filter of a given layer. Only works for filters that are supported by the model.
    *
@@ -122,6 +152,35 @@ public interface Collager {
    */
   Image getImageAtLayer(String layername) throws IllegalStateException, IllegalArgumentException;
 
+  /**
+   * Gets a preview of the final image that is no larger than the given size, composited from
+   * smaller copies of the layers so that it is much faster to get than the final image. The
+   * preview is the final image itself if the final image already fits.
+   *
+   * @param maxHeight is the largest height of the preview.
+   * @param maxWidth  is the largest width of the preview.
+   * @return the preview.
+   * @throws IllegalStateException if there are no layers or no project.
+   * @throws IllegalArgumentException if the height or width are less than 1.
+   */
+  Image getFinalPreview(int maxHeight, int maxWidth)
+          throws IllegalStateException, IllegalArgumentException;
+
+  /**
+   * Gets a preview of the image at the specified layer that is no larger than the given size,
+   * the same as {@code getFinalPreview}.
+   *
+   * @param layername is the name of the layer to get at.
+   * @param maxHeight is the largest height of the preview.
+   * @param maxWidth  is the largest width of the preview.
+   * @return the preview.
+   * @throws IllegalStateException if there are no layers or no project.
+   * @throws IllegalArgumentException if the layer does not exist, or if the height or width are
+   *                                  less than 1.
+   */
+  Image getPreviewAtLayer(String layername, int maxHeight, int maxWidth)
+          throws IllegalStateException, IllegalArgumentException;
+
   /**
    * Gets the height of the project.
    *
@@ -146,6 +205,65 @@ public interface Collager {
    */
   List<Layer> getLayers() throws IllegalStateException;
 
+  /**
+   * Takes the errors of the images that could not be loaded when they were combined onto their
+   * layers, which only happens for images that are loaded after they are added, such as a
+   * {@code LazyImage}. Those images are left out of their layers, the same as if adding them had
+   * failed. Each error is only taken once.
+   *
+   * @return the errors since they were last taken, in the order that the images were added.
+   */
+  List<RuntimeException> takeLoadErrors();
+
+  /**
+   * Sets the number of threads used to render the images of the project. Setting this does not
+   * change the images that are rendered.
+   *
+   * @param parallelism is the number of threads to use, 1 to render on the calling thread.
+   * @throws IllegalArgumentException if the parallelism is less than 1.
+   */
+  void setParallelism(int parallelism) throws IllegalArgumentException;
+
+  /**
+   * Gets the number of threads used to render the images of the project.
+   *
+   * @return the number of threads used to render.
+   */
+  int getParallelism();
+
+  /**
+   * Sets the number of pixels above which the images of new projects are stored in memory-mapped
+   * scratch files instead of the heap. Does not change the current project.
+   *
+   * @param pixelBudget is the largest number of pixels of a canvas stored in the heap.
+   * @throws IllegalArgumentException if the budget is less than 1.
+   */
+  void setPixelBudget(long pixelBudget) throws IllegalArgumentException;
+
+  /**
+   * Gets the number of pixels above which the images of new projects are stored in
+   * memory-mapped scratch files instead of the heap.
+   *
+   * @return the pixel budget.
+   */
+  long getPixelBudget();
+
+  /**
+   * Gets the number of times that the image of a layer, with every layer below it, was requested
+   * and had already been combined since the layers below it last changed.
+   *
+   * @return the number of composite cache hits.
+   */
+  long getCacheHits();
+
+  /**
+   * Gets the number of times that the image of a layer, with every layer below it, was requested
+   * and had to be combined again because a layer at or below it changed.
+   *
+   * @return the number of composite cache misses.
+   */
+  long getCacheMisses();
+
   /**
    * Converts an image of this implementation to a Java {@code BufferedImage} type.
    *
@@ -156,6 +274,34 @@ public interface Collager {
    */
   BufferedImage createJavaImage(Image img, int bufferedImageType);
 
+  /**
+   * Creates an image whose pixels are only loaded the first time they are needed, such as an image
+   * file that is added to a layer, or a layer of a project file that is opened. The height and
+   * width are known up front, so they can be read without loading the image.
+   *
+   * @param height is the height of the image.
+   * @param width  is the width of the image.
+   * @param opaque is whether every pixel that the loader creates is fully opaque.
+   * @param loader creates the image when it is first needed, and is called at most once.
+   * @return the image that is loaded once it is needed.
+   * @throws IllegalArgumentException if the height or width are less than 1, or if the loader is
+   *                                  null.
+   */
+  Image createLazyImage(int height, int width, boolean opaque, Supplier<Image> loader)
+          throws IllegalArgumentException;
+
+  /**
+   * Creates an image of the given size whose pixels are written before it is used. The pixels are
+   * stored the same way as the images of the current project, so an image the size of a canvas
+   * that is kept out of the heap is also written out of the heap.
+   *
+   * @param height is the height of the image.
+   * @param width  is the width of the image.
+   * @return the writer of the new image.
+   * @throws IllegalArgumentException if the height or width are less than 1.
+   */
+  ImageWriter createImageWriter(int height, int width) throws IllegalArgumentException;
+
   /**
    * Gets the filter names available in this {@code Collager} as an array.
    *
@@ -0,0 +1,42 @@
+package model;
+
+/**
+ * Stores the pixels of images in arrays in the heap, as {@code PackedRGBAImage}s, or as
+ * {@code TiledRGBAImage}s for the images of layers, which only store the tiles that were edited.
+ */
+class HeapImageStorage implements ImageStorage {
+
+  @Override
+  public ImageEditor createEditor(Image image) {
+    if (image instanceof TiledRGBAImage) {
+      return ((TiledRGBAImage) image).edit();
+    }
+
+    return new WriterImageEditor(image, this);
+  }
+
+  @Override
+  public ImageWriter createWriter(int height, int width) {
+    int[] pixels = new int[height * width];
+    Image image = new PackedRGBAImage(height, width, pixels);
+
+    return new ImageWriter() {
+      @Override
+      public void setARGBRegion(int startY, int startX, int height, int width, int[] src,
+                                int offset, int stride) throws IllegalArgumentException {
+
+        PackedRGBAImage.checkRegion(image, startY, startX, height, width, src, offset, stride);
+
+        for (int i = 0; i < height; i++) {
+          System.arraycopy(src, offset + i * stride, pixels,
+                  (startY + i) * image.getWidth() + startX, width);
+        }
+      }
+
+      @Override
+      public Image getImage() {
+        return image;
+      }
+    };
+  }
+}
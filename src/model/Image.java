@@ -16,6 +16,43 @@ public interface Image {
    */
   Pixel[][] getPixels();
 
+  /**
+   * Gets the pixel at the given position packed as a single ARGB integer, see
+   * {@code PackedPixelUtil}.
+   *
+   * @param row is the row (Y coordinate) of the pixel.
+   * @param col is the column (X coordinate) of the pixel.
+   * @return the packed ARGB pixel.
+   * @throws IllegalArgumentException if the position is outside the image.
+   */
+  int getARGB(int row, int col) throws IllegalArgumentException;
+
+  /**
+   * Represents the image as its pixels packed as ARGB integers, stored row by row so that the
+   * pixel at (row, col) is at index {@code row * getWidth() + col}.
+   * It should be noted that the array should not be an alias of the data used for the image.
+   *
+   * @return the packed pixels of the image.
+   */
+  int[] getARGBPixels();
+
+  /**
+   * Copies a rectangular region of the image into the given array as packed ARGB integers. The
+   * pixel at (startY + i, startX + j) is written to {@code dest[offset + i * stride + j]}.
+   *
+   * @param startY is the Y coordinate of the top left corner of the region.
+   * @param startX is the X coordinate of the top left corner of the region.
+   * @param height is the height of the region.
+   * @param width  is the width of the region.
+   * @param dest   is the array to copy the region into.
+   * @param offset is the index in {@code dest} to write the top left pixel of the region to.
+   * @param stride is the distance in {@code dest} between the starts of two rows of the region.
+   * @throws IllegalArgumentException if the destination is null, the region is not fully
+   *                                  contained in the image, or the destination is too small.
+   */
+  void getARGBRegion(int startY, int startX, int height, int width, int[] dest, int offset,
+                     int stride) throws IllegalArgumentException;
+
   /**
    * Combines two images and returns the resulting image, given an image and the starting
    * coordinates to place the image.
@@ -27,6 +64,19 @@ public interface Image {
    */
   Image combine(Image that, int startY, int startX);
 
+  /**
+   * Gets a rectangular region of this image as a new image.
+   *
+   * @param startY is the Y coordinate of the top left corner of the region.
+   * @param startX is the X coordinate of the top left corner of the region.
+   * @param height is the height of the region.
+   * @param width  is the width of the region.
+   * @return a new {@code Image} containing the pixels of the region.
+   * @throws IllegalArgumentException if the region is empty or not fully contained in the image.
+   */
+  Image getRegion(int startY, int startX, int height, int width)
+          throws IllegalArgumentException;
+
   /**
    * Applies the provided filter to this image.
    *
@@ -0,0 +1,54 @@
+package model;
+
+import java.awt.Rectangle;
+
+/**
+ * Edits a copy of an image in place, so that any number of images can be combined onto it while
+ * it is only copied once. Once the edits are finished, the edited image is taken as a snapshot,
+ * which is never changed again like every other image. Editors are created by an
+ * {@code ImageStorage}, which decides where the copy is stored.
+ */
+interface ImageEditor {
+
+  /**
+   * Combines the given image onto the edited image in place, the same as {@code Image.combine}.
+   *
+   * @param that   is the image to combine onto the edited image.
+   * @param startY is the row to place the top of the image at.
+   * @param startX is the column to place the left of the image at.
+   * @return the region of the edited image that changed.
+   * @throws IllegalArgumentException if the image is null or not fully contained.
+   * @throws IllegalStateException    if the snapshot has already been taken.
+   */
+  Rectangle combine(Image that, int startY, int startX)
+          throws IllegalArgumentException, IllegalStateException;
+
+  /**
+   * Copies the given image over the edited image in place, which gives the same pixels as
+   * {@code combine} if every pixel of the image is fully opaque, without blending them.
+   *
+   * @param that   is the image to copy onto the edited image.
+   * @param startY is the row to place the top of the image at.
+   * @param startX is the column to place the left of the image at.
+   * @return the region of the edited image that changed.
+   * @throws IllegalArgumentException if the image is null or not fully contained.
+   * @throws IllegalStateException    if the snapshot has already been taken.
+   */
+  Rectangle copy(Image that, int startY, int startX)
+          throws IllegalArgumentException, IllegalStateException;
+
+  /**
+   * Gets the edited image while it is still being edited, which changes with every edit and must
+   * only be read before the next one.
+   *
+   * @return the edited image.
+   */
+  Image getImage();
+
+  /**
+   * Finishes editing and gets the edited image, which is never changed again.
+   *
+   * @return the snapshot of the edited image.
+   */
+  Image snapshot();
+}
@@ -0,0 +1,49 @@
+package model;
+
+/**
+ * Decides where the pixels of canvas sized images are stored. The {@code RGBACollager} creates
+ * the images of its layers and composites through its storage, so that large canvases can be
+ * kept out of the heap.
+ */
+interface ImageStorage {
+
+  /**
+   * Creates a fully transparent image of the given size. The blank image is a
+   * {@code TiledRGBAImage}, which takes no memory until it is edited.
+   *
+   * @param height is the height of the image.
+   * @param width  is the width of the image.
+   * @return the blank image.
+   */
+  default Image createBlank(int height, int width) {
+    return new TiledRGBAImage(height, width);
+  }
+
+  /**
+   * Starts editing a copy of the given image, whose pixels are stored in this storage.
+   *
+   * @param image is the image to edit a copy of.
+   * @return the editor of the copy.
+   */
+  ImageEditor createEditor(Image image);
+
+  /**
+   * Creates an image of the given size whose pixels are written before it is used.
+   *
+   * @param height is the height of the image.
+   * @param width  is the width of the image.
+   * @return the writer of the new image.
+   */
+  ImageWriter createWriter(int height, int width);
+
+  /**
+   * Gives back the space of an image that this storage created, once it is no longer used, instead
+   * of waiting for it to be garbage collected. The image cannot be used once it is released.
+   * Images that this storage did not create are left as they are.
+   *
+   * @param image is the image that is no longer used.
+   */
+  default void release(Image image) {
+    // Images in the heap are given back by the garbage collector
+  }
+}
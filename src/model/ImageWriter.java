@@ -0,0 +1,34 @@
+package model;
+
+/**
+ * Writes the pixels of an image that is being created, which is stored wherever the images of the
+ * {@code Collager} that created it are stored. Different threads can write different regions of
+ * the image at the same time.
+ */
+public interface ImageWriter {
+
+  /**
+   * Writes the given pixels into a region of the image, the reverse of
+   * {@code Image.getARGBRegion}.
+   *
+   * @param startY is the first row of the region.
+   * @param startX is the first column of the region.
+   * @param height is the height of the region.
+   * @param width  is the width of the region.
+   * @param src    is the array to copy the packed pixels from.
+   * @param offset is the index in the array of the first pixel of the region.
+   * @param stride is the distance in the array between the first pixels of two rows.
+   * @throws IllegalArgumentException if the region is not fully contained in the image, or the
+   *                                  array is too small for the region.
+   */
+  void setARGBRegion(int startY, int startX, int height, int width, int[] src, int offset,
+                     int stride) throws IllegalArgumentException;
+
+  /**
+   * Gets the image that is written by this writer, which can be read from once the region that is
+   * read has been written.
+   *
+   * @return the image.
+   */
+  Image getImage();
+}
@@ -1,5 +1,7 @@
 package model;
 
+import java.awt.Rectangle;
+
 /**
  * Defines the behavior of one of the layers in a collager model.
  */
@@ -80,9 +82,32 @@ public interface Layer {
   String getFilterName();
 
   /**
-   * Gets a copy of the image stored in the layer.
+   * Gets the bounds of the part of the layer that may differ from a blank layer, which grows
+   * with the region of every image combined with the layer. Outside these bounds, every pixel
+   * of the layer is fully transparent.
+   *
+   * @return the bounds of the layer's content, which are empty for a blank layer.
+   */
+  Rectangle getBounds();
+
+  /**
+   * Gets a rectangular region of the layer as a new layer with the same name and filter.
+   *
+   * @param startY is the Y coordinate of the top left corner of the region.
+   * @param startX is the X coordinate of the top left corner of the region.
+   * @param height is the height of the region.
+   * @param width  is the width of the region.
+   * @return a new {@code Layer} containing the region.
+   * @throws IllegalArgumentException if the region is empty or not fully contained in the layer.
+   */
+  Layer getRegion(int startY, int startX, int height, int width)
+          throws IllegalArgumentException;
+
+  /**
+   * Gets the image stored in the layer. Images are never changed once they are created, so the
+   * image is not copied.
    *
-   * @return the copy of the image in the layer.
+   * @return the image in the layer.
    */
   Image getImage();
 }
@@ -0,0 +1,144 @@
+package model;
+
+import model.filters.CompiledFilter;
+import model.filters.Filter;
+import model.filters.FilterName;
+import model.filters.FilterType;
+import model.filters.NormalFilter;
+import model.filters.PixelKernel;
+import model.filters.TwoPixelKernel;
+import model.utils.PackedPixelLoops;
+import model.utils.PackedPixelUtil;
+
+/**
+ * Composites a region of a layer over the composite below it in a single pass over arrays of
+ * packed pixels, giving exactly the same pixels as applying the filters of the layer to images
+ * and combining them. The filter of the layer, the blend of its {@code TwoFilter} with the
+ * composite below it and the combining are all done on the same few arrays, without creating an
+ * image or a layer for any of the steps.
+ *
+ * <p>A layer can only be compiled if its filter is compiled to a {@code PixelKernel} or does
+ * nothing, and if its {@code TwoFilter}, if it has one, is compiled to a {@code TwoPixelKernel}.
+ * Every filter in {@code FilterName} can be compiled.
+ */
+class LayerKernel {
+
+  private final Image image;
+  private final PixelKernel kernel;
+  private final TwoPixelKernel twoKernel;
+
+  private LayerKernel(Image image, PixelKernel kernel, TwoPixelKernel twoKernel) {
+    this.image = image;
+    this.kernel = kernel;
+    this.twoKernel = twoKernel;
+  }
+
+  /**
+   * Compiles the given layer, using its filter as it is now.
+   *
+   * @param layer is the layer to compile.
+   * @return the compiled layer.
+   * @throws IllegalStateException if the filter of the layer cannot be compiled.
+   */
+  static LayerKernel compile(Layer layer) throws IllegalStateException {
+    FilterName filterName = FilterName.fromName(layer.getFilterName());
+
+    if (filterName == null) {
+      throw new IllegalStateException("Filter " + layer.getFilterName() + " cannot be compiled");
+    }
+
+    Filter filter = filterName.getFilter();
+    PixelKernel kernel = null;
+    TwoPixelKernel twoKernel = null;
+
+    if (filter instanceof CompiledFilter) {
+      kernel = ((CompiledFilter) filter).getKernel();
+      twoKernel = ((CompiledFilter) filter).getTwoKernel();
+    }
+
+    if ((kernel == null && !(filter instanceof NormalFilter))
+            || (twoKernel == null && filterName.getFilterType() == FilterType.TWO)) {
+      throw new IllegalStateException("Filter " + layer.getFilterName() + " cannot be compiled");
+    }
+
+    return new LayerKernel(layer.getImage(), kernel, twoKernel);
+  }
+
+  /**
+   * Composites a region of the layer over the composite below it, which is read from the same
+   * region of the given array, and puts the new composite in its place. If there is no composite
+   * below, the region of the array is replaced with the filtered layer.
+   *
+   * @param pixels   is the array that holds the composite below the region, if there is one.
+   * @param offset   is the index of the first pixel of the region in the array.
+   * @param stride   is the number of pixels between the start of two rows in the array.
+   * @param startY   is the row of the layer at the top of the region.
+   * @param startX   is the column of the layer at the left of the region.
+   * @param height   is the height of the region.
+   * @param width    is the width of the region.
+   * @param hasBelow is whether the array holds a composite below the layer.
+   * @param exact    is whether to combine the layer with {@code PackedPixelUtil.combine} instead
+   *                 of {@code PackedPixelUtil.combineFast}.
+   * @param top      is an array of at least the size of the region for the filtered layer, which
+   *                 is overwritten.
+   * @param blended  is an array of at least the size of the region for the blend of the layer
+   *                 with the composite below it, which is overwritten.
+   */
+  void composite(int[] pixels, int offset, int stride, int startY, int startX, int height,
+                 int width, boolean hasBelow, boolean exact, int[] top, int[] blended) {
+
+    if (!hasBelow) {
+      // The filtered layer is the composite, so it is filtered in place
+      this.image.getARGBRegion(startY, startX, height, width, pixels, offset, stride);
+
+      if (this.kernel != null) {
+        for (int row = 0; row < height; row++) {
+          this.kernel.apply(pixels, offset + row * stride, offset + row * stride + width);
+        }
+      }
+
+      return;
+    }
+
+    int length = height * width;
+    int[] bottom = pixels;
+    int bottomOffset = offset;
+    int bottomStride = stride;
+
+    this.image.getARGBRegion(startY, startX, height, width, top, 0, width);
+
+    if (this.twoKernel != null) {
+      // The unfiltered layer is blended with the composite below it, which the filtered layer is
+      // then combined over
+      bottom = blended;
+      bottomOffset = 0;
+      bottomStride = width;
+      System.arraycopy(top, 0, bottom, 0, length);
+
+      for (int row = 0; row < height; row++) {
+        this.twoKernel.apply(bottom, row * width, pixels, offset + row * stride, width);
+      }
+    }
+
+    if (this.kernel != null) {
+      this.kernel.apply(top, 0, length);
+    }
+
+    PackedPixelLoops loops = PackedPixelLoops.get();
+
+    for (int row = 0; row < height; row++) {
+
+      int from = offset + row * stride;
+      int bottomFrom = bottomOffset + row * bottomStride;
+
+      if (exact) {
+        loops.combine(bottom, bottomFrom, top, row * width, pixels, from, width);
+      } else {
+        for (int i = 0; i < width; i++) {
+          pixels[from + i] = PackedPixelUtil.combineFast(bottom[bottomFrom + i],
+                  top[row * width + i]);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,219 @@
+package model;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+
+/**
+ * Plans the images that are added to a layer until the layer is read. Images that are already in
+ * memory are combined right away onto a single copy of the layer, through an {@code ImageEditor}.
+ * Images that are not loaded yet are only recorded, and are loaded and combined in order once the
+ * layer is finished. A recorded image is never loaded at all if a fully opaque image that is added
+ * after it covers all of it, since that image replaces every pixel that it would change, and a
+ * fully opaque image is copied onto the layer instead of blended. An image that cannot be loaded
+ * is left out of the layer, the same as if adding it had failed, and its error is kept for the
+ * caller to report.
+ */
+class LayerPlan {
+
+  private final RGBALayer layer;
+  private final ImageStorage storage;
+  private final PreviewPyramid pyramid;
+  private final List<Image> pending;
+  private final List<Rectangle> pendingPlaced;
+  private final List<Long> pendingOrder;
+  private ImageEditor editor;
+  private Rectangle bounds;
+
+  /**
+   * Creates an empty plan for the given layer.
+   *
+   * @param layer   is the layer to plan the images of.
+   * @param storage is where the pixels of the edited copy of the layer are stored.
+   * @param pyramid is the preview pyramid of the layer to keep up to date, or null if it has none.
+   */
+  LayerPlan(RGBALayer layer, ImageStorage storage, PreviewPyramid pyramid) {
+    this.layer = layer;
+    this.storage = storage;
+    this.pyramid = pyramid;
+    this.pending = new ArrayList<>();
+    this.pendingPlaced = new ArrayList<>();
+    this.pendingOrder = new ArrayList<>();
+    this.bounds = layer.getBounds();
+  }
+
+  /**
+   * Adds an image to the layer, the same as {@code Image.combine}.
+   *
+   * @param that   is the image to add.
+   * @param startY is the row to place the top of the image at.
+   * @param startX is the column to place the left of the image at.
+   * @param order  is the order that the image was added to the project in, which the error of
+   *               the image is kept under if it cannot be loaded.
+   * @param errors are the errors of images that cannot be loaded, by the order they were added in,
+   *               which images that were not combined yet might be added to.
+   * @return the region of the layer that the image changes.
+   * @throws IllegalArgumentException if the image is null or not fully contained.
+   */
+  Rectangle add(Image that, int startY, int startX, long order,
+                SortedMap<Long, RuntimeException> errors) throws IllegalArgumentException {
+    if (that == null) {
+      throw new IllegalArgumentException("Image that cannot be null");
+    }
+
+    Image image = this.layer.getImage();
+
+    if (startY < 0 || startY + that.getHeight() > image.getHeight()) {
+      throw new IllegalArgumentException("Invalid starting Y position or image height, image " +
+              "must be fully contained");
+    }
+
+    if (startX < 0 || startX + that.getWidth() > image.getWidth()) {
+      throw new IllegalArgumentException("Invalid starting X position or image width, image " +
+              "must be fully contained");
+    }
+
+    Rectangle placed = new Rectangle(startX, startY, that.getWidth(), that.getHeight());
+
+    if (that instanceof LazyImage && !((LazyImage) that).isLoaded()) {
+      this.pending.add(that);
+      this.pendingPlaced.add(placed);
+      this.pendingOrder.add(order);
+    } else {
+      combinePending(errors);
+      combine(that, placed, false);
+    }
+
+    this.bounds = this.bounds.isEmpty() ? placed : this.bounds.union(placed);
+
+    return placed;
+  }
+
+  /**
+   * Gets the bounds of the part of the layer that may not be transparent, including the images
+   * that are not combined yet.
+   *
+   * @return the bounds of the planned layer.
+   */
+  Rectangle getBounds() {
+    return new Rectangle(this.bounds);
+  }
+
+  /**
+   * Determines if some images have already been combined onto a copy of the layer, which is kept
+   * until the plan is finished.
+   *
+   * @return true if the layer has been copied.
+   */
+  boolean isEditing() {
+    return this.editor != null;
+  }
+
+  /**
+   * Combines every image that is not combined yet and gets the finished layer, which is never
+   * changed again. An image that cannot be loaded is left out of the layer.
+   *
+   * @param errors are the errors of images that cannot be loaded, by the order they were added in,
+   *               which the errors of this layer are added to.
+   * @return the finished layer.
+   */
+  Layer finish(SortedMap<Long, RuntimeException> errors) {
+    combinePending(errors);
+
+    if (this.editor == null) {
+      return this.layer;
+    }
+
+    return this.layer.withImage(this.editor.snapshot(), this.bounds);
+  }
+
+  /**
+   * Gives back the space of the copy of the layer, when the plan is dropped without being
+   * finished.
+   */
+  void release() {
+    if (this.editor != null) {
+      this.storage.release(this.editor.getImage());
+    }
+  }
+
+  /*
+   * Combines the images that were recorded, in order, skipping the ones that a later fully opaque
+   * image covers. An opaque image is loaded before the images below it are skipped, so that an
+   * image that cannot be loaded never hides the images that it would have covered.
+   */
+  private void combinePending(SortedMap<Long, RuntimeException> errors) {
+    boolean[] skipped = new boolean[this.pending.size()];
+    boolean[] opaque = new boolean[this.pending.size()];
+    List<Rectangle> covering = new ArrayList<>();
+
+    for (int i = this.pending.size() - 1; i >= 0; i--) {
+
+      Rectangle placed = this.pendingPlaced.get(i);
+      LazyImage image = (LazyImage) this.pending.get(i);
+      opaque[i] = image.isOpaque();
+
+      for (Rectangle above : covering) {
+
+        if (above.contains(placed)) {
+          skipped[i] = true;
+          break;
+        }
+      }
+
+      if (!skipped[i] && opaque[i]) {
+        // The image is combined anyway, so loading it now only checks that it can be
+        skipped[i] = !load(image, i, errors);
+
+        if (!skipped[i]) {
+          covering.add(placed);
+        }
+      }
+    }
+
+    for (int i = 0; i < skipped.length; i++) {
+
+      if (!skipped[i] && load((LazyImage) this.pending.get(i), i, errors)) {
+        combine(this.pending.get(i), this.pendingPlaced.get(i), opaque[i]);
+      }
+    }
+
+    this.pending.clear();
+    this.pendingPlaced.clear();
+    this.pendingOrder.clear();
+  }
+
+  /*
+   * Loads the given recorded image, keeping its error if it cannot be loaded.
+   */
+  private boolean load(LazyImage image, int index, SortedMap<Long, RuntimeException> errors) {
+    try {
+      image.load();
+      return true;
+    } catch (IllegalArgumentException | IllegalStateException e) {
+      errors.put(this.pendingOrder.get(index), e);
+      return false;
+    }
+  }
+
+  /*
+   * Combines the given image onto the copy of the layer, copying it instead of blending it if
+   * every pixel of the image is fully opaque.
+   */
+  private void combine(Image image, Rectangle placed, boolean opaque) {
+    if (this.editor == null) {
+      this.editor = this.storage.createEditor(this.layer.getImage());
+    }
+
+    if (opaque) {
+      this.editor.copy(image, placed.y, placed.x);
+    } else {
+      this.editor.combine(image, placed.y, placed.x);
+    }
+
+    if (this.pyramid != null) {
+      this.pyramid.update(this.editor.getImage(), placed);
+    }
+  }
+}
@@ -0,0 +1,172 @@
+package model;
+
+import java.util.function.Supplier;
+
+import model.filters.Filter;
+import model.filters.TwoFilter;
+
+/**
+ * Image whose pixels are only loaded the first time they are needed, for example from a project
+ * file that is opened without reading every layer. The height and width are known up front, so
+ * they can be read without loading the image. Once loaded, the image behaves exactly like the
+ * image that was loaded.
+ */
+public class LazyImage implements Image {
+
+  private final int height;
+  private final int width;
+  private final boolean opaque;
+  private Supplier<Image> loader;
+  private volatile Image image;
+
+  /**
+   * Creates the image given its height and width, and the loader that creates its pixels when
+   * they are first needed. The loader is called at most once.
+   *
+   * @param height is the height of the image.
+   * @param width  is the width of the image.
+   * @param loader creates the image when it is first needed.
+   * @throws IllegalArgumentException if the height or width are invalid, or if the loader is null.
+   */
+  public LazyImage(int height, int width, Supplier<Image> loader) throws IllegalArgumentException {
+    this(height, width, false, loader);
+  }
+
+  /**
+   * Creates the image given its height and width, whether every pixel of the image is known to be
+   * fully opaque before it is loaded, and the loader that creates its pixels when they are first
+   * needed. The loader is called at most once.
+   *
+   * @param height is the height of the image.
+   * @param width  is the width of the image.
+   * @param opaque is whether every pixel that the loader creates is fully opaque.
+   * @param loader creates the image when it is first needed.
+   * @throws IllegalArgumentException if the height or width are invalid, or if the loader is null.
+   */
+  public LazyImage(int height, int width, boolean opaque, Supplier<Image> loader)
+          throws IllegalArgumentException {
+
+    if (height < 1) {
+      throw new IllegalArgumentException("Height cannot be less than 1 pixel");
+    }
+
+    if (width < 1) {
+      throw new IllegalArgumentException("Width cannot be less than 1 pixel");
+    }
+
+    if (loader == null) {
+      throw new IllegalArgumentException("Loader cannot be null");
+    }
+
+    this.height = height;
+    this.width = width;
+    this.opaque = opaque;
+    this.loader = loader;
+  }
+
+  /**
+   * Determines if the pixels of this image have been loaded yet.
+   *
+   * @return true if the image has been loaded, false otherwise.
+   */
+  public boolean isLoaded() {
+    return this.image != null;
+  }
+
+  /**
+   * Determines if every pixel of this image is known to be fully opaque, which is known without
+   * loading the image.
+   *
+   * @return true if every pixel is fully opaque, false if some pixels may not be.
+   */
+  public boolean isOpaque() {
+    return this.opaque;
+  }
+
+  @Override
+  public Pixel[][] getPixels() {
+    return load().getPixels();
+  }
+
+  @Override
+  public int getARGB(int row, int col) throws IllegalArgumentException {
+    return load().getARGB(row, col);
+  }
+
+  @Override
+  public int[] getARGBPixels() {
+    return load().getARGBPixels();
+  }
+
+  @Override
+  public void getARGBRegion(int startY, int startX, int height, int width, int[] dest,
+                            int offset, int stride) throws IllegalArgumentException {
+    load().getARGBRegion(startY, startX, height, width, dest, offset, stride);
+  }
+
+  @Override
+  public Image combine(Image that, int startY, int startX) throws IllegalArgumentException {
+    return load().combine(that, startY, startX);
+  }
+
+  @Override
+  public Image getRegion(int startY, int startX, int height, int width)
+          throws IllegalArgumentException {
+    return load().getRegion(startY, startX, height, width);
+  }
+
+  @Override
+  public Image applyFilter(Filter filter) {
+    return load().applyFilter(filter);
+  }
+
+  @Override
+  public Image applyTwoFilter(TwoFilter filter, Image other) {
+    return load().applyTwoFilter(filter, other);
+  }
+
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  /**
+   * Loads the image if it has not been loaded yet, which is otherwise done the first time its
+   * pixels are needed. Several threads can render the same image, so only the first one loads
+   * it.
+   *
+   * @return the loaded image.
+   * @throws IllegalArgumentException if the loader cannot load the image.
+   * @throws IllegalStateException    if the loaded image is not the expected size, or if the
+   *                                  loader cannot load the image.
+   */
+  public Image load() throws IllegalArgumentException, IllegalStateException {
+    Image loaded = this.image;
+
+    if (loaded != null) {
+      return loaded;
+    }
+
+    synchronized (this) {
+
+      if (this.image == null) {
+        loaded = this.loader.get();
+
+        if (loaded == null || loaded.getHeight() != this.height
+                || loaded.getWidth() != this.width) {
+          throw new IllegalStateException("Loaded image does not match the expected size");
+        }
+
+        this.image = loaded;
+        this.loader = null;
+      }
+
+      return this.image;
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package model;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Stores the pixels of images in memory-mapped scratch files in a directory, as
+ * {@code MappedRGBAImage}s. Blank images take no memory, and are copied into a scratch file the
+ * first time they are edited, so that no edited image is kept in the heap. The scratch files of
+ * the images that this storage created are unmapped as soon as they are released.
+ */
+class MappedImageStorage implements ImageStorage {
+
+  private final Path directory;
+  private final Set<MappedRGBAImage> created;
+
+  /**
+   * Creates the storage given the directory to create the scratch files in.
+   *
+   * @param directory is the scratch directory.
+   */
+  MappedImageStorage(Path directory) {
+    this.directory = directory;
+    this.created = Collections.newSetFromMap(new WeakHashMap<>());
+  }
+
+  @Override
+  public ImageEditor createEditor(Image image) {
+    return new WriterImageEditor(image, this);
+  }
+
+  @Override
+  public ImageWriter createWriter(int height, int width) {
+    MappedRGBAImage image = new MappedRGBAImage(height, width, this.directory, false);
+
+    synchronized (this.created) {
+      this.created.add(image);
+    }
+
+    return new ImageWriter() {
+      @Override
+      public void setARGBRegion(int startY, int startX, int height, int width, int[] src,
+                                int offset, int stride) throws IllegalArgumentException {
+        image.setARGBRegion(startY, startX, height, width, src, offset, stride);
+      }
+
+      @Override
+      public Image getImage() {
+        return image;
+      }
+    };
+  }
+
+  @Override
+  public void release(Image image) {
+    boolean ours;
+
+    synchronized (this.created) {
+      ours = this.created.remove(image);
+    }
+
+    if (ours) {
+      ((MappedRGBAImage) image).release();
+    }
+  }
+}
@@ -0,0 +1,399 @@
+package model;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import model.filters.CompiledFilter;
+import model.filters.Filter;
+import model.filters.PixelKernel;
+import model.filters.TwoFilter;
+import model.utils.PackedPixelLoops;
+import model.utils.PackedPixelUtil;
+
+/**
+ * Image that stores its pixels packed as ARGB integers (see {@code PackedPixelUtil}) in a
+ * memory-mapped scratch file instead of the heap, so canvases larger than the heap can be worked
+ * on. The file is deleted as soon as it is mapped, and its space is given back once the image is
+ * garbage collected, or right away once the image is released by the {@code ImageStorage} that
+ * created it. Every operation works on bands of rows, so the heap used by an operation
+ * does not depend on the height of the image.
+ */
+public class MappedRGBAImage implements Image {
+
+  /**
+   * The number of rows that operations on the whole image work on at a time.
+   */
+  static final int BAND_ROWS = 64;
+
+  // A single mapping cannot be larger than 2 GB, so the rows are split between several mappings
+  private static final int MAX_SEGMENT_PIXELS = 1 << 28;
+
+  // The bytes of the scratch files of every image that has not been released
+  private static final AtomicLong SCRATCH_BYTES = new AtomicLong();
+
+  // Unmaps a buffer right away, or null if the JDK does not allow it
+  private static final Consumer<ByteBuffer> UNMAPPER = findUnmapper();
+
+  private final int height;
+  private final int width;
+  private final Path directory;
+  private final int segmentRows;
+  private final IntBuffer[] segments;
+  private final MappedByteBuffer[] mappings;
+  private volatile boolean released;
+
+  /**
+   * Creates a fully transparent image given its height and width, stored in a scratch file in the
+   * given directory.
+   *
+   * @param height    is the height of the image.
+   * @param width     is the width of the image.
+   * @param directory is the directory to create the scratch file in.
+   * @throws IllegalArgumentException if the height or width are invalid, or if the directory is
+   *                                  null.
+   * @throws IllegalStateException    if the scratch file cannot be created.
+   */
+  public MappedRGBAImage(int height, int width, Path directory)
+          throws IllegalArgumentException, IllegalStateException {
+
+    this(height, width, directory, true);
+  }
+
+  /**
+   * Creates an image whose pixels are all 0 if it is not filled, for the pixels to be written with
+   * {@code setARGBRegion} before the image is used.
+   */
+  MappedRGBAImage(int height, int width, Path directory, boolean fill)
+          throws IllegalArgumentException, IllegalStateException {
+
+    if (height < 1) {
+      throw new IllegalArgumentException("Height cannot be less than 1 pixel");
+    }
+
+    if (width < 1) {
+      throw new IllegalArgumentException("Width cannot be less than 1 pixel");
+    }
+
+    if (directory == null) {
+      throw new IllegalArgumentException("Directory cannot be null");
+    }
+
+    this.height = height;
+    this.width = width;
+    this.directory = directory;
+    this.segmentRows = Math.max(1, MAX_SEGMENT_PIXELS / width);
+    this.segments = new IntBuffer[(height + this.segmentRows - 1) / this.segmentRows];
+    this.mappings = new MappedByteBuffer[this.segments.length];
+
+    try {
+      Path file = Files.createTempFile(directory, "collage", ".pixels");
+
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+              StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE)) {
+
+        for (int i = 0; i < this.segments.length; i++) {
+
+          long rows = Math.min(this.segmentRows, height - (long) i * this.segmentRows);
+          this.mappings[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                  4L * i * this.segmentRows * width, 4L * rows * width);
+          this.segments[i] = this.mappings[i].order(ByteOrder.nativeOrder()).asIntBuffer();
+        }
+      }
+
+      SCRATCH_BYTES.addAndGet(4L * height * width);
+    } catch (IOException e) {
+      throw new IllegalStateException("Could not create scratch file for image: "
+              + e.getMessage());
+    }
+
+    if (fill) {
+      int[] row = new int[width];
+      Arrays.fill(row, PackedPixelUtil.TRANSPARENT);
+
+      for (int i = 0; i < height; i++) {
+        setARGBRegion(i, 0, 1, width, row, 0, width);
+      }
+    }
+  }
+
+  @Override
+  public Pixel[][] getPixels() {
+    Pixel[][] returnArray = new Pixel[this.height][this.width];
+    int[] row = new int[this.width];
+
+    for (int i = 0; i < this.height; i++) {
+
+      getARGBRegion(i, 0, 1, this.width, row, 0, this.width);
+
+      for (int j = 0; j < this.width; j++) {
+
+        returnArray[i][j] = RGBAPixel.of(row[j]);
+      }
+    }
+
+    return returnArray;
+  }
+
+  @Override
+  public int getARGB(int row, int col) throws IllegalArgumentException {
+    if (row < 0 || row >= this.height || col < 0 || col >= this.width) {
+      throw new IllegalArgumentException("Position is outside of the image");
+    }
+
+    return segment(row / this.segmentRows).get((row % this.segmentRows) * this.width + col);
+  }
+
+  @Override
+  public int[] getARGBPixels() {
+    int[] pixels = new int[this.height * this.width];
+
+    getARGBRegion(0, 0, this.height, this.width, pixels, 0, this.width);
+
+    return pixels;
+  }
+
+  @Override
+  public void getARGBRegion(int startY, int startX, int height, int width, int[] dest,
+                            int offset, int stride) throws IllegalArgumentException {
+
+    PackedRGBAImage.checkRegion(this, startY, startX, height, width, dest, offset, stride);
+
+    for (int i = 0; i < height; i++) {
+
+      int row = startY + i;
+      segment(row / this.segmentRows).get((row % this.segmentRows) * this.width + startX,
+              dest, offset + i * stride, width);
+    }
+  }
+
+  /**
+   * Writes the given pixels into a region of this image. Only used while the image is being
+   * created, since images cannot be changed once they are used.
+   */
+  void setARGBRegion(int startY, int startX, int height, int width, int[] src, int offset,
+                     int stride) throws IllegalArgumentException {
+
+    PackedRGBAImage.checkRegion(this, startY, startX, height, width, src, offset, stride);
+
+    for (int i = 0; i < height; i++) {
+
+      int row = startY + i;
+      segment(row / this.segmentRows).put((row % this.segmentRows) * this.width + startX,
+              src, offset + i * stride, width);
+    }
+  }
+
+  @Override
+  public Image combine(Image that, int startY, int startX) throws IllegalArgumentException {
+
+    if (that == null) {
+      throw new IllegalArgumentException("Image that cannot be null");
+    }
+
+    int thatHeight = that.getHeight();
+    int thatWidth = that.getWidth();
+
+    if (startY < 0 || startY + thatHeight > this.height) {
+      throw new IllegalArgumentException("Invalid starting Y position or image height, image " +
+              "must be fully contained");
+    }
+
+    if (startX < 0 || startX + thatWidth > this.width) {
+      throw new IllegalArgumentException("Invalid starting X position or image width, image " +
+              "must be fully contained");
+    }
+
+    MappedRGBAImage result = new MappedRGBAImage(this.height, this.width, this.directory, false);
+
+    for (int i = 0; i < this.segments.length; i++) {
+      result.segments[i].put(0, segment(i), 0, this.segments[i].limit());
+    }
+
+    int rows = Math.min(BAND_ROWS, thatHeight);
+    int[] below = new int[rows * thatWidth];
+    int[] above = new int[rows * thatWidth];
+
+    for (int y = 0; y < thatHeight; y += BAND_ROWS) {
+
+      int bandRows = Math.min(BAND_ROWS, thatHeight - y);
+
+      getARGBRegion(startY + y, startX, bandRows, thatWidth, below, 0, thatWidth);
+      that.getARGBRegion(y, 0, bandRows, thatWidth, above, 0, thatWidth);
+
+      PackedPixelLoops.get().combine(below, 0, above, 0, below, 0, bandRows * thatWidth);
+
+      result.setARGBRegion(startY + y, startX, bandRows, thatWidth, below, 0, thatWidth);
+    }
+
+    return result;
+  }
+
+  @Override
+  public Image getRegion(int startY, int startX, int height, int width)
+          throws IllegalArgumentException {
+
+    if (height < 1 || width < 1) {
+      throw new IllegalArgumentException("Height and width cannot be less than 1 pixel");
+    }
+
+    int[] regionPixels = new int[height * width];
+
+    getARGBRegion(startY, startX, height, width, regionPixels, 0, width);
+
+    return new PackedRGBAImage(height, width, regionPixels);
+  }
+
+  @Override
+  public Image applyFilter(Filter filter) {
+    if (filter == null) {
+      throw new IllegalArgumentException("Filter cannot be null");
+    }
+
+    MappedRGBAImage result = new MappedRGBAImage(this.height, this.width, this.directory, false);
+    PixelKernel kernel = filter instanceof CompiledFilter
+            ? ((CompiledFilter) filter).getKernel() : null;
+
+    if (kernel != null) {
+      int[] band = new int[Math.min(BAND_ROWS, this.height) * this.width];
+
+      for (int y = 0; y < this.height; y += BAND_ROWS) {
+
+        int bandRows = Math.min(BAND_ROWS, this.height - y);
+
+        getARGBRegion(y, 0, bandRows, this.width, band, 0, this.width);
+        kernel.apply(band, 0, bandRows * this.width);
+        result.setARGBRegion(y, 0, bandRows, this.width, band, 0, this.width);
+      }
+
+      return result;
+    }
+
+    // Every filter works pixel by pixel, so each band can be filtered on its own
+    for (int y = 0; y < this.height; y += BAND_ROWS) {
+
+      int bandRows = Math.min(BAND_ROWS, this.height - y);
+      Image band = getRegion(y, 0, bandRows, this.width).applyFilter(filter);
+
+      result.setARGBRegion(y, 0, bandRows, this.width, band.getARGBPixels(), 0, this.width);
+    }
+
+    return result;
+  }
+
+  @Override
+  public Image applyTwoFilter(TwoFilter filter, Image other) {
+    if (filter == null) {
+      throw new IllegalArgumentException("Filter cannot be null");
+    }
+
+    if (other == null) {
+      throw new IllegalArgumentException("Other image cannot be null");
+    }
+
+    if (other.getHeight() != this.height || other.getWidth() != this.width) {
+      throw new IllegalArgumentException("Images must be same size");
+    }
+
+    MappedRGBAImage result = new MappedRGBAImage(this.height, this.width, this.directory, false);
+
+    for (int y = 0; y < this.height; y += BAND_ROWS) {
+
+      int bandRows = Math.min(BAND_ROWS, this.height - y);
+      Image band = getRegion(y, 0, bandRows, this.width).applyTwoFilter(filter,
+              other.getRegion(y, 0, bandRows, this.width));
+
+      result.setARGBRegion(y, 0, bandRows, this.width, band.getARGBPixels(), 0, this.width);
+    }
+
+    return result;
+  }
+
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  /**
+   * Gets the number of bytes of the scratch files of all the images that have not been released,
+   * some of which may already have been given back because their image was garbage collected.
+   *
+   * @return the number of bytes of scratch files that have not been released.
+   */
+  public static long getScratchBytes() {
+    return SCRATCH_BYTES.get();
+  }
+
+  /**
+   * Unmaps the scratch file of this image right away, which gives its space back without waiting
+   * for the image to be garbage collected. The image cannot be used once it is released, and must
+   * not be released while another thread is using it.
+   */
+  void release() {
+    if (this.released) {
+      return;
+    }
+
+    this.released = true;
+    SCRATCH_BYTES.addAndGet(-4L * this.height * this.width);
+
+    if (UNMAPPER != null) {
+      for (MappedByteBuffer mapping : this.mappings) {
+        UNMAPPER.accept(mapping);
+      }
+    }
+  }
+
+  /*
+   * Gets a segment of the rows of this image.
+   *
+   * @throws IllegalStateException if the image has been released.
+   */
+  private IntBuffer segment(int index) throws IllegalStateException {
+    if (this.released) {
+      throw new IllegalStateException("Image has been released");
+    }
+
+    return this.segments[index];
+  }
+
+  /*
+   * Finds the method of the JDK that unmaps a buffer before it is garbage collected. It is not part
+   * of the standard API, so the space is only given back by the garbage collector without it.
+   */
+  private static Consumer<ByteBuffer> findUnmapper() {
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Field field = unsafeClass.getDeclaredField("theUnsafe");
+      field.setAccessible(true);
+      Object unsafe = field.get(null);
+      Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+
+      return buffer -> {
+        try {
+          invokeCleaner.invoke(unsafe, buffer);
+        } catch (ReflectiveOperationException e) {
+          // Do nothing, the buffer is unmapped once it is garbage collected
+        }
+      };
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      return null;
+    }
+  }
+}
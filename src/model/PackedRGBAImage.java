@@ -0,0 +1,276 @@
+package model;
+
+import java.util.Arrays;
+
+import model.filters.Filter;
+import model.filters.TwoFilter;
+import model.utils.PackedPixelLoops;
+import model.utils.PackedPixelUtil;
+
+/**
+ * Image that stores its pixels packed as ARGB integers (see {@code PackedPixelUtil}) in a single
+ * array, row by row. No {@code Pixel} objects are created unless {@code getPixels} is called,
+ * which keeps a canvas sized image to 4 bytes per pixel.
+ */
+public class PackedRGBAImage implements Image {
+
+  private final int height;
+  private final int width;
+  private final int[] pixels;
+
+  /**
+   * Creates a fully transparent image given the height and width that the image should be.
+   *
+   * @param height is the height of the image.
+   * @param width  is the width of the image.
+   * @throws IllegalArgumentException if the height or width are invalid.
+   */
+  public PackedRGBAImage(int height, int width) throws IllegalArgumentException {
+
+    checkSize(height, width);
+
+    this.height = height;
+    this.width = width;
+    this.pixels = new int[height * width];
+
+    Arrays.fill(this.pixels, PackedPixelUtil.TRANSPARENT);
+  }
+
+  /**
+   * Creates the image given its height and width, and its pixels packed as ARGB integers stored
+   * row by row. The array is used directly by the image, so it should not be changed afterward.
+   *
+   * @param height is the height of the image.
+   * @param width  is the width of the image.
+   * @param pixels are the packed pixels that make up the image.
+   * @throws IllegalArgumentException if the height or width are invalid, or if the array is null
+   *                                  or not of length {@code height * width}.
+   */
+  public PackedRGBAImage(int height, int width, int[] pixels) throws IllegalArgumentException {
+
+    checkSize(height, width);
+
+    if (pixels == null) {
+      throw new IllegalArgumentException("Pixels cannot be null");
+    }
+
+    if (pixels.length != height * width) {
+      throw new IllegalArgumentException("Number of pixels does not match the height and width");
+    }
+
+    this.height = height;
+    this.width = width;
+    this.pixels = pixels;
+  }
+
+  /**
+   * Creates the image given the pixels that the image should be created with.
+   *
+   * @param pixels are the {@code Pixel}s that make up the image.
+   * @throws IllegalArgumentException if the list or any pixels in the list are null, or if the
+   *                                  list of pixels is improperly sized (both height and width
+   *                                  must be at least 1).
+   */
+  public PackedRGBAImage(Pixel[][] pixels) throws IllegalArgumentException {
+
+    if (pixels == null) {
+      throw new IllegalArgumentException("Pixels cannot be null");
+    }
+
+    if (pixels.length < 1) {
+      throw new IllegalArgumentException("Height cannot be less than 1 pixel");
+    }
+
+    if (pixels[0].length < 1) {
+      throw new IllegalArgumentException("Width cannot be less than 1 pixel");
+    }
+
+    this.height = pixels.length;
+    this.width = pixels[0].length;
+    this.pixels = new int[this.height * this.width];
+
+    for (int i = 0; i < this.height; i++) {
+
+      if (pixels[i] == null || pixels[i].length != this.width) {
+        throw new IllegalArgumentException("All rows must have the same width");
+      }
+
+      for (int j = 0; j < this.width; j++) {
+
+        if (pixels[i][j] == null) {
+          throw new IllegalArgumentException("No pixels can be null");
+        }
+
+        this.pixels[i * this.width + j] = pack(pixels[i][j]);
+      }
+    }
+  }
+
+  @Override
+  public Pixel[][] getPixels() {
+    Pixel[][] returnArray = new Pixel[this.height][this.width];
+
+    for (int i = 0; i < this.height; i++) {
+
+      for (int j = 0; j < this.width; j++) {
+
+        returnArray[i][j] = RGBAPixel.of(this.pixels[i * this.width + j]);
+      }
+    }
+
+    return returnArray;
+  }
+
+  @Override
+  public int getARGB(int row, int col) throws IllegalArgumentException {
+    if (row < 0 || row >= this.height || col < 0 || col >= this.width) {
+      throw new IllegalArgumentException("Position is outside of the image");
+    }
+
+    return this.pixels[row * this.width + col];
+  }
+
+  @Override
+  public int[] getARGBPixels() {
+    return Arrays.copyOf(this.pixels, this.pixels.length);
+  }
+
+  @Override
+  public void getARGBRegion(int startY, int startX, int height, int width, int[] dest,
+                            int offset, int stride) throws IllegalArgumentException {
+
+    checkRegion(this, startY, startX, height, width, dest, offset, stride);
+
+    for (int i = 0; i < height; i++) {
+      System.arraycopy(this.pixels, (startY + i) * this.width + startX, dest,
+              offset + i * stride, width);
+    }
+  }
+
+  @Override
+  public Image combine(Image that, int startY, int startX) throws IllegalArgumentException {
+
+    if (that == null) {
+      throw new IllegalArgumentException("Image that cannot be null");
+    }
+
+    int thatHeight = that.getHeight();
+    int thatWidth = that.getWidth();
+
+    if (startY < 0 || startY + thatHeight > this.height) {
+      throw new IllegalArgumentException("Invalid starting Y position or image height, image " +
+              "must be fully contained");
+    }
+
+    if (startX < 0 || startX + thatWidth > this.width) {
+      throw new IllegalArgumentException("Invalid starting X position or image width, image " +
+              "must be fully contained");
+    }
+
+    int[] thatPixels = that instanceof PackedRGBAImage
+            ? ((PackedRGBAImage) that).pixels : that.getARGBPixels();
+    int[] resultPixels = Arrays.copyOf(this.pixels, this.pixels.length);
+
+    PackedPixelLoops loops = PackedPixelLoops.get();
+
+    for (int i = 0; i < thatHeight; i++) {
+
+      int resultIndex = (i + startY) * this.width + startX;
+
+      loops.combine(resultPixels, resultIndex, thatPixels, i * thatWidth, resultPixels,
+              resultIndex, thatWidth);
+    }
+
+    return new PackedRGBAImage(this.height, this.width, resultPixels);
+  }
+
+  @Override
+  public Image getRegion(int startY, int startX, int height, int width)
+          throws IllegalArgumentException {
+
+    checkSize(height, width);
+
+    int[] regionPixels = new int[height * width];
+
+    getARGBRegion(startY, startX, height, width, regionPixels, 0, width);
+
+    return new PackedRGBAImage(height, width, regionPixels);
+  }
+
+  @Override
+  public Image applyFilter(Filter filter) {
+    if (filter == null) {
+      throw new IllegalArgumentException("Filter cannot be null");
+    }
+
+    return filter.apply(this);
+  }
+
+  @Override
+  public Image applyTwoFilter(TwoFilter filter, Image other) {
+    if (filter == null) {
+      throw new IllegalArgumentException("Filter cannot be null");
+    }
+
+    if (other == null) {
+      throw new IllegalArgumentException("Other image cannot be null");
+    }
+
+    return filter.apply(this, other);
+  }
+
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  /**
+   * Checks that a region of the given image can be copied into the given destination array, as
+   * described by {@code Image.getARGBRegion}.
+   *
+   * @throws IllegalArgumentException if the region cannot be copied.
+   */
+  static void checkRegion(Image img, int startY, int startX, int height, int width,
+                          int[] dest, int offset, int stride) throws IllegalArgumentException {
+
+    if (dest == null) {
+      throw new IllegalArgumentException("Destination cannot be null");
+    }
+
+    if (startY < 0 || startX < 0 || height < 0 || width < 0
+            || startY + height > img.getHeight() || startX + width > img.getWidth()) {
+      throw new IllegalArgumentException("Region must be fully contained in the image");
+    }
+
+    if (offset < 0 || stride < width || (height > 0
+            && (long) offset + (long) (height - 1) * stride + width > dest.length)) {
+      throw new IllegalArgumentException("Destination is too small for the region");
+    }
+  }
+
+  private static void checkSize(int height, int width) throws IllegalArgumentException {
+
+    if (height < 1) {
+      throw new IllegalArgumentException("Height cannot be less than 1 pixel");
+    }
+
+    if (width < 1) {
+      throw new IllegalArgumentException("Width cannot be less than 1 pixel");
+    }
+  }
+
+  private static int pack(Pixel pixel) {
+    if (pixel instanceof RGBAPixel) {
+      return ((RGBAPixel) pixel).asARGB();
+    }
+
+    int[] rgba = pixel.asRGBA();
+
+    return PackedPixelUtil.pack(rgba[0], rgba[1], rgba[2], rgba[3]);
+  }
+}
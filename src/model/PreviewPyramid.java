@@ -0,0 +1,229 @@
+package model;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+
+import model.utils.PackedPixelUtil;
+
+/**
+ * Keeps smaller copies of the image of a layer, called levels, where each level is half the
+ * height and width of the level before it, and level 0 is the image itself. A preview of a
+ * project can then be composited from the level closest to the size it is displayed at. Each
+ * pixel of a level is the average of the pixels of the image that it covers, weighted by their
+ * opacity. Only the levels with at most {@code MAX_LEVEL_PIXELS} pixels are kept, and when part
+ * of the image changes only the pixels of each level that cover that part are recomputed.
+ */
+class PreviewPyramid {
+
+  /**
+   * The largest number of pixels of a level that is kept.
+   */
+  static final long MAX_LEVEL_PIXELS = 1L << 22;
+
+  private final int height;
+  private final int width;
+  private final int firstLevel;
+  private final int[][] levels;
+
+  /**
+   * Creates the levels of the given image.
+   *
+   * @param image is the image of the layer.
+   */
+  PreviewPyramid(Image image) {
+    this.height = image.getHeight();
+    this.width = image.getWidth();
+
+    int level = 1;
+
+    while ((long) levelSize(this.height, level) * levelSize(this.width, level)
+            > MAX_LEVEL_PIXELS) {
+      level++;
+    }
+
+    this.firstLevel = level;
+
+    int lastLevel = 0;
+
+    while (levelSize(this.height, lastLevel) > 1 || levelSize(this.width, lastLevel) > 1) {
+      lastLevel++;
+    }
+
+    this.levels = new int[Math.max(0, lastLevel - this.firstLevel + 1)][];
+
+    for (int i = 0; i < this.levels.length; i++) {
+      this.levels[i] = new int[levelSize(this.height, this.firstLevel + i)
+              * levelSize(this.width, this.firstLevel + i)];
+    }
+
+    update(image, new Rectangle(this.width, this.height));
+  }
+
+  /**
+   * Gets the size of a level along one side of the image.
+   *
+   * @param size  is the height or width of the image.
+   * @param level is the level.
+   * @return the height or width of the level.
+   */
+  static int levelSize(int size, int level) {
+    return ((size - 1) >> level) + 1;
+  }
+
+  /**
+   * Gets the most detailed level that is kept, which is at least 1.
+   *
+   * @return the first level.
+   */
+  int getFirstLevel() {
+    return this.firstLevel;
+  }
+
+  /**
+   * Gets the least detailed level that is kept, which is a single pixel. There are no levels that
+   * are kept if this is less than the first level.
+   *
+   * @return the last level.
+   */
+  int getLastLevel() {
+    return this.firstLevel + this.levels.length - 1;
+  }
+
+  /**
+   * Gets a kept level. The image changes whenever the pyramid is updated, so it must be used
+   * before the next update.
+   *
+   * @param level is the level, between the first and last level.
+   * @return the level as an image.
+   */
+  Image getLevel(int level) {
+    return new PackedRGBAImage(levelSize(this.height, level), levelSize(this.width, level),
+            this.levels[level - this.firstLevel]);
+  }
+
+  /**
+   * Recomputes the pixels of every level that cover the given region of the image, after the
+   * region has changed.
+   *
+   * @param image  is the new image of the layer.
+   * @param region is the region of the image that changed.
+   */
+  void update(Image image, Rectangle region) {
+    Rectangle changed = region.intersection(new Rectangle(this.width, this.height));
+
+    if (changed.isEmpty() || this.levels.length == 0) {
+      return;
+    }
+
+    // The first level is averaged from the image, and every other level from the level before it
+    int top = changed.y >> this.firstLevel;
+    int bottom = (changed.y + changed.height - 1) >> this.firstLevel;
+    int left = changed.x >> this.firstLevel;
+    int right = (changed.x + changed.width - 1) >> this.firstLevel;
+
+    averageImage(image, top, bottom, left, right);
+
+    for (int i = 1; i < this.levels.length; i++) {
+      top >>= 1;
+      bottom >>= 1;
+      left >>= 1;
+      right >>= 1;
+
+      averageLevel(i, top, bottom, left, right);
+    }
+  }
+
+  /*
+   * Recomputes the pixels of the first level between the given rows and columns, inclusive, from
+   * the image, reading the rows of the image covered by one row of the level at a time.
+   */
+  private void averageImage(Image image, int top, int bottom, int left, int right) {
+    int scale = 1 << this.firstLevel;
+    int levelWidth = levelSize(this.width, this.firstLevel);
+    int startX = left << this.firstLevel;
+    int endX = Math.min(this.width, (right + 1) << this.firstLevel);
+    int[] rows = new int[scale * (endX - startX)];
+    long[] sums = new long[5 * (right - left + 1)];
+
+    for (int row = top; row <= bottom; row++) {
+
+      int startY = row << this.firstLevel;
+      int rowCount = Math.min(scale, this.height - startY);
+
+      image.getARGBRegion(startY, startX, rowCount, endX - startX, rows, 0, endX - startX);
+      Arrays.fill(sums, 0);
+
+      for (int i = 0; i < rowCount * (endX - startX); i++) {
+        addPixel(sums, (i % (endX - startX)) >> this.firstLevel, rows[i]);
+      }
+
+      for (int col = left; col <= right; col++) {
+        this.levels[0][row * levelWidth + col] = average(sums, col - left);
+      }
+    }
+  }
+
+  /*
+   * Recomputes the pixels of a level between the given rows and columns, inclusive, from the
+   * level before it.
+   */
+  private void averageLevel(int index, int top, int bottom, int left, int right) {
+    int level = this.firstLevel + index;
+    int[] above = this.levels[index - 1];
+    int aboveHeight = levelSize(this.height, level - 1);
+    int aboveWidth = levelSize(this.width, level - 1);
+    int levelWidth = levelSize(this.width, level);
+    long[] sums = new long[5];
+
+    for (int row = top; row <= bottom; row++) {
+
+      for (int col = left; col <= right; col++) {
+
+        Arrays.fill(sums, 0);
+
+        for (int y = 2 * row; y < Math.min(2 * row + 2, aboveHeight); y++) {
+
+          for (int x = 2 * col; x < Math.min(2 * col + 2, aboveWidth); x++) {
+            addPixel(sums, 0, above[y * aboveWidth + x]);
+          }
+        }
+
+        this.levels[index][row * levelWidth + col] = average(sums, 0);
+      }
+    }
+  }
+
+  /*
+   * Adds a pixel to the sums of the given pixel of a level, which are its number of pixels, total
+   * opacity, and total of each color value times its opacity.
+   */
+  private static void addPixel(long[] sums, int pixel, int argb) {
+    int alpha = PackedPixelUtil.alpha(argb);
+    int offset = 5 * pixel;
+
+    sums[offset]++;
+    sums[offset + 1] += alpha;
+    sums[offset + 2] += (long) PackedPixelUtil.red(argb) * alpha;
+    sums[offset + 3] += (long) PackedPixelUtil.green(argb) * alpha;
+    sums[offset + 4] += (long) PackedPixelUtil.blue(argb) * alpha;
+  }
+
+  /*
+   * Finds the average of the pixels that were added to the sums of the given pixel, rounding to
+   * the nearest value.
+   */
+  private static int average(long[] sums, int pixel) {
+    int offset = 5 * pixel;
+    long count = sums[offset];
+    long alpha = sums[offset + 1];
+
+    if (alpha == 0) {
+      return PackedPixelUtil.TRANSPARENT;
+    }
+
+    return PackedPixelUtil.pack((int) ((sums[offset + 2] + alpha / 2) / alpha),
+            (int) ((sums[offset + 3] + alpha / 2) / alpha),
+            (int) ((sums[offset + 4] + alpha / 2) / alpha),
+            (int) ((alpha + count / 2) / count));
+  }
+}
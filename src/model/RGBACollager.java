@@ -1,21 +1,76 @@
 package model;
 
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Supplier;
 
 import model.filters.FilterName;
+import model.utils.PPMDecoder;
+import model.utils.PackedPixelUtil;
 
 /**
- * Defines a {@code Collager} that uses an {@code RGBALayer} to represent its layers. The layers
- * are stored in a list.
+ * Defines a {@code Collager} that uses an {@code RGBALayer} to represent its layers. The layers are
+ * stored in a list, and are found by name through a map from each name to the index of its layer.
+ * The composite of the layers up to each layer is cached, and only the composites from the lowest
+ * changed layer upward are recomputed when a layer changes. Since every filter works pixel by
+ * pixel, a composite only needs to be recomputed inside the region that changed, and a layer whose
+ * filter keeps transparent pixels transparent only needs to be composited inside its bounds.
+ * Composites are rendered tile by tile, using as many threads as there are processors by default.
+ * The images of canvases with more pixels than the pixel budget are stored in memory-mapped scratch
+ * files, so that the heap used does not grow with the size of the canvas. The scratch file of a
+ * composite or a layer image is unmapped as soon as it is replaced, so an image of such a canvas
+ * that this collager returns can only be read until the project changes. Images added to a layer
+ * are planned by a {@code LayerPlan}: they are combined in place onto a single copy of the layer,
+ * which is only replaced by an unchanging snapshot once the layer is read, and a {@code LazyImage}
+ * that is not loaded yet is only loaded then, if a later opaque image does not cover it. A lazy
+ * image that cannot be loaded is left out of its layer, and its error is kept until it is taken
+ * with {@code takeLoadErrors}. Interrupting a thread that is rendering an image stops the render
+ * with a {@code CancellationException}, leaving the project as it was.
  */
 public class RGBACollager implements Collager {
 
+  /**
+   * The default number of pixels above which the images of a canvas are stored in memory-mapped
+   * scratch files instead of the heap, which is a canvas of 8192 by 8192 pixels.
+   */
+  public static final long DEFAULT_PIXEL_BUDGET = 1L << 26;
+
+  // The number of pixels of a layer that are read from a project file at a time
+  private static final int BAND_PIXELS = 1 << 16;
+
   private final List<Layer> layers;
+  private final List<Image> composites;
+  private final List<Rectangle> dirtyRegions;
+  private final List<PreviewPyramid> pyramids;
+  private final Map<String, Integer> layerIndices;
+  private final List<LayerPlan> plans;
+  private final SortedMap<Long, RuntimeException> loadErrors;
+  private long imagesAdded;
+  private int editedLayer;
   private int height;
   private int width;
+  private TileRenderer renderer;
+  private ImageStorage storage;
+  private long pixelBudget;
+  private long cacheHits;
+  private long cacheMisses;
 
   /**
    * Creates the {@code RGBACollager} object with no project by default (height and width 0) and
@@ -26,6 +81,16 @@ public class RGBACollager implements Collager {
     this.height = 0;
     this.width = 0;
     this.layers = new ArrayList<>();
+    this.composites = new ArrayList<>();
+    this.dirtyRegions = new ArrayList<>();
+    this.pyramids = new ArrayList<>();
+    this.plans = new ArrayList<>();
+    this.loadErrors = new TreeMap<>();
+    this.layerIndices = new LinkedHashMap<>();
+    this.renderer = new TileRenderer(Runtime.getRuntime().availableProcessors());
+    this.storage = new HeapImageStorage();
+    this.pixelBudget = DEFAULT_PIXEL_BUDGET;
+    this.editedLayer = -1;
 
   }
 
@@ -38,20 +103,65 @@ public class RGBACollager implements Collager {
   public RGBACollager(int height, int width) throws IllegalArgumentException {
 
     this.layers = new ArrayList<>();
+    this.composites = new ArrayList<>();
+    this.dirtyRegions = new ArrayList<>();
+    this.pyramids = new ArrayList<>();
+    this.plans = new ArrayList<>();
+    this.loadErrors = new TreeMap<>();
+    this.layerIndices = new LinkedHashMap<>();
+    this.renderer = new TileRenderer(Runtime.getRuntime().availableProcessors());
+    this.pixelBudget = DEFAULT_PIXEL_BUDGET;
     createProject(height, width);
 
   }
 
   @Override
   public void createProject(int height, int width) throws IllegalArgumentException {
+    createProject(height, width, false);
+  }
+
+  @Override
+  public void createProject(int height, int width, boolean mapped)
+          throws IllegalArgumentException {
+
+    createProject(height, width, createStorage(height, width, mapped));
+  }
+
+  /*
+   * Creates the storage of a new project with the given height and width, which keeps the images
+   * in scratch files if they are mapped or larger than the pixel budget.
+   */
+  private ImageStorage createStorage(int height, int width, boolean mapped)
+          throws IllegalArgumentException {
 
     if (height <= 0 || width <= 0) {
       throw new IllegalArgumentException("Invalid height or width was given");
     }
 
+    if (mapped || (long) height * width > this.pixelBudget) {
+      return new MappedImageStorage(Path.of(System.getProperty("java.io.tmpdir")));
+    }
+
+    return new HeapImageStorage();
+  }
+
+  /*
+   * Replaces the current project with a blank project with the given height and width, whose
+   * images are stored in the given storage.
+   */
+  private void createProject(int height, int width, ImageStorage storage) {
+    releaseProject();
+
+    this.storage = storage;
     this.height = height;
     this.width = width;
     this.layers.clear();
+    this.composites.clear();
+    this.dirtyRegions.clear();
+    this.pyramids.clear();
+    this.plans.clear();
+    this.layerIndices.clear();
+    this.editedLayer = -1;
   }
 
   @Override
@@ -65,14 +175,16 @@ public class RGBACollager implements Collager {
       throw new IllegalArgumentException("Name cannot be null");
     }
 
-    for (Layer layer : this.layers) {
-
-      if (layer.getLayerName().equals(name)) {
-        throw new IllegalArgumentException("Name already exists");
-      }
+    if (this.layerIndices.containsKey(name)) {
+      throw new IllegalArgumentException("Name already exists");
     }
 
-    this.layers.add(new RGBALayer(name, FilterName.valueOf("NORMAL"), this.height, this.width));
+    this.layers.add(new RGBALayer(name, FilterName.NORMAL,
+            this.storage.createBlank(this.height, this.width)));
+    this.pyramids.add(null);
+    this.plans.add(null);
+    this.layerIndices.put(name, this.layers.size() - 1);
+    invalidateFrom(this.layers.size() - 1);
   }
 
   @Override
@@ -96,41 +208,82 @@ public class RGBACollager implements Collager {
     int height = sc.nextInt();
     int maxValue = sc.nextInt();
 
+    // Each layer is written a band of rows at a time into the storage of the new project, so a
+    // project that is kept out of the heap is never read into it
+    ImageStorage storage = createStorage(height, width, false);
+    int rows = Math.max(1, BAND_PIXELS / width);
+    int[] band = new int[Math.min(rows, height) * width];
     List<Image> layers = new ArrayList<>();
     List<String> layerNames = new ArrayList<>();
     List<String> filterNames = new ArrayList<>();
 
     while (sc.hasNext()) {
 
-      Pixel[][] pixels = new Pixel[height][width];
+      ImageWriter writer = storage.createWriter(height, width);
 
       layerNames.add(sc.next());
       filterNames.add(sc.next());
 
-      for (int i = 0; i < height; i++) {
+      for (int y = 0; y < height; y += rows) {
+
+        int bandRows = Math.min(rows, height - y);
 
-        for (int j = 0; j < width; j++) {
+        for (int i = 0; i < bandRows * width; i++) {
 
           int r = sc.nextInt();
           int g = sc.nextInt();
           int b = sc.nextInt();
           int a = sc.nextInt();
-          pixels[i][j] = new RGBAPixel(r, g, b, a, maxValue);
+          band[i] = PackedPixelUtil.packScaled(r, g, b, a, maxValue);
         }
+
+        writer.setARGBRegion(y, 0, bandRows, width, band, 0, width);
       }
 
-      layers.add(new RGBALayerImage(pixels));
+      layers.add(writer.getImage());
     }
 
-    createProject(height, width);
+    sc.close();
+
+    loadProject(height, width, layerNames, filterNames, layers, storage);
+  }
+
+  @Override
+  public void loadProject(int height, int width, List<String> layerNames,
+                          List<String> filterNames, List<Image> images)
+          throws IllegalArgumentException {
+
+    if (layerNames == null || filterNames == null || images == null) {
+      throw new IllegalArgumentException("Layer names, filter names, and images cannot be null");
+    }
 
-    for (int i = 0; i < layers.size(); i++) {
+    if (layerNames.size() != filterNames.size() || layerNames.size() != images.size()) {
+      throw new IllegalArgumentException("Every layer must have a name, filter, and image");
+    }
+
+    loadProject(height, width, layerNames, filterNames, images,
+            createStorage(height, width, false));
+  }
+
+  /*
+   * Replaces the current project with the given layers, whose combined images are stored in the
+   * given storage.
+   */
+  private void loadProject(int height, int width, List<String> layerNames,
+                           List<String> filterNames, List<Image> images, ImageStorage storage) {
+
+    createProject(height, width, storage);
+
+    for (int i = 0; i < images.size(); i++) {
       addLayer(layerNames.get(i));
       setFilter(layerNames.get(i), filterNames.get(i));
-      addImage(layerNames.get(i), layers.get(i), 0, 0);
-    }
 
-    sc.close();
+      // The image is only combined onto the blank layer once it is needed
+      this.layers.set(i, ((RGBALayer) this.layers.get(i)).combineLazily(images.get(i),
+              this.storage));
+      this.pyramids.set(i, null);
+      invalidateFrom(i);
+    }
   }
 
   @Override
@@ -148,20 +301,24 @@ public class RGBACollager implements Collager {
       throw new IllegalArgumentException("Filter name cannot be null");
     }
 
-    boolean updated = false;
+    Integer index = this.layerIndices.get(layerName);
 
-    for (int i = 0; i < this.layers.size(); i++) {
+    if (index == null) {
+      throw new IllegalArgumentException("No layer with this name exists");
+    }
 
-      if (this.layers.get(i).getLayerName().equals(layerName)) {
+    Layer layer = this.layers.get(index);
+    boolean wasTransparent = keepsTransparent(layer.getFilterName());
 
-        this.layers.get(i).updateFilter(filterName);
-        updated = true;
-        break;
-      }
-    }
+    // The layer that is being edited keeps its filter once its edits are finished
+    layer.updateFilter(filterName);
 
-    if (!updated) {
-      throw new IllegalArgumentException("No layer with this name exists");
+    if (index > 0 && wasTransparent && keepsTransparent(layer.getFilterName())) {
+      // Outside its bounds, the layer does not change the composite for either filter
+      invalidateFrom(index, this.plans.get(index) != null
+              ? this.plans.get(index).getBounds() : layer.getBounds());
+    } else {
+      invalidateFrom(index);
     }
   }
 
@@ -185,35 +342,17 @@ public class RGBACollager implements Collager {
       throw new IllegalArgumentException("Invalid coordinates were given");
     }
 
-    Scanner sc = new Scanner(fileContents);
-
-    String token;
+    Image img;
 
-    token = sc.next();
-    if (!token.equals("P3")) {
-      throw new IllegalArgumentException("Invalid PPM file: plain RAW file should begin with P3");
+    try {
+      img = PPMDecoder.decode(new ByteArrayInputStream(
+              fileContents.getBytes(StandardCharsets.ISO_8859_1)));
+    } catch (IOException e) {
+      // Reading from an array cannot fail
+      throw new IllegalStateException(e);
     }
 
-    int width = sc.nextInt();
-    int height = sc.nextInt();
-    int maxValue = sc.nextInt();
-
-    Pixel[][] pixels = new Pixel[height][width];
-
-    for (int i = 0; i < height; i++) {
-
-      for (int j = 0; j < width; j++) {
-
-        int r = sc.nextInt();
-        int g = sc.nextInt();
-        int b = sc.nextInt();
-        pixels[i][j] = new RGBAPixel(r, g, b, maxValue);
-      }
-    }
-
-    sc.close();
-
-    addImage(layerName, new RGBALayerImage(pixels), startY, startX);
+    addImage(layerName, img, startY, startX);
   }
 
   @Override
@@ -235,20 +374,30 @@ public class RGBACollager implements Collager {
       throw new IllegalArgumentException("Invalid coordinates were given");
     }
 
-    boolean updated = false;
+    Integer index = this.layerIndices.get(layerName);
 
-    for (int i = 0; i < this.layers.size(); i++) {
+    if (index == null) {
+      throw new IllegalArgumentException("No layer with this name exists");
+    }
 
-      if (this.layers.get(i).getLayerName().equals(layerName)) {
-        this.layers.set(i, this.layers.get(i).combine(img, startY, startX));
-        updated = true;
-        break;
-      }
+    if (this.plans.get(index) == null) {
+      this.plans.set(index, new LayerPlan((RGBALayer) this.layers.get(index), this.storage,
+              this.pyramids.get(index)));
     }
 
-    if (!updated) {
-      throw new IllegalArgumentException("No layer with this name exists");
+    Rectangle placed = this.plans.get(index).add(img, startY, startX, this.imagesAdded++,
+            this.loadErrors);
+
+    if (this.plans.get(index).isEditing() && this.editedLayer != index) {
+      // Only one layer keeps a copy of its image that images are combined onto
+      if (this.editedLayer >= 0) {
+        finishPlan(this.editedLayer);
+      }
+
+      this.editedLayer = index;
     }
+
+    invalidateFrom(index, placed);
   }
 
   @Override
@@ -259,24 +408,85 @@ public class RGBACollager implements Collager {
       throw new IllegalArgumentException("The image cannot be null");
     }
 
-    Pixel[][] convertedPixels = new Pixel[img.getHeight()][img.getWidth()];
+    int[] convertedPixels = readPixels(img);
+
+    for (int i = 0; i < convertedPixels.length; i++) {
+
+      int a = PackedPixelUtil.alpha(convertedPixels[i]);
+
+      // A fully opaque pixel is already in the form that packOpaque would give
+      if (a != 255) {
+        convertedPixels[i] = PackedPixelUtil.packOpaque(PackedPixelUtil.red(convertedPixels[i]),
+                PackedPixelUtil.green(convertedPixels[i]),
+                PackedPixelUtil.blue(convertedPixels[i]), a);
+      }
+    }
+
+    addImage(layerName, new PackedRGBAImage(img.getHeight(), img.getWidth(), convertedPixels),
+            startY, startX);
+  }
+
+  /*
+   * Reads the pixels of the given image as packed ARGB integers. The pixels of the common image
+   * types are read straight from the buffer of the image, and the pixels of any other image are
+   * read a row at a time through its color model.
+   */
+  private static int[] readPixels(BufferedImage img) {
+    int height = img.getHeight();
+    int width = img.getWidth();
+    int[] pixels = new int[height * width];
+    WritableRaster raster = img.getRaster();
+    DataBuffer buffer = raster.getDataBuffer();
+    int type = img.getType();
+
+    // The raster of a subimage starts partway into the buffer of its parent
+    boolean direct = raster.getSampleModelTranslateX() == 0
+            && raster.getSampleModelTranslateY() == 0 && buffer.getNumBanks() == 1;
+
+    if (direct && (type == BufferedImage.TYPE_INT_ARGB || type == BufferedImage.TYPE_INT_RGB)) {
 
-    for (int i = 0; i < img.getHeight(); i++) {
+      int[] data = ((DataBufferInt) buffer).getData();
+      int stride = ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride();
+      int mask = type == BufferedImage.TYPE_INT_RGB ? 0x00FFFFFF : 0xFFFFFFFF;
+      int opaque = type == BufferedImage.TYPE_INT_RGB ? 0xFF000000 : 0;
 
-      for (int j = 0; j < img.getWidth(); j++) {
+      for (int y = 0; y < height; y++) {
 
-        int rgba = img.getRGB(j, i);
+        int index = buffer.getOffset() + y * stride;
 
-        int a = rgba >> 24 & 0xff;
-        int r = rgba >> 16 & 0xff;
-        int g = rgba >> 8 & 0xff;
-        int b = rgba & 0xff;
+        for (int x = 0; x < width; x++) {
+          pixels[y * width + x] = data[index + x] & mask | opaque;
+        }
+      }
+    } else if (direct && (type == BufferedImage.TYPE_3BYTE_BGR
+            || type == BufferedImage.TYPE_4BYTE_ABGR)) {
 
-        convertedPixels[i][j] = new RGBAPixel(r, g, b, a);
+      byte[] data = ((DataBufferByte) buffer).getData();
+      ComponentSampleModel model = (ComponentSampleModel) raster.getSampleModel();
+      int stride = model.getScanlineStride();
+      int pixelStride = model.getPixelStride();
+      int[] bands = model.getBandOffsets();
+
+      for (int y = 0; y < height; y++) {
+
+        int index = buffer.getOffset() + y * stride;
+
+        for (int x = 0; x < width; x++) {
+
+          int alpha = bands.length > 3 ? data[index + bands[3]] & 0xFF : 255;
+
+          pixels[y * width + x] = PackedPixelUtil.pack(data[index + bands[0]] & 0xFF,
+                  data[index + bands[1]] & 0xFF, data[index + bands[2]] & 0xFF, alpha);
+          index += pixelStride;
+        }
+      }
+    } else {
+      for (int y = 0; y < height; y++) {
+        img.getRGB(0, y, width, 1, pixels, y * width, width);
       }
     }
 
-    addImage(layerName, new RGBALayerImage(convertedPixels), startY, startX);
+    return pixels;
   }
 
   @Override
@@ -316,25 +526,28 @@ public class RGBACollager implements Collager {
       throw new IllegalStateException("Cannot get an image when there are no layers");
     }
 
-    if (layername == null) {
-      throw new IllegalArgumentException("layer name cannot be null");
-    }
+    return makeImageAt(indexOf(layername));
+  }
 
-    int index = -1;
+  @Override
+  public Image getFinalPreview(int maxHeight, int maxWidth)
+          throws IllegalStateException, IllegalArgumentException {
+    return makePreviewAt(this.layers.size() - 1, maxHeight, maxWidth);
+  }
 
-    for (int i = 0; i < this.layers.size(); i++) {
+  @Override
+  public Image getPreviewAtLayer(String layername, int maxHeight, int maxWidth)
+          throws IllegalStateException, IllegalArgumentException {
 
-      if (this.layers.get(i).getLayerName().equals(layername)) {
-        index = i;
-        break;
-      }
+    if (height == 0 || width == 0) {
+      throw new IllegalStateException("Cannot get an image when there is no project");
     }
 
-    if (index == -1) {
-      throw new IllegalArgumentException("Layer does not exist");
+    if (layers.size() == 0) {
+      throw new IllegalStateException("Cannot get an image when there are no layers");
     }
 
-    return makeImageAt(index);
+    return makePreviewAt(indexOf(layername), maxHeight, maxWidth);
   }
 
   @Override
@@ -361,7 +574,144 @@ public class RGBACollager implements Collager {
       throw new IllegalStateException("No project exists");
     }
 
-    return List.copyOf(this.layers);
+    finishPlans();
+
+    // The layers are copied so that changing the filter of one cannot skip invalidating the
+    // composites above it, and images are never changed, so they are shared
+    List<Layer> layers = new ArrayList<>(this.layers.size());
+
+    for (Layer layer : this.layers) {
+      layers.add(((RGBALayer) layer).withImage(layer.getImage(), layer.getBounds()));
+    }
+
+    return List.copyOf(layers);
+  }
+
+  @Override
+  public List<RuntimeException> takeLoadErrors() {
+    List<RuntimeException> errors = List.copyOf(this.loadErrors.values());
+
+    this.loadErrors.clear();
+
+    return errors;
+  }
+
+  @Override
+  public void setParallelism(int parallelism) throws IllegalArgumentException {
+    if (parallelism != this.renderer.getParallelism()) {
+      TileRenderer renderer = new TileRenderer(parallelism);
+
+      this.renderer.shutdown();
+      this.renderer = renderer;
+    }
+  }
+
+  @Override
+  public int getParallelism() {
+    return this.renderer.getParallelism();
+  }
+
+  @Override
+  public void setPixelBudget(long pixelBudget) throws IllegalArgumentException {
+    if (pixelBudget < 1) {
+      throw new IllegalArgumentException("Pixel budget cannot be less than 1 pixel");
+    }
+
+    this.pixelBudget = pixelBudget;
+  }
+
+  @Override
+  public long getPixelBudget() {
+    return this.pixelBudget;
+  }
+
+  @Override
+  public long getCacheHits() {
+    return this.cacheHits;
+  }
+
+  @Override
+  public long getCacheMisses() {
+    return this.cacheMisses;
+  }
+
+  /*
+   * Finds the index of the layer with the given name.
+   */
+  private int indexOf(String layername) throws IllegalArgumentException {
+    if (layername == null) {
+      throw new IllegalArgumentException("layer name cannot be null");
+    }
+
+    Integer index = this.layerIndices.get(layername);
+
+    if (index == null) {
+      throw new IllegalArgumentException("Layer does not exist");
+    }
+
+    return index;
+  }
+
+  /*
+   * Composites the preview of the given layer from the most detailed level of the preview
+   * pyramids of the layers that fits in the given size. The pyramid of a layer is only created
+   * once a preview needs it, and is then updated whenever an image is added to the layer.
+   */
+  private Image makePreviewAt(int layerIndex, int maxHeight, int maxWidth) {
+    if (maxHeight < 1 || maxWidth < 1) {
+      throw new IllegalArgumentException("Preview height and width cannot be less than 1 pixel");
+    }
+
+    int level = 0;
+
+    while (PreviewPyramid.levelSize(this.height, level) > maxHeight
+            || PreviewPyramid.levelSize(this.width, level) > maxWidth) {
+      level++;
+    }
+
+    if (level == 0 || this.layers.size() == 0) {
+      return makeImageAt(layerIndex);
+    }
+
+    finishPlans();
+
+    for (int i = 0; i < layerIndex + 1; i++) {
+
+      if (this.pyramids.get(i) == null) {
+        this.pyramids.set(i, new PreviewPyramid(this.layers.get(i).getImage()));
+      }
+    }
+
+    // Every pyramid is the size of the canvas, so they all keep the same levels
+    level = Math.max(level, this.pyramids.get(0).getFirstLevel());
+
+    int previewHeight = PreviewPyramid.levelSize(this.height, level);
+    int previewWidth = PreviewPyramid.levelSize(this.width, level);
+    List<Layer> previewLayers = new ArrayList<>();
+    List<Image> bases = new ArrayList<>();
+    List<Rectangle> regions = new ArrayList<>();
+    List<Boolean> skipsTransparent = new ArrayList<>();
+
+    for (int i = 0; i < layerIndex + 1; i++) {
+
+      RGBALayer layer = (RGBALayer) this.layers.get(i);
+      Rectangle bounds = layer.getBounds();
+      Rectangle previewBounds = new Rectangle();
+
+      if (!bounds.isEmpty()) {
+        previewBounds.setFrameFromDiagonal(bounds.x >> level, bounds.y >> level,
+                ((bounds.x + bounds.width - 1) >> level) + 1,
+                ((bounds.y + bounds.height - 1) >> level) + 1);
+      }
+
+      previewLayers.add(layer.withImage(this.pyramids.get(i).getLevel(level), previewBounds));
+      bases.add(null);
+      regions.add(new Rectangle(previewWidth, previewHeight));
+      skipsTransparent.add(false);
+    }
+
+    return this.renderer.render(null, previewLayers, bases, regions, skipsTransparent, false,
+            previewHeight, previewWidth, new HeapImageStorage())[layerIndex];
   }
 
   private Image makeImageAt(int layerIndex) {
@@ -373,20 +723,151 @@ public class RGBACollager implements Collager {
       throw new IllegalStateException("No image to save");
     }
 
-    Layer result = layers.get(0).applyFilter();
+    finishPlans();
+
+    int start = 0;
+
+    while (start < this.composites.size() && this.dirtyRegions.get(start).isEmpty()) {
+      start++;
+    }
+
+    if (layerIndex < start) {
+      this.cacheHits++;
+      return this.composites.get(layerIndex);
+    }
+
+    this.cacheMisses++;
+
+    List<Image> bases = new ArrayList<>();
+    List<Rectangle> regions = new ArrayList<>();
+    List<Boolean> skipsTransparent = new ArrayList<>();
+
+    for (int i = start; i < layerIndex + 1; i++) {
+
+      Layer layer = this.layers.get(i);
 
-    for (int i = 1; i < layerIndex + 1; i++) {
+      // Every composite above the first layer only has fully transparent pixels that are
+      // entirely 0, which combining with a transparent pixel does not change
+      skipsTransparent.add(i > 1 && keepsTransparent(layer.getFilterName()));
 
-      try {
-        result = this.layers.get(i).applyTwoFilter(result);
-      } catch (IllegalStateException e) {
-        // Do nothing, filter is not a TwoFilter
+      if (i < this.composites.size()) {
+        // The old composite is still correct outside the region that changed
+        bases.add(this.composites.get(i));
+        regions.add(this.dirtyRegions.get(i));
+      } else if (skipsTransparent.get(i - start)) {
+        bases.add(null);
+        regions.add(layer.getBounds());
+      } else {
+        bases.add(null);
+        regions.add(new Rectangle(this.width, this.height));
       }
+    }
+
+    Image[] rendered = this.renderer.render(start == 0 ? null : this.composites.get(start - 1),
+            List.copyOf(this.layers.subList(start, layerIndex + 1)), bases, regions,
+            skipsTransparent, true, this.height, this.width, this.storage);
+
+    for (int i = start; i < layerIndex + 1; i++) {
+
+      if (i < this.composites.size()) {
+        Image old = this.composites.set(i, rendered[i - start]);
+
+        if (old != rendered[i - start]) {
+          this.storage.release(old);
+        }
+
+        this.dirtyRegions.set(i, new Rectangle());
+      } else {
+        this.composites.add(rendered[i - start]);
+        this.dirtyRegions.add(new Rectangle());
+      }
+    }
+
+    return this.composites.get(layerIndex);
+  }
+
+  /*
+   * Replaces every layer that images were added to with the finished layer of its plan, which is
+   * never changed again.
+   */
+  private void finishPlans() {
+    for (int i = 0; i < this.plans.size(); i++) {
+
+      if (this.plans.get(i) != null) {
+        finishPlan(i);
+      }
+    }
+  }
 
-      result = result.combine(this.layers.get(i).applyFilter(), 0, 0);
+  private void finishPlan(int layerIndex) {
+    Layer old = this.layers.set(layerIndex, this.plans.get(layerIndex).finish(this.loadErrors));
+
+    if (old.getImage() != this.layers.get(layerIndex).getImage()) {
+      this.storage.release(old.getImage());
     }
 
-    return result.getImage();
+    this.plans.set(layerIndex, null);
+
+    if (layerIndex == this.editedLayer) {
+      this.editedLayer = -1;
+    }
+  }
+
+  /*
+   * Gives back the space of every image of the project that is stored by the storage, before the
+   * project is replaced.
+   */
+  private void releaseProject() {
+    if (this.storage == null) {
+      return;
+    }
+
+    for (int i = 0; i < this.layers.size(); i++) {
+
+      if (this.plans.get(i) != null) {
+        this.plans.get(i).release();
+      }
+
+      this.storage.release(this.layers.get(i).getImage());
+    }
+
+    invalidateFrom(0);
+  }
+
+  /*
+   * Removes the cached composites of the given layer and every layer above it, since they
+   * depend on that layer, and gives back their space.
+   */
+  private void invalidateFrom(int layerIndex) {
+    if (layerIndex < this.composites.size()) {
+      List<Image> removed = this.composites.subList(layerIndex, this.composites.size());
+
+      removed.forEach(this.storage::release);
+      removed.clear();
+      this.dirtyRegions.subList(layerIndex, this.dirtyRegions.size()).clear();
+    }
+  }
+
+  /*
+   * Marks the given region of the cached composites of the given layer and every layer above it
+   * as changed.
+   */
+  private void invalidateFrom(int layerIndex, Rectangle region) {
+    for (int i = layerIndex; i < this.dirtyRegions.size(); i++) {
+
+      Rectangle dirty = this.dirtyRegions.get(i);
+      this.dirtyRegions.set(i, dirty.isEmpty() ? new Rectangle(region) : dirty.union(region));
+    }
+  }
+
+  /*
+   * Determines if the given filter is a one image filter that keeps fully transparent pixels
+   * fully transparent. Combining such a filtered pixel onto a composite does not change it.
+   */
+  private static boolean keepsTransparent(String filterName) {
+    FilterName filter = FilterName.fromName(filterName);
+
+    return filter != null && filter.keepsTransparent();
   }
 
   /**
@@ -394,19 +875,22 @@ public class RGBACollager implements Collager {
    *
    * @param img is the image to convert.
    * @param bufferedImageType is the type of {@code BufferedImage} to create. Only works with
-   *                          {@code BufferedImage.TYPE_INT_ARGB} and
-   *                          {@code BufferedImage.TYPE_INT_RGB}.
+   *                          {@code BufferedImage.TYPE_INT_ARGB},
+   *                          {@code BufferedImage.TYPE_INT_ARGB_PRE}, which Java draws without
+   *                          converting, and {@code BufferedImage.TYPE_INT_RGB}.
    * @return is the resulting Java Image type object.
    * @throws IllegalArgumentException if bufferedImageType is not
-   *                                  {@code BufferedImage.TYPE_INT_ARGB} or
+   *                                  {@code BufferedImage.TYPE_INT_ARGB},
+   *                                  {@code BufferedImage.TYPE_INT_ARGB_PRE}, or
    *                                  {@code BufferedImage.TYPE_INT_RGB}.
    */
   @Override
   public BufferedImage createJavaImage(Image img, int bufferedImageType) {
     if (bufferedImageType != BufferedImage.TYPE_INT_ARGB &&
+            bufferedImageType != BufferedImage.TYPE_INT_ARGB_PRE &&
             bufferedImageType != BufferedImage.TYPE_INT_RGB) {
-      throw new IllegalArgumentException("Only supports BufferedImage.TYPE_INT_ARGB and " +
-              "BufferedImage.TYPE_INT_RGB image types.");
+      throw new IllegalArgumentException("Only supports BufferedImage.TYPE_INT_ARGB, " +
+              "BufferedImage.TYPE_INT_ARGB_PRE and BufferedImage.TYPE_INT_RGB image types.");
     }
 
     if (img == null) {
@@ -416,41 +900,40 @@ public class RGBACollager implements Collager {
     BufferedImage image = new BufferedImage(img.getWidth(), img.getHeight(),
             bufferedImageType);
 
-    Pixel[][] imgPixels = img.getPixels();
+    // Every image type stores one packed pixel per integer in row order, so the pixels are copied
+    // straight into the buffer of the image instead of through its color model
+    int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
 
-    for (int x = 0; x < image.getWidth(); x++) {
+    img.getARGBRegion(0, 0, img.getHeight(), img.getWidth(), data, 0, img.getWidth());
 
-      for (int y = 0; y < image.getHeight(); y++) {
+    if (bufferedImageType == BufferedImage.TYPE_INT_RGB) {
 
-        int[] rgba;
-
-        if (bufferedImageType == BufferedImage.TYPE_INT_ARGB) {
-          rgba = imgPixels[y][x].asRGBA();
-        } else {
-          rgba = imgPixels[y][x].asRGB();
-        }
+      for (int i = 0; i < data.length; i++) {
+        data[i] = PackedPixelUtil.toRGB(data[i]);
+      }
+    } else if (bufferedImageType == BufferedImage.TYPE_INT_ARGB_PRE) {
 
-        int r = rgba[0];
-        int g = rgba[1];
-        int b = rgba[2];
+      for (int i = 0; i < data.length; i++) {
+        data[i] = PackedPixelUtil.premultiply(data[i]);
+      }
+    }
 
-        int argb;
+    return image;
+  }
 
-        if (bufferedImageType == BufferedImage.TYPE_INT_ARGB) {
-          int a = rgba[3];
-          argb = a << 24;
-          argb |= r << 16;
-        } else {
-          argb = r << 16;
-        }
+  @Override
+  public Image createLazyImage(int height, int width, boolean opaque, Supplier<Image> loader)
+          throws IllegalArgumentException {
+    return new LazyImage(height, width, opaque, loader);
+  }
 
-        argb |= g << 8;
-        argb |= b;
-        image.setRGB(x, y, argb);
-      }
+  @Override
+  public ImageWriter createImageWriter(int height, int width) throws IllegalArgumentException {
+    if (height < 1 || width < 1) {
+      throw new IllegalArgumentException("Invalid height or width was given");
     }
 
-    return image;
+    return this.storage.createWriter(height, width);
   }
 
   @Override
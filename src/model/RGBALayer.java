@@ -1,5 +1,7 @@
 package model;
 
+import java.awt.Rectangle;
+
 import model.filters.FilterName;
 
 /**
@@ -13,6 +15,7 @@ public class RGBALayer implements Layer {
   private final Image image;
   private final int height;
   private final int width;
+  private final Rectangle bounds;
   private FilterName filterName;
 
   /**
@@ -40,10 +43,39 @@ public class RGBALayer implements Layer {
     this.filterName = filterName;
     this.height = height;
     this.width = width;
-    this.image = new RGBALayerImage(this.height, this.width);
+    this.image = new TiledRGBAImage(this.height, this.width);
+    this.bounds = new Rectangle();
 
   }
 
+  /**
+   * Creates a blank layer using the given name, filter, and fully transparent image, which decides
+   * the size of the layer and where its pixels are stored.
+   *
+   * @param layerName  the name for the layer.
+   * @param filterName the filter for the layer.
+   * @param blank      the fully transparent image of the layer.
+   * @throws IllegalArgumentException if any of the arguments are null.
+   */
+  RGBALayer(String layerName, FilterName filterName, Image blank)
+          throws IllegalArgumentException {
+
+    if (layerName == null) {
+      throw new IllegalArgumentException("No name for layer was given");
+    } else if (filterName == null) {
+      throw new IllegalArgumentException("No filtername was given");
+    } else if (blank == null) {
+      throw new IllegalArgumentException("No image was given");
+    }
+
+    this.layerName = layerName;
+    this.filterName = filterName;
+    this.height = blank.getHeight();
+    this.width = blank.getWidth();
+    this.image = blank;
+    this.bounds = new Rectangle();
+  }
+
   /**
    * Creates a layer given the layer's name, the filter, the image on the layer, and the
    * height/width of the layer.
@@ -55,14 +87,17 @@ public class RGBALayer implements Layer {
    * @param image      the {@code Image} to display on the layer.
    * @param height     an integer representing the height of the layer in terms of pixels.
    * @param width      an integer representing the height of the layer in terms of pixels.
+   * @param bounds     the bounds of the part of the image that may not be transparent.
    */
-  private RGBALayer(String layerName, FilterName filterName, Image image, int height, int width) {
+  private RGBALayer(String layerName, FilterName filterName, Image image, int height, int width,
+                    Rectangle bounds) {
 
     this.layerName = layerName;
     this.filterName = filterName;
     this.height = height;
     this.width = width;
     this.image = image;
+    this.bounds = bounds;
   }
 
   @Override
@@ -75,8 +110,43 @@ public class RGBALayer implements Layer {
       throw new IllegalArgumentException("Invalid coordinates were given");
     }
 
+    Rectangle placed = new Rectangle(startX, startY, that.getWidth(), that.getHeight());
+
+    return new RGBALayer(this.layerName, this.filterName,
+            this.image.combine(that, startY, startX), this.height, this.width,
+            this.bounds.isEmpty() ? placed : this.bounds.union(placed));
+  }
+
+  /**
+   * Combines the given image, which must be the size of the layer, onto this layer at its top
+   * left corner, the same as {@code combine}, except that the pixels of the image are not read
+   * until the image of the layer is first needed. The combined image is stored in the given
+   * storage.
+   *
+   * @param that    is the image to combine onto this layer.
+   * @param storage is where the pixels of the combined image are stored.
+   * @return the combined layer.
+   * @throws IllegalArgumentException if the image is null or not the size of the layer.
+   */
+  Layer combineLazily(Image that, ImageStorage storage) throws IllegalArgumentException {
+    if (that == null) {
+      throw new IllegalArgumentException("Image cannot be null");
+    }
+
+    if (that.getHeight() != this.height || that.getWidth() != this.width) {
+      throw new IllegalArgumentException("Image must be the same size as the layer");
+    }
+
+    Image below = this.image;
+
     return new RGBALayer(this.layerName, this.filterName,
-            this.image.combine(that, startY, startX), this.height, this.width);
+            new LazyImage(this.height, this.width, () -> {
+              ImageEditor editor = storage.createEditor(below);
+
+              editor.combine(that, 0, 0);
+
+              return editor.snapshot();
+            }), this.height, this.width, new Rectangle(this.width, this.height));
   }
 
   @Override
@@ -105,15 +175,7 @@ public class RGBALayer implements Layer {
       throw new IllegalArgumentException("FilterName cannot be null");
     }
 
-    FilterName appliedFilter = null;
-
-    for (FilterName filter : FilterName.values()) {
-
-      if (filter.getName().equals(filterName)) {
-        appliedFilter = filter;
-        break;
-      }
-    }
+    FilterName appliedFilter = FilterName.fromName(filterName);
 
     if (appliedFilter == null) {
       throw new IllegalArgumentException("No filter with this name exists");
@@ -126,7 +188,7 @@ public class RGBALayer implements Layer {
   public Layer applyFilter() {
     return new RGBALayer(this.layerName, this.filterName,
             this.image.applyFilter(this.filterName.getFilter()), this.height,
-            this.width);
+            this.width, new Rectangle(this.width, this.height));
   }
 
   @Override
@@ -137,7 +199,7 @@ public class RGBALayer implements Layer {
 
     return new RGBALayer(this.layerName, this.filterName,
             this.filterName.getTwoFilter().apply(this.image, that), this.height,
-            this.width);
+            this.width, new Rectangle(this.width, this.height));
   }
 
   @Override
@@ -148,7 +210,7 @@ public class RGBALayer implements Layer {
 
     return new RGBALayer(this.layerName, this.filterName,
             this.filterName.getTwoFilter().apply(this.image, that.getImage()), this.height,
-            this.width);
+            this.width, new Rectangle(this.width, this.height));
   }
 
   @Override
@@ -161,9 +223,45 @@ public class RGBALayer implements Layer {
     return this.filterName.getName();
   }
 
+  @Override
+  public Rectangle getBounds() {
+    return new Rectangle(this.bounds);
+  }
+
+  @Override
+  public Layer getRegion(int startY, int startX, int height, int width)
+          throws IllegalArgumentException {
+
+    Rectangle region = new Rectangle(startX, startY, width, height);
+    Rectangle regionBounds = this.bounds.intersection(region);
+
+    if (regionBounds.isEmpty()) {
+      regionBounds = new Rectangle();
+    } else {
+      regionBounds.translate(-startX, -startY);
+    }
+
+    return new RGBALayer(this.layerName, this.filterName,
+            this.image.getRegion(startY, startX, height, width), height, width, regionBounds);
+  }
+
   @Override
   public Image getImage() {
-    return new RGBALayerImage(this.image.getPixels());
+    // Images are never changed, so the image is shared instead of copied
+    return this.image;
+  }
+
+  /**
+   * Creates a layer with the same name and filter as this layer, but with the given image, which
+   * may be a different size than this layer, such as a smaller preview of the image of this layer.
+   *
+   * @param image  is the image of the new layer.
+   * @param bounds is the bounds of the part of the image that may not be transparent.
+   * @return the new layer.
+   */
+  Layer withImage(Image image, Rectangle bounds) {
+    return new RGBALayer(this.layerName, this.filterName, image, image.getHeight(),
+            image.getWidth(), bounds);
   }
 
 }
\ No newline at end of file
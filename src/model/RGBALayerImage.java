@@ -4,6 +4,7 @@ import java.util.Arrays;
 
 import model.filters.Filter;
 import model.filters.TwoFilter;
+import model.utils.PackedPixelUtil;
 
 /**
  * Image that by default uses {@code RGBAPixel}s. Represents the image as a 2D array of pixels.
@@ -39,7 +40,7 @@ public class RGBALayerImage implements Image {
 
       for (int j = 0; j < width; j++) {
 
-        this.pixels[i][j] = new RGBAPixel(255, 255, 255, 0, 255);
+        this.pixels[i][j] = RGBAPixel.TRANSPARENT;
       }
     }
   }
@@ -93,6 +94,39 @@ public class RGBALayerImage implements Image {
     return returnArray;
   }
 
+  @Override
+  public int getARGB(int row, int col) throws IllegalArgumentException {
+    if (row < 0 || row >= this.height || col < 0 || col >= this.width) {
+      throw new IllegalArgumentException("Position is outside of the image");
+    }
+
+    return pack(this.pixels[row][col]);
+  }
+
+  @Override
+  public int[] getARGBPixels() {
+    int[] returnArray = new int[this.height * this.width];
+
+    getARGBRegion(0, 0, this.height, this.width, returnArray, 0, this.width);
+
+    return returnArray;
+  }
+
+  @Override
+  public void getARGBRegion(int startY, int startX, int height, int width, int[] dest,
+                            int offset, int stride) throws IllegalArgumentException {
+
+    PackedRGBAImage.checkRegion(this, startY, startX, height, width, dest, offset, stride);
+
+    for (int i = 0; i < height; i++) {
+
+      for (int j = 0; j < width; j++) {
+
+        dest[offset + i * stride + j] = pack(this.pixels[startY + i][startX + j]);
+      }
+    }
+  }
+
   @Override
   public Image combine(Image that, int startY, int startX) throws IllegalArgumentException {
 
@@ -101,7 +135,6 @@ public class RGBALayerImage implements Image {
     }
 
     Pixel[][] thatPixels = that.getPixels();
-    Pixel[][] resultPixels = new Pixel[height][width];
 
     if (startY < 0 || startY + thatPixels.length > height) {
       throw new IllegalArgumentException("Invalid starting Y position or image height, image " +
@@ -113,6 +146,12 @@ public class RGBALayerImage implements Image {
               "must be fully contained");
     }
 
+    Pixel[][] resultPixels = new Pixel[this.height][];
+
+    for (int i = 0; i < this.height; i++) {
+      resultPixels[i] = Arrays.copyOf(this.pixels[i], this.width);
+    }
+
     for (int i = 0; i < thatPixels.length; i++) {
 
       for (int j = 0; j < thatPixels[i].length; j++) {
@@ -122,17 +161,25 @@ public class RGBALayerImage implements Image {
       }
     }
 
-    for (int i = 0; i < this.height; i++) {
+    return new RGBALayerImage(resultPixels);
+  }
 
-      for (int j = 0; j < this.width; j++) {
+  @Override
+  public Image getRegion(int startY, int startX, int height, int width)
+          throws IllegalArgumentException {
 
-        if (resultPixels[i][j] == null) {
-          resultPixels[i][j] = this.pixels[i][j];
-        }
-      }
+    if (height < 1 || width < 1 || startY < 0 || startX < 0 || startY + height > this.height
+            || startX + width > this.width) {
+      throw new IllegalArgumentException("Region must be fully contained in the image");
     }
 
-    return new RGBALayerImage(resultPixels);
+    Pixel[][] regionPixels = new Pixel[height][];
+
+    for (int i = 0; i < height; i++) {
+      regionPixels[i] = Arrays.copyOfRange(this.pixels[startY + i], startX, startX + width);
+    }
+
+    return new RGBALayerImage(regionPixels);
   }
 
   @Override
@@ -159,16 +206,17 @@ public class RGBALayerImage implements Image {
 
   @Override
   public int getHeight() {
-
-    return this.getPixels().length;
-
+    return this.height;
   }
 
   @Override
   public int getWidth() {
+    return this.width;
+  }
 
-    return this.getPixels()[0].length;
+  private static int pack(Pixel pixel) {
+    int[] rgba = pixel.asRGBA();
 
+    return PackedPixelUtil.pack(rgba[0], rgba[1], rgba[2], rgba[3]);
   }
-
 }
@@ -1,15 +1,39 @@
 package model;
 
+import java.util.concurrent.atomic.LongAdder;
+
+import model.utils.PackedPixelUtil;
+
 /**
  * Represents a pixel in an image using the red values, green values, blue values, and the alpha
  * level of the pixel. The max amount of the pixel's values is 255 and the min amount of pixel's
  * values is 0. When creating the pixel, it will convert the values to 0-255 given the max (min is
  * assumed to be 0)
+ *
+ * <p>Pixels can never change, so the pixels created by {@code RGBAPixel.of} are shared. An image
+ * only has a small number of distinct pixels compared to its number of pixels, so the most recent
+ * pixels are kept in a cache with a fixed number of slots, where each packed value has a single
+ * slot and a new pixel replaces the pixel in its slot. The cache is not locked, since a pixel
+ * that two threads create at once is only created twice. Fully transparent white, which blank
+ * images are filled with, and opaque white are always shared.
  */
 public class RGBAPixel implements Pixel {
 
-  private static final int MIN = 0;
+  /**
+   * The fully transparent white pixel, which blank layers and images are filled with.
+   */
+  public static final RGBAPixel TRANSPARENT = new RGBAPixel(PackedPixelUtil.TRANSPARENT);
+
+  /**
+   * The fully opaque white pixel.
+   */
+  public static final RGBAPixel WHITE = new RGBAPixel(0xFFFFFFFF);
+
   private static final int MAX = 255;
+  private static final int CACHE_BITS = 14;
+  private static final RGBAPixel[] CACHE = new RGBAPixel[1 << CACHE_BITS];
+  private static final LongAdder LOOKUPS = new LongAdder();
+  private static final LongAdder HITS = new LongAdder();
 
   private final int red;
   private final int green;
@@ -33,37 +57,7 @@ public class RGBAPixel implements Pixel {
   public RGBAPixel(int red, int green, int blue, int alpha, int max)
           throws IllegalArgumentException {
 
-    if (max < 1) {
-      throw new IllegalArgumentException("Maximum value must be greater than 0 (min)");
-    }
-
-    if (red > max || red < MIN) {
-      throw new IllegalArgumentException("Red value is invalid, must be between " + MIN +
-              " and " + max);
-    }
-
-    if (blue > max || blue < MIN) {
-      throw new IllegalArgumentException("Blue value is invalid, must be between " + MIN +
-              " and " + max);
-    }
-    if (green > max || green < MIN) {
-      throw new IllegalArgumentException("Green value is invalid, must be between " + MIN +
-              " and " + max);
-    }
-
-    if (alpha > max || alpha < MIN) {
-      throw new IllegalArgumentException("Alpha value is invalid, must be between " + MIN +
-              " and " + max);
-    }
-
-    this.red = (int) Math.round((1 - Math.pow(0, red)) * ((MAX + 1) * ((red + 1) /
-            ((double) max + 1)) - 1));
-    this.green = (int) Math.round((1 - Math.pow(0, green)) * ((MAX + 1) * ((green + 1) /
-            ((double) max + 1)) - 1));
-    this.blue = (int) Math.round((1 - Math.pow(0, blue)) * ((MAX + 1) * ((blue + 1) /
-            ((double) max + 1)) - 1));
-    this.alpha = (int) Math.round((1 - Math.pow(0, alpha)) * ((MAX + 1) * ((alpha + 1) /
-            ((double) max + 1)) - 1));
+    this(PackedPixelUtil.packScaled(red, green, blue, alpha, max));
   }
 
   /**
@@ -82,26 +76,92 @@ public class RGBAPixel implements Pixel {
    */
   public RGBAPixel(int red, int green, int blue, int max) throws IllegalArgumentException {
 
-    if (red > max || red < MIN) {
-      throw new IllegalArgumentException("Red value is invalid, must be between " + MIN +
-              " and " + max);
-    }
+    this(PackedPixelUtil.packOpaque(red, green, blue, max));
+  }
+
+  /**
+   * Creates an {@code RGBAPixel} from a pixel packed as a single ARGB integer.
+   *
+   * @param argb is the packed pixel, see {@code PackedPixelUtil}.
+   */
+  private RGBAPixel(int argb) {
+
+    this.red = PackedPixelUtil.red(argb);
+    this.green = PackedPixelUtil.green(argb);
+    this.blue = PackedPixelUtil.blue(argb);
+    this.alpha = PackedPixelUtil.alpha(argb);
+  }
+
+  /**
+   * Gets the {@code RGBAPixel} with the given values, which are already between 0 and 255, sharing
+   * it with every other pixel with the same values that is still cached.
+   *
+   * @param red   is the red value of the pixel.
+   * @param green is the green value of the pixel.
+   * @param blue  is the blue value of the pixel.
+   * @param alpha is the alpha value of the pixel.
+   * @return the pixel.
+   * @throws IllegalArgumentException if any value is greater than 255 (MAX) or less than 0 (MIN).
+   */
+  public static RGBAPixel of(int red, int green, int blue, int alpha)
+          throws IllegalArgumentException {
+
+    return of(PackedPixelUtil.packScaled(red, green, blue, alpha, MAX));
+  }
 
+  /**
+   * Gets the {@code RGBAPixel} of a pixel packed as a single ARGB integer, sharing it with every
+   * other pixel with the same values that is still cached.
+   *
+   * @param argb is the packed pixel, see {@code PackedPixelUtil}.
+   * @return the pixel.
+   */
+  static RGBAPixel of(int argb) {
+    if (argb == PackedPixelUtil.TRANSPARENT) {
+      return TRANSPARENT;
+    }
 
-    if (green > max || green < MIN) {
-      throw new IllegalArgumentException("Green value is invalid, must be between " + MIN +
-              " and " + max);
+    if (argb == WHITE.asARGB()) {
+      return WHITE;
     }
 
-    if (blue > max || blue < MIN) {
-      throw new IllegalArgumentException("Blue value is invalid, must be between " + MIN +
-              " and " + max);
+    int slot = argb * 0x9E3779B1 >>> (32 - CACHE_BITS);
+    RGBAPixel cached = CACHE[slot];
+
+    LOOKUPS.increment();
+
+    if (cached != null && cached.asARGB() == argb) {
+      HITS.increment();
+      return cached;
     }
 
-    this.red = (int) ((red * ((double) max)) / 255);
-    this.green = (int) ((green * ((double) max)) / 255);
-    this.blue = (int) ((blue * ((double) max)) / 255);
-    this.alpha = MAX;
+    // The fields of a pixel are final, so another thread that reads it from the cache always sees
+    // its values
+    RGBAPixel pixel = new RGBAPixel(argb);
+    CACHE[slot] = pixel;
+
+    return pixel;
+  }
+
+  /**
+   * Gets the number of times that {@code of} looked for a pixel in the cache, which does not
+   * include the shared transparent and white pixels.
+   *
+   * @return the number of lookups.
+   */
+  public static long getCacheLookups() {
+    return LOOKUPS.sum();
+  }
+
+  /**
+   * Gets the fraction of the lookups of {@code of} that found the pixel in the cache.
+   *
+   * @return the hit rate of the cache, between 0 and 1, or 0 if there were no lookups.
+   */
+  public static double getCacheHitRate() {
+    long lookups = LOOKUPS.sum();
+
+    return lookups == 0 ? 0 : (double) HITS.sum() / lookups;
   }
 
   @Override
@@ -119,13 +179,10 @@ public class RGBAPixel implements Pixel {
    */
   @Override
   public int[] asRGB() {
-    double calcAlpha = this.alpha / 255.0;
-
-    int newRed = (int) Math.round(this.red * calcAlpha);
-    int newGreen = (int) Math.round(this.green * calcAlpha);
-    int newBlue = (int) Math.round(this.blue * calcAlpha);
+    int rgb = PackedPixelUtil.toRGB(this.asARGB());
 
-    return new int[]{newRed, newGreen, newBlue};
+    return new int[]{PackedPixelUtil.red(rgb), PackedPixelUtil.green(rgb),
+        PackedPixelUtil.blue(rgb)};
   }
 
   @Override
@@ -136,21 +193,21 @@ public class RGBAPixel implements Pixel {
     }
     int[] topPixel = that.asRGBA();
 
-    double calcAlpha = (topPixel[3] / 255.0) + (this.alpha / 255.0) * (1 - (topPixel[3] / 255.0));
-    int newAlpha = (int) Math.round(calcAlpha * 255);
-
-    int newRed = (int) Math.round((((topPixel[3] / 255.0) * topPixel[0]) +
-            (this.red * (this.alpha / 255.0)) * (1 - (topPixel[3] / 255.0))) * (1 / calcAlpha));
-    int newGreen = (int) Math.round((((topPixel[3] / 255.0) * topPixel[1]) +
-            (this.green * (this.alpha / 255.0)) * (1 - (topPixel[3] / 255.0))) * (1 / calcAlpha));
-    int newBlue = (int) Math.round((((topPixel[3] / 255.0) * topPixel[2]) +
-            (this.blue * (this.alpha / 255.0)) * (1 - (topPixel[3] / 255.0))) * (1 / calcAlpha));
-
-    return new RGBAPixel(newRed, newGreen, newBlue, newAlpha, 255);
+    return of(PackedPixelUtil.combine(this.asARGB(),
+            PackedPixelUtil.pack(topPixel[0], topPixel[1], topPixel[2], topPixel[3])));
   }
 
   @Override
   public int getMax() {
     return MAX;
   }
+
+  /**
+   * Represents this pixel as a single packed ARGB integer, see {@code PackedPixelUtil}.
+   *
+   * @return the packed ARGB representation of the pixel.
+   */
+  public int asARGB() {
+    return PackedPixelUtil.pack(this.red, this.green, this.blue, this.alpha);
+  }
 }
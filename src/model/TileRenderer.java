@@ -0,0 +1,317 @@
+package model;
+
+import java.awt.Rectangle;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Composites a stack of layers by splitting the canvas into square tiles. Every tile is
+ * composited through all the layers of the stack before moving on to the next tile, so the pixels
+ * of a tile stay in the cache while they are being worked on. Since every filter works pixel by
+ * pixel, a tile can be composited without the rest of the canvas, and the tiles are split between
+ * the threads of a {@code ForkJoinPool}. Only the composites themselves are the size of the
+ * canvas, so where they are stored decides how much of the heap rendering uses. Tiles of a
+ * {@code TiledRGBAImage} layer that were never written are skipped when that cannot change the
+ * composite below them. Previews can be composited with {@code PackedPixelUtil.combineFast},
+ * which is only off by at most 1 in a value.
+ *
+ * <p>Before compositing, each layer is compiled to a {@code LayerKernel}, which filters the layer,
+ * blends it with the composite below it and combines it in a single pass over the pixels of a
+ * tile, so no image is created for a tile of a layer.
+ */
+class TileRenderer {
+
+  /**
+   * The height and width of a tile in pixels. A tile of packed pixels is 16 KB.
+   */
+  static final int TILE_SIZE = 64;
+
+  private final int parallelism;
+  private ForkJoinPool pool;
+
+  /**
+   * Creates a renderer that composites tiles using the given number of threads.
+   *
+   * @param parallelism is the number of threads to use, 1 to composite on the calling thread.
+   * @throws IllegalArgumentException if the parallelism is less than 1.
+   */
+  TileRenderer(int parallelism) throws IllegalArgumentException {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism cannot be less than 1");
+    }
+
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Gets the number of threads that this renderer composites tiles with.
+   *
+   * @return the parallelism of this renderer.
+   */
+  int getParallelism() {
+    return this.parallelism;
+  }
+
+  /**
+   * Composites each of the given layers over the composite below it, starting with the given
+   * composite below the first layer. The new composite of a layer only differs from its base
+   * inside its region. A null base means that the new composite is the composite below it outside
+   * the region, and a region that is empty means that the base is reused as is. A layer that
+   * skips transparent tiles is not composited on tiles where its image is known to be fully
+   * transparent, and the new composite is the composite below it there instead. Unless the
+   * composites are exact, layers are combined with {@code PackedPixelUtil.combineFast}.
+   *
+   * @param below            is the composite below the first layer, or null if the first layer
+   *                         is the bottom layer, in which case the first region must cover the
+   *                         whole canvas or the first base cannot be null.
+   * @param layers           are the layers to composite, from bottom to top.
+   * @param bases            are the images that the new composites are the same as outside
+   *                         their region.
+   * @param regions          are the regions of the canvas that need to be composited for each
+   *                         layer.
+   * @param skipsTransparent are whether compositing each layer where it is fully transparent
+   *                         leaves the composite below it unchanged.
+   * @param exact            is whether layers are combined exactly, which must be true for
+   *                         composites that can be saved.
+   * @param height           is the height of the canvas.
+   * @param width            is the width of the canvas.
+   * @param storage          is where the pixels of the new composites are stored.
+   * @return the new composite of each of the given layers.
+   * @throws CancellationException if the calling thread is interrupted before every tile has
+   *                               been composited.
+   */
+  Image[] render(Image below, List<Layer> layers, List<Image> bases, List<Rectangle> regions,
+                 List<Boolean> skipsTransparent, boolean exact, int height, int width,
+                 ImageStorage storage)
+          throws CancellationException {
+
+    Rectangle canvas = new Rectangle(width, height);
+    Image[] results = new Image[layers.size()];
+    ImageWriter[] writers = new ImageWriter[layers.size()];
+    Rectangle[] clipped = new Rectangle[layers.size()];
+    LayerKernel[] kernels = new LayerKernel[layers.size()];
+
+    for (int i = 0; i < layers.size(); i++) {
+
+      clipped[i] = regions.get(i).intersection(canvas);
+
+      if (clipped[i].isEmpty() && bases.get(i) != null) {
+        results[i] = bases.get(i);
+      } else {
+        kernels[i] = LayerKernel.compile(layers.get(i));
+
+        // Every tile of the composite is written by exactly one task
+        writers[i] = storage.createWriter(height, width);
+        results[i] = writers[i].getImage();
+      }
+    }
+
+    int tileRows = (height + TILE_SIZE - 1) / TILE_SIZE;
+    int tileCols = (width + TILE_SIZE - 1) / TILE_SIZE;
+
+    boolean parallel = this.parallelism > 1 && tileRows * tileCols > 1;
+    TileTask task = new TileTask(below, layers, bases, clipped, skipsTransparent, kernels, exact,
+            results, writers, tileCols, height, width, 0, tileRows * tileCols, parallel,
+            Thread.currentThread(), new AtomicBoolean());
+
+    if (parallel) {
+      ForkJoinTask<Void> submitted = getPool().submit(task);
+
+      try {
+        submitted.get();
+      } catch (InterruptedException e) {
+        // The tiles that are being composited are finished before returning, so no thread keeps
+        // writing to the composites
+        task.cancelled.set(true);
+        submitted.quietlyJoin();
+        Thread.currentThread().interrupt();
+        throw new CancellationException("Rendering was interrupted");
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+
+        throw (Error) e.getCause();
+      }
+    } else {
+      task.compute();
+    }
+
+    return results;
+  }
+
+  /**
+   * Stops the threads of this renderer once they finish the tiles that they are compositing.
+   * Rendering afterwards starts new threads.
+   */
+  synchronized void shutdown() {
+    if (this.pool != null) {
+      this.pool.shutdown();
+      this.pool = null;
+    }
+  }
+
+  private synchronized ForkJoinPool getPool() {
+    if (this.pool == null) {
+      this.pool = new ForkJoinPool(this.parallelism);
+    }
+
+    return this.pool;
+  }
+
+  /*
+   * Determines if the image of the given layer is known to be fully transparent in the given
+   * region without reading it.
+   */
+  private static boolean isTransparent(Layer layer, Rectangle region) {
+    Image image = layer.getImage();
+
+    return image instanceof TiledRGBAImage && ((TiledRGBAImage) image).isTransparent(region);
+  }
+
+  /**
+   * Composites a range of tiles, splitting the range in half until there is a single tile left.
+   */
+  private static class TileTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Image below;
+    private final List<Layer> layers;
+    private final List<Image> bases;
+    private final Rectangle[] regions;
+    private final List<Boolean> skipsTransparent;
+    private final LayerKernel[] kernels;
+    private final boolean exact;
+    private final Image[] results;
+    private final ImageWriter[] writers;
+    private final int tileCols;
+    private final int height;
+    private final int width;
+    private final int from;
+    private final int to;
+    private final boolean parallel;
+    private final Thread caller;
+    private final AtomicBoolean cancelled;
+
+    TileTask(Image below, List<Layer> layers, List<Image> bases, Rectangle[] regions,
+             List<Boolean> skipsTransparent, LayerKernel[] kernels, boolean exact,
+             Image[] results, ImageWriter[] writers, int tileCols, int height, int width,
+             int from, int to, boolean parallel, Thread caller, AtomicBoolean cancelled) {
+      this.below = below;
+      this.layers = layers;
+      this.bases = bases;
+      this.regions = regions;
+      this.skipsTransparent = skipsTransparent;
+      this.kernels = kernels;
+      this.exact = exact;
+      this.results = results;
+      this.writers = writers;
+      this.tileCols = tileCols;
+      this.height = height;
+      this.width = width;
+      this.from = from;
+      this.to = to;
+      this.parallel = parallel;
+      this.caller = caller;
+      this.cancelled = cancelled;
+    }
+
+    @Override
+    protected void compute() {
+      if (this.parallel && this.to - this.from > 1) {
+        int mid = (this.from + this.to) >>> 1;
+
+        invokeAll(split(this.from, mid), split(mid, this.to));
+        return;
+      }
+
+      for (int tile = this.from; tile < this.to; tile++) {
+
+        // The thread that asked for the render might run none of the tiles, so it is checked
+        // instead of the thread running this task
+        if (this.caller.isInterrupted() || this.cancelled.get()) {
+          throw new CancellationException("Rendering was interrupted");
+        }
+
+        renderTile(tile);
+      }
+    }
+
+    private TileTask split(int from, int to) {
+      return new TileTask(this.below, this.layers, this.bases, this.regions,
+              this.skipsTransparent, this.kernels, this.exact, this.results, this.writers,
+              this.tileCols, this.height, this.width, from, to, true, this.caller,
+              this.cancelled);
+    }
+
+    /*
+     * Composites a single tile through every layer. A composite only reads the tile of the
+     * composite below it, which this task has already written.
+     */
+    private void renderTile(int tile) {
+      int tileY = tile / this.tileCols * TILE_SIZE;
+      int tileX = tile % this.tileCols * TILE_SIZE;
+      Rectangle bounds = new Rectangle(tileX, tileY, Math.min(TILE_SIZE, this.width - tileX),
+              Math.min(TILE_SIZE, this.height - tileY));
+      int[] pixels = new int[bounds.height * bounds.width];
+      int[] top = null;
+      int[] blended = null;
+
+      // Whether the whole tile of the composite below the current layer is already in pixels
+      boolean holdsCurrent = false;
+      Image current = this.below;
+
+      for (int i = 0; i < this.layers.size(); i++) {
+
+        ImageWriter writer = this.writers[i];
+
+        if (writer != null) {
+          Image base = this.bases.get(i) == null ? current : this.bases.get(i);
+          Rectangle region = this.regions[i].intersection(bounds);
+          int offset = (region.y - bounds.y) * bounds.width + region.x - bounds.x;
+
+          if (base != null && !region.equals(bounds)) {
+            base.getARGBRegion(bounds.y, bounds.x, bounds.height, bounds.width, pixels, 0,
+                    bounds.width);
+            holdsCurrent = base == current;
+          }
+
+          if (!region.isEmpty() && current != null && this.skipsTransparent.get(i)
+                  && isTransparent(this.layers.get(i), region)) {
+            // The layer does not change the composite below it anywhere in the region
+            current.getARGBRegion(region.y, region.x, region.height, region.width, pixels,
+                    offset, bounds.width);
+          } else if (!region.isEmpty()) {
+            if (top == null) {
+              top = new int[pixels.length];
+              blended = new int[pixels.length];
+            }
+
+            // The composite below the layer is read into the region, unless it is already there,
+            // and replaced there by the new composite
+            if (current != null && !holdsCurrent) {
+              current.getARGBRegion(region.y, region.x, region.height, region.width, pixels,
+                      offset, bounds.width);
+            }
+
+            this.kernels[i].composite(pixels, offset, bounds.width, region.y, region.x,
+                    region.height, region.width, current != null, this.exact, top, blended);
+          }
+
+          writer.setARGBRegion(bounds.y, bounds.x, bounds.height, bounds.width, pixels, 0,
+                  bounds.width);
+        }
+
+        holdsCurrent = writer != null;
+
+        current = this.results[i];
+      }
+    }
+  }
+}
@@ -0,0 +1,412 @@
+package model;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+
+import model.filters.Filter;
+import model.filters.TwoFilter;
+import model.utils.PackedPixelLoops;
+import model.utils.PackedPixelUtil;
+
+/**
+ * Image that stores its pixels packed as ARGB integers (see {@code PackedPixelUtil}) in square
+ * tiles the size of a {@code TileRenderer} tile. Tiles whose pixels were never written are not
+ * stored at all, and every pixel in them is the fill pixel of the image, so a blank canvas takes no
+ * memory no matter how large it is. Tiles are never changed once the image is created, so images
+ * made from this image by combining or filtering share every tile that they did not change.
+ */
+public class TiledRGBAImage implements Image {
+
+  private static final int TILE_SIZE = TileRenderer.TILE_SIZE;
+
+  private final int height;
+  private final int width;
+  private final int tileCols;
+  private final int fill;
+  // Null until a tile is written, and a null tile is filled with the fill pixel
+  private final int[][] tiles;
+
+  /**
+   * Creates a fully transparent image given the height and width that the image should be.
+   *
+   * @param height is the height of the image.
+   * @param width  is the width of the image.
+   * @throws IllegalArgumentException if the height or width are invalid.
+   */
+  public TiledRGBAImage(int height, int width) throws IllegalArgumentException {
+    this(height, width, PackedPixelUtil.TRANSPARENT, null);
+  }
+
+  private TiledRGBAImage(int height, int width, int fill, int[][] tiles)
+          throws IllegalArgumentException {
+
+    if (height < 1) {
+      throw new IllegalArgumentException("Height cannot be less than 1 pixel");
+    }
+
+    if (width < 1) {
+      throw new IllegalArgumentException("Width cannot be less than 1 pixel");
+    }
+
+    this.height = height;
+    this.width = width;
+    this.tileCols = (width + TILE_SIZE - 1) / TILE_SIZE;
+    this.fill = fill;
+    this.tiles = tiles;
+  }
+
+  @Override
+  public Pixel[][] getPixels() {
+    Pixel[][] returnArray = new Pixel[this.height][this.width];
+    int[] row = new int[this.width];
+
+    for (int i = 0; i < this.height; i++) {
+
+      getARGBRegion(i, 0, 1, this.width, row, 0, this.width);
+
+      for (int j = 0; j < this.width; j++) {
+
+        returnArray[i][j] = RGBAPixel.of(row[j]);
+      }
+    }
+
+    return returnArray;
+  }
+
+  @Override
+  public int getARGB(int row, int col) throws IllegalArgumentException {
+    if (row < 0 || row >= this.height || col < 0 || col >= this.width) {
+      throw new IllegalArgumentException("Position is outside of the image");
+    }
+
+    int[] tile = getTile(row / TILE_SIZE, col / TILE_SIZE);
+
+    return tile == null ? this.fill
+            : tile[row % TILE_SIZE * tileWidth(col / TILE_SIZE) + col % TILE_SIZE];
+  }
+
+  @Override
+  public int[] getARGBPixels() {
+    int[] pixels = new int[this.height * this.width];
+
+    getARGBRegion(0, 0, this.height, this.width, pixels, 0, this.width);
+
+    return pixels;
+  }
+
+  @Override
+  public void getARGBRegion(int startY, int startX, int height, int width, int[] dest,
+                            int offset, int stride) throws IllegalArgumentException {
+
+    PackedRGBAImage.checkRegion(this, startY, startX, height, width, dest, offset, stride);
+
+    for (int i = 0; i < height; i++) {
+
+      int y = startY + i;
+      int destIndex = offset + i * stride;
+
+      for (int x = startX; x < startX + width; ) {
+
+        int tileCol = x / TILE_SIZE;
+        int length = Math.min(startX + width, (tileCol + 1) * TILE_SIZE) - x;
+        int[] tile = getTile(y / TILE_SIZE, tileCol);
+
+        if (tile == null) {
+          Arrays.fill(dest, destIndex, destIndex + length, this.fill);
+        } else {
+          System.arraycopy(tile, y % TILE_SIZE * tileWidth(tileCol) + x % TILE_SIZE, dest,
+                  destIndex, length);
+        }
+
+        x += length;
+        destIndex += length;
+      }
+    }
+  }
+
+  @Override
+  public Image combine(Image that, int startY, int startX) throws IllegalArgumentException {
+    Editor editor = edit();
+
+    editor.combine(that, startY, startX);
+
+    return editor.snapshot();
+  }
+
+  @Override
+  public Image getRegion(int startY, int startX, int height, int width)
+          throws IllegalArgumentException {
+
+    if (height < 1) {
+      throw new IllegalArgumentException("Height cannot be less than 1 pixel");
+    }
+
+    if (width < 1) {
+      throw new IllegalArgumentException("Width cannot be less than 1 pixel");
+    }
+
+    int[] regionPixels = new int[height * width];
+
+    getARGBRegion(startY, startX, height, width, regionPixels, 0, width);
+
+    return new PackedRGBAImage(height, width, regionPixels);
+  }
+
+  @Override
+  public Image applyFilter(Filter filter) {
+    if (filter == null) {
+      throw new IllegalArgumentException("Filter cannot be null");
+    }
+
+    // Every filter works pixel by pixel, so the tiles that were never written are still filled
+    // with a single pixel once they are filtered
+    int filteredFill = filter.apply(new PackedRGBAImage(1, 1, new int[] {this.fill}))
+            .getARGB(0, 0);
+
+    if (this.tiles == null) {
+      return new TiledRGBAImage(this.height, this.width, filteredFill, null);
+    }
+
+    int[][] filtered = new int[this.tiles.length][];
+
+    for (int tile = 0; tile < this.tiles.length; tile++) {
+
+      if (this.tiles[tile] != null) {
+        filtered[tile] = filter.apply(new PackedRGBAImage(tileHeight(tile / this.tileCols),
+                tileWidth(tile % this.tileCols), this.tiles[tile])).getARGBPixels();
+      }
+    }
+
+    return new TiledRGBAImage(this.height, this.width, filteredFill, filtered);
+  }
+
+  @Override
+  public Image applyTwoFilter(TwoFilter filter, Image other) {
+    if (filter == null) {
+      throw new IllegalArgumentException("Filter cannot be null");
+    }
+
+    if (other == null) {
+      throw new IllegalArgumentException("Other image cannot be null");
+    }
+
+    if (other.getHeight() != this.height || other.getWidth() != this.width) {
+      throw new IllegalArgumentException("Images must be same size");
+    }
+
+    // The other image decides every filtered pixel, so every tile of the result is written
+    int[][] filtered = new int[((this.height + TILE_SIZE - 1) / TILE_SIZE) * this.tileCols][];
+
+    for (int tile = 0; tile < filtered.length; tile++) {
+
+      int tileRow = tile / this.tileCols;
+      int tileCol = tile % this.tileCols;
+      int tileHeight = tileHeight(tileRow);
+      int tileWidth = tileWidth(tileCol);
+
+      filtered[tile] = filter.apply(getRegion(tileRow * TILE_SIZE, tileCol * TILE_SIZE,
+              tileHeight, tileWidth), other.getRegion(tileRow * TILE_SIZE, tileCol * TILE_SIZE,
+              tileHeight, tileWidth)).getARGBPixels();
+    }
+
+    return new TiledRGBAImage(this.height, this.width, this.fill, filtered);
+  }
+
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  /**
+   * Determines if every pixel in the given region is known to be fully transparent without reading
+   * it, which is when the region only covers tiles that were never written.
+   *
+   * @param region is the region of the image.
+   * @return true if the region is fully transparent, false if it may not be.
+   */
+  boolean isTransparent(Rectangle region) {
+    if (PackedPixelUtil.alpha(this.fill) != 0) {
+      return false;
+    }
+
+    if (this.tiles == null || region.isEmpty()) {
+      return true;
+    }
+
+    for (int tileRow = region.y / TILE_SIZE; tileRow <= (region.y + region.height - 1) / TILE_SIZE;
+         tileRow++) {
+
+      for (int tileCol = region.x / TILE_SIZE;
+           tileCol <= (region.x + region.width - 1) / TILE_SIZE; tileCol++) {
+
+        if (this.tiles[tileRow * this.tileCols + tileCol] != null) {
+          return false;
+        }
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Starts editing a copy of this image, which shares the tiles of this image until they are
+   * edited.
+   *
+   * @return the editor of the copy.
+   */
+  Editor edit() {
+    return new Editor(this);
+  }
+
+  private int[] getTile(int tileRow, int tileCol) {
+    return this.tiles == null ? null : this.tiles[tileRow * this.tileCols + tileCol];
+  }
+
+  private int tileHeight(int tileRow) {
+    return Math.min(TILE_SIZE, this.height - tileRow * TILE_SIZE);
+  }
+
+  private int tileWidth(int tileCol) {
+    return Math.min(TILE_SIZE, this.width - tileCol * TILE_SIZE);
+  }
+
+  /**
+   * Edits a copy of a {@code TiledRGBAImage} in place. A tile is only copied the first time it is
+   * edited, so combining an image onto the copy takes time and memory for the tiles that the image
+   * covers instead of for the whole canvas.
+   */
+  static class Editor implements ImageEditor {
+
+    private final TiledRGBAImage image;
+    private final int[][] tiles;
+    private final boolean[] copied;
+    private boolean finished;
+
+    private Editor(TiledRGBAImage source) {
+      int tileCount = ((source.height + TILE_SIZE - 1) / TILE_SIZE) * source.tileCols;
+
+      this.tiles = source.tiles == null ? new int[tileCount][]
+              : Arrays.copyOf(source.tiles, tileCount);
+      this.copied = new boolean[tileCount];
+      this.image = new TiledRGBAImage(source.height, source.width, source.fill, this.tiles);
+    }
+
+    @Override
+    public Rectangle combine(Image that, int startY, int startX)
+            throws IllegalArgumentException, IllegalStateException {
+      return place(that, startY, startX, true);
+    }
+
+    @Override
+    public Rectangle copy(Image that, int startY, int startX)
+            throws IllegalArgumentException, IllegalStateException {
+      return place(that, startY, startX, false);
+    }
+
+    /*
+     * Places the given image onto the edited image, blending it with the pixels below it or
+     * replacing them.
+     */
+    private Rectangle place(Image that, int startY, int startX, boolean blend)
+            throws IllegalArgumentException, IllegalStateException {
+
+      if (this.finished) {
+        throw new IllegalStateException("Image can no longer be edited");
+      }
+
+      if (that == null) {
+        throw new IllegalArgumentException("Image that cannot be null");
+      }
+
+      int thatHeight = that.getHeight();
+      int thatWidth = that.getWidth();
+
+      if (startY < 0 || startY + thatHeight > this.image.height) {
+        throw new IllegalArgumentException("Invalid starting Y position or image height, image " +
+                "must be fully contained");
+      }
+
+      if (startX < 0 || startX + thatWidth > this.image.width) {
+        throw new IllegalArgumentException("Invalid starting X position or image width, image " +
+                "must be fully contained");
+      }
+
+      int[] above = new int[TILE_SIZE * TILE_SIZE];
+
+      for (int tileRow = startY / TILE_SIZE;
+           tileRow <= (startY + thatHeight - 1) / TILE_SIZE; tileRow++) {
+
+        for (int tileCol = startX / TILE_SIZE;
+             tileCol <= (startX + thatWidth - 1) / TILE_SIZE; tileCol++) {
+
+          int tileY = tileRow * TILE_SIZE;
+          int tileX = tileCol * TILE_SIZE;
+          int fromY = Math.max(startY, tileY);
+          int fromX = Math.max(startX, tileX);
+          int rows = Math.min(startY + thatHeight, tileY + TILE_SIZE) - fromY;
+          int cols = Math.min(startX + thatWidth, tileX + TILE_SIZE) - fromX;
+          int tileWidth = this.image.tileWidth(tileCol);
+          int[] tile = copyTile(tileRow, tileCol);
+
+          if (!blend) {
+            that.getARGBRegion(fromY - startY, fromX - startX, rows, cols, tile,
+                    (fromY - tileY) * tileWidth + fromX - tileX, tileWidth);
+            continue;
+          }
+
+          that.getARGBRegion(fromY - startY, fromX - startX, rows, cols, above, 0, cols);
+
+          for (int i = 0; i < rows; i++) {
+
+            int tileIndex = (fromY - tileY + i) * tileWidth + fromX - tileX;
+
+            PackedPixelLoops.get().combine(tile, tileIndex, above, i * cols, tile, tileIndex,
+                    cols);
+          }
+        }
+      }
+
+      return new Rectangle(startX, startY, thatWidth, thatHeight);
+    }
+
+    @Override
+    public Image getImage() {
+      return this.image;
+    }
+
+    @Override
+    public TiledRGBAImage snapshot() {
+      this.finished = true;
+
+      return this.image;
+    }
+
+    /*
+     * Gets the tile at the given position to be written, copying it the first time so that the
+     * images sharing it are not changed.
+     */
+    private int[] copyTile(int tileRow, int tileCol) {
+      int tile = tileRow * this.image.tileCols + tileCol;
+
+      if (!this.copied[tile]) {
+
+        if (this.tiles[tile] == null) {
+          this.tiles[tile] = new int[this.image.tileHeight(tileRow)
+                  * this.image.tileWidth(tileCol)];
+          Arrays.fill(this.tiles[tile], this.image.fill);
+        } else {
+          this.tiles[tile] = this.tiles[tile].clone();
+        }
+
+        this.copied[tile] = true;
+      }
+
+      return this.tiles[tile];
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package model;
+
+import java.awt.Rectangle;
+
+import model.utils.PackedPixelLoops;
+
+/**
+ * Edits a copy of an image that is written through an {@code ImageWriter}, so the copy is
+ * stored wherever the storage stores its images. The whole image is copied when the editor is
+ * created, and every operation works on bands of rows.
+ */
+class WriterImageEditor implements ImageEditor {
+
+  // The number of pixels that are read and written at a time
+  private static final int BAND_PIXELS = 1 << 16;
+
+  private final ImageWriter writer;
+  private final int height;
+  private final int width;
+  private boolean finished;
+
+  /**
+   * Creates an editor of a copy of the given image.
+   *
+   * @param image   is the image to edit a copy of.
+   * @param storage is where the pixels of the copy are stored.
+   */
+  WriterImageEditor(Image image, ImageStorage storage) {
+    this.height = image.getHeight();
+    this.width = image.getWidth();
+    this.writer = storage.createWriter(this.height, this.width);
+
+    int rows = Math.max(1, BAND_PIXELS / this.width);
+    int[] band = new int[Math.min(rows, this.height) * this.width];
+
+    for (int y = 0; y < this.height; y += rows) {
+
+      int bandRows = Math.min(rows, this.height - y);
+
+      image.getARGBRegion(y, 0, bandRows, this.width, band, 0, this.width);
+      this.writer.setARGBRegion(y, 0, bandRows, this.width, band, 0, this.width);
+    }
+  }
+
+  @Override
+  public Rectangle combine(Image that, int startY, int startX)
+          throws IllegalArgumentException, IllegalStateException {
+    return place(that, startY, startX, true);
+  }
+
+  @Override
+  public Rectangle copy(Image that, int startY, int startX)
+          throws IllegalArgumentException, IllegalStateException {
+    return place(that, startY, startX, false);
+  }
+
+  /*
+   * Places the given image onto the edited image, blending it with the pixels below it or
+   * replacing them.
+   */
+  private Rectangle place(Image that, int startY, int startX, boolean blend)
+          throws IllegalArgumentException, IllegalStateException {
+
+    if (this.finished) {
+      throw new IllegalStateException("Image can no longer be edited");
+    }
+
+    if (that == null) {
+      throw new IllegalArgumentException("Image that cannot be null");
+    }
+
+    int thatHeight = that.getHeight();
+    int thatWidth = that.getWidth();
+
+    if (startY < 0 || startY + thatHeight > this.height) {
+      throw new IllegalArgumentException("Invalid starting Y position or image height, image " +
+              "must be fully contained");
+    }
+
+    if (startX < 0 || startX + thatWidth > this.width) {
+      throw new IllegalArgumentException("Invalid starting X position or image width, image " +
+              "must be fully contained");
+    }
+
+    Image edited = this.writer.getImage();
+    int rows = Math.max(1, BAND_PIXELS / thatWidth);
+    int[] below = new int[Math.min(rows, thatHeight) * thatWidth];
+    int[] above = new int[below.length];
+
+    for (int y = 0; y < thatHeight; y += rows) {
+
+      int bandRows = Math.min(rows, thatHeight - y);
+
+      that.getARGBRegion(y, 0, bandRows, thatWidth, above, 0, thatWidth);
+
+      if (blend) {
+        edited.getARGBRegion(startY + y, startX, bandRows, thatWidth, below, 0, thatWidth);
+
+        PackedPixelLoops.get().combine(below, 0, above, 0, above, 0, bandRows * thatWidth);
+      }
+
+      this.writer.setARGBRegion(startY + y, startX, bandRows, thatWidth, above, 0, thatWidth);
+    }
+
+    return new Rectangle(startX, startY, thatWidth, thatHeight);
+  }
+
+  @Override
+  public Image getImage() {
+    return this.writer.getImage();
+  }
+
+  @Override
+  public Image snapshot() {
+    this.finished = true;
+
+    return this.writer.getImage();
+  }
+}
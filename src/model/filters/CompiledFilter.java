@@ -0,0 +1,28 @@
+package model.filters;
+
+/**
+ * Defines a filter that can be compiled to a {@code PixelKernel}, which works on each pixel on its
+ * own. Images that store their pixels outside of an array can use the kernel on a part of the
+ * image at a time instead of applying the filter to the whole image.
+ */
+public interface CompiledFilter extends Filter {
+
+  /**
+   * Gets the compiled kernel of this filter, which gives exactly the same pixels as
+   * {@code apply}.
+   *
+   * @return the kernel, or null if this filter has no compiled kernel.
+   */
+  PixelKernel getKernel();
+
+  /**
+   * Gets the compiled kernel of this filter as a {@code TwoFilter}, which gives exactly the same
+   * pixels as {@code TwoFilter.apply}.
+   *
+   * @return the kernel, or null if this filter is not a {@code TwoFilter} or has no compiled
+   *         kernel as one.
+   */
+  default TwoPixelKernel getTwoKernel() {
+    return null;
+  }
+}
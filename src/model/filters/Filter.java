@@ -16,4 +16,15 @@ public interface Filter {
    *                                  pixel in the image is null.
    */
   Image apply(Image img) throws IllegalArgumentException;
+
+  /**
+   * Determines if this filter keeps fully transparent pixels fully transparent when it is applied
+   * to a single image, so that combining a fully transparent pixel after filtering it does not
+   * change the pixel below it.
+   *
+   * @return true if this filter keeps fully transparent pixels fully transparent.
+   */
+  default boolean keepsTransparent() {
+    return false;
+  }
 }
@@ -1,5 +1,8 @@
 package model.filters;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import static model.filters.FilterType.ONE;
 import static model.filters.FilterType.TWO;
 
@@ -23,6 +26,13 @@ public enum FilterName {
   SCREEN("brighten_screen", new RGBAScreen(), TWO),
   DIFFERENCE("inversion_difference", new RGBADifference(), TWO);
 
+  private static final Map<String, FilterName> BY_NAME = new HashMap<>();
+
+  static {
+    for (FilterName filter : values()) {
+      BY_NAME.put(filter.name, filter);
+    }
+  }
 
   private final String name;
   private final Filter filter;
@@ -42,6 +52,31 @@ public enum FilterName {
     return this.filter;
   }
 
+  public FilterType getFilterType() {
+    return this.filterType;
+  }
+
+  /**
+   * Gets the filter with the given name, as returned by {@code getName}.
+   *
+   * @param name is the name of the filter.
+   * @return the filter with the given name, or null if no filter has that name.
+   */
+  public static FilterName fromName(String name) {
+    return BY_NAME.get(name);
+  }
+
+  /**
+   * Determines if this filter is a one image filter that keeps fully transparent pixels fully
+   * transparent, so that combining a fully transparent pixel after filtering it does not change
+   * the pixel below it, unless that pixel is itself fully transparent.
+   *
+   * @return true if this filter keeps fully transparent pixels fully transparent.
+   */
+  public boolean keepsTransparent() {
+    return this.filterType == ONE && this.filter.keepsTransparent();
+  }
+
   /**
    * If the filter is a {@code TwoFilter}, then return it.
    *
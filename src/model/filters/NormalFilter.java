@@ -15,4 +15,9 @@ public class NormalFilter implements Filter {
 
     return img;
   }
+
+  @Override
+  public boolean keepsTransparent() {
+    return true;
+  }
 }
@@ -0,0 +1,19 @@
+package model.filters;
+
+/**
+ * Defines a filter that has been compiled to work directly on an array of pixels packed as ARGB
+ * integers (see {@code PackedPixelUtil}), without going through images or computing anything
+ * that can be looked up in a table.
+ */
+@FunctionalInterface
+public interface PixelKernel {
+
+  /**
+   * Filters the pixels of the given array between the given indexes in place.
+   *
+   * @param pixels is the array of packed pixels to filter.
+   * @param from   is the index of the first pixel to filter.
+   * @param to     is the index after the last pixel to filter.
+   */
+  void apply(int[] pixels, int from, int to);
+}
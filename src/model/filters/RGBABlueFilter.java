@@ -1,7 +1,6 @@
 package model.filters;
 
-import model.Pixel;
-import model.RGBAPixel;
+import model.utils.PackedPixelUtil;
 
 /**
  * Defines a filter that only displays the blue hue of the original image. This filter uses
@@ -10,9 +9,12 @@ import model.RGBAPixel;
 public class RGBABlueFilter extends RGBAColorFilter {
 
   @Override
-  protected Pixel createResultPixel(Pixel pixel) {
-    int[] pixelData = pixel.asRGBA();
+  protected int createResultPixel(int pixel) {
+    return PackedPixelUtil.pack(0, 0, PackedPixelUtil.blue(pixel), PackedPixelUtil.alpha(pixel));
+  }
 
-    return new RGBAPixel(0, 0, pixelData[2], pixelData[3], pixel.getMax());
+  @Override
+  protected PixelKernel compile() {
+    return channelKernel(removeChannel(), removeChannel(), keepChannel());
   }
 }
@@ -1,7 +1,7 @@
 package model.filters;
 
-import model.Pixel;
-import model.RGBAPixel;
+import model.utils.PackedPixelLoops;
+import model.utils.PackedPixelUtil;
 
 /**
  * Defines a type of filter that either brightens or darkens an image by adding a value to it.
@@ -9,15 +9,26 @@ import model.RGBAPixel;
  */
 public abstract class RGBABrightenDarken extends RGBAColorFilter {
 
+  // A value plus a difference, offset by MAX, is clamped between MIN and MAX by looking it up
+  private static final int[] CLAMP = new int[3 * MAX + 1];
+
+  static {
+    for (int i = 0; i < CLAMP.length; i++) {
+      CLAMP[i] = Math.min(Math.max(i - MAX, MIN), MAX);
+    }
+  }
+
   @Override
-  protected Pixel createResultPixel(Pixel pixel) {
-    int[] pixelData = pixel.asRGBA();
+  protected int createResultPixel(int pixel) {
+    int red = PackedPixelUtil.red(pixel);
+    int green = PackedPixelUtil.green(pixel);
+    int blue = PackedPixelUtil.blue(pixel);
 
-    int difference = createDifference(pixelData[0], pixelData[1], pixelData[2]);
+    int difference = createDifference(red, green, blue);
 
-    int newRed = pixelData[0] + difference;
-    int newGreen = pixelData[1] + difference;
-    int newBlue = pixelData[2] + difference;
+    int newRed = red + difference;
+    int newGreen = green + difference;
+    int newBlue = blue + difference;
 
     if (newRed > MAX) {
       newRed = MAX;
@@ -37,7 +48,7 @@ public abstract class RGBABrightenDarken extends RGBAColorFilter {
       newBlue = MIN;
     }
 
-    return new RGBAPixel(newRed, newGreen, newBlue, pixelData[3], pixel.getMax());
+    return PackedPixelUtil.pack(newRed, newGreen, newBlue, PackedPixelUtil.alpha(pixel));
   }
 
   /**
@@ -53,4 +64,72 @@ public abstract class RGBABrightenDarken extends RGBAColorFilter {
    * @return is the difference to brighten or darken the image.
    */
   protected abstract int createDifference(int red, int green, int blue);
+
+  /**
+   * Creates a kernel whose difference is the average intensity of each pixel, which is run by
+   * {@code PackedPixelLoops}.
+   *
+   * @param sign is 1 to brighten the image and -1 to darken it.
+   * @return the kernel.
+   */
+  protected static PixelKernel intensityKernel(int sign) {
+    PackedPixelLoops loops = PackedPixelLoops.get();
+
+    return (pixels, from, to) -> loops.addIntensity(pixels, from, to, sign);
+  }
+
+  /**
+   * Creates a kernel whose difference is the weighted luma of each pixel. The weighted color
+   * values are looked up, and added in the same order as {@code createDifference}, so the sums
+   * are exactly the same.
+   *
+   * @param sign is 1 to brighten the image and -1 to darken it.
+   * @return the kernel.
+   */
+  protected static PixelKernel lumaKernel(int sign) {
+    double[] redWeights = new double[MAX + 1];
+    double[] greenWeights = new double[MAX + 1];
+    double[] blueWeights = new double[MAX + 1];
+
+    for (int i = MIN; i <= MAX; i++) {
+      redWeights[i] = i * .2126;
+      greenWeights[i] = i * .7152;
+      blueWeights[i] = i * .0722;
+    }
+
+    return (pixels, from, to) -> {
+      for (int i = from; i < to; i++) {
+        int pixel = pixels[i];
+        int red = (pixel >> 16) & 0xFF;
+        int green = (pixel >> 8) & 0xFF;
+        int blue = pixel & 0xFF;
+        int luma = (int) Math.round(redWeights[red] + greenWeights[green] + blueWeights[blue]);
+
+        pixels[i] = addDifference(pixel, red, green, blue, sign * luma);
+      }
+    };
+  }
+
+  /**
+   * Creates a kernel whose difference is the largest color value of each pixel, which is run by
+   * {@code PackedPixelLoops}.
+   *
+   * @param sign is 1 to brighten the image and -1 to darken it.
+   * @return the kernel.
+   */
+  protected static PixelKernel maxKernel(int sign) {
+    PackedPixelLoops loops = PackedPixelLoops.get();
+
+    return (pixels, from, to) -> loops.addMax(pixels, from, to, sign);
+  }
+
+  /*
+   * Adds the difference to each color value of the pixel and clamps them, keeping the opacity.
+   */
+  private static int addDifference(int pixel, int red, int green, int blue, int difference) {
+    int offset = MAX + difference;
+
+    return (pixel & 0xFF000000) | CLAMP[red + offset] << 16 | CLAMP[green + offset] << 8
+            | CLAMP[blue + offset];
+  }
 }
@@ -10,4 +10,9 @@ public class RGBABrightenIntensity extends RGBABrightenDarken {
   protected int createDifference(int red, int green, int blue) {
     return (int) Math.round((red + green + blue) / 3.0);
   }
-}
\ No newline at end of file
+
+  @Override
+  protected PixelKernel compile() {
+    return intensityKernel(1);
+  }
+}
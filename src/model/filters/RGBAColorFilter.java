@@ -1,17 +1,23 @@
 package model.filters;
 
 import model.Image;
-import model.Pixel;
-import model.RGBALayerImage;
+import model.PackedRGBAImage;
+import model.utils.PackedPixelLoops;
 
 /**
- * Defines a filter that uses {@code RGBAPixel}s.
+ * Defines a filter that uses {@code RGBAPixel}s. Filters can compile themselves to a
+ * {@code PixelKernel} that uses lookup tables, which is then used instead of filtering each pixel
+ * with {@code createResultPixel}.
  */
-public abstract class RGBAColorFilter implements Filter {
+public abstract class RGBAColorFilter implements CompiledFilter {
 
   protected final static int MIN = 0;
   protected final static int MAX = 255;
 
+  // Filters are shared between threads, which might each compile the same kernel the first time
+  private volatile PixelKernel kernel;
+  private volatile boolean compiled;
+
   /**
    * Applies the certain filter to the given {@code Image} and returns a new image with that
    * filter applied to it.
@@ -25,30 +31,148 @@ public abstract class RGBAColorFilter implements Filter {
       throw new IllegalArgumentException("Image cannot be null");
     }
 
-    Pixel[][] pixels = img.getPixels();
-    Pixel[][] resultPixels = new Pixel[pixels.length][pixels[0].length];
+    int[] pixels = img.getARGBPixels();
+    PixelKernel kernel = getKernel();
 
-    for (int i = 0; i < pixels.length; i++) {
+    if (kernel == null) {
+      kernel = getUncompiledKernel();
+    }
 
-      for (int j = 0; j < pixels[i].length; j++) {
+    kernel.apply(pixels, 0, pixels.length);
 
-        if (pixels[i][j] == null) {
-          throw new IllegalArgumentException("One or more pixels in the image do not exist");
-        }
+    return new PackedRGBAImage(img.getHeight(), img.getWidth(), pixels);
+  }
 
-        resultPixels[i][j] = createResultPixel(pixels[i][j]);
+  /**
+   * Determines if this filter keeps fully transparent pixels fully transparent. Filters of one
+   * image only change the color of each pixel and keep its opacity.
+   *
+   * @return true, since the opacity of each pixel is kept.
+   */
+  @Override
+  public boolean keepsTransparent() {
+    return true;
+  }
+
+  @Override
+  public PixelKernel getKernel() {
+    if (!this.compiled) {
+      this.kernel = compile();
+      this.compiled = true;
+    }
+
+    return this.kernel;
+  }
+
+  /**
+   * Gets a kernel that filters each pixel on its own with {@code createResultPixel}, which is what
+   * this filter does when it has no compiled kernel. It gives exactly the same pixels as the
+   * compiled kernel, so the two can be compared.
+   *
+   * @return the kernel that filters each pixel on its own.
+   */
+  public PixelKernel getUncompiledKernel() {
+    return (pixels, from, to) -> {
+      for (int i = from; i < to; i++) {
+        pixels[i] = createResultPixel(pixels[i]);
       }
+    };
+  }
+
+  /**
+   * Compiles this filter to a kernel that gives exactly the same pixels as
+   * {@code createResultPixel}. Filters that are not compiled filter each pixel with
+   * {@code createResultPixel}.
+   *
+   * @return the compiled kernel, or null if this filter has no compiled kernel.
+   */
+  protected PixelKernel compile() {
+    return null;
+  }
+
+  /**
+   * Creates a kernel that looks up each color channel of a pixel in its own table, keeping the
+   * opacity of the pixel.
+   *
+   * @param red   is the new red value for each red value.
+   * @param green is the new green value for each green value.
+   * @param blue  is the new blue value for each blue value.
+   * @return the kernel that uses the tables.
+   */
+  protected static PixelKernel channelKernel(int[] red, int[] green, int[] blue) {
+
+    // Tables that only keep or remove channels are the same as masking the pixel, which is faster
+    if (isMask(red) && isMask(green) && isMask(blue)) {
+      int mask = 0xFF000000 | (red[MAX] << 16) | (green[MAX] << 8) | blue[MAX];
+      PackedPixelLoops loops = PackedPixelLoops.get();
+
+      return (pixels, from, to) -> loops.mask(pixels, from, to, mask);
+    }
+
+    int[] redTable = new int[MAX + 1];
+    int[] greenTable = new int[MAX + 1];
+    int[] blueTable = new int[MAX + 1];
+
+    // The values are shifted into place ahead of time, so a pixel is packed with two ORs
+    for (int i = MIN; i <= MAX; i++) {
+      redTable[i] = red[i] << 16;
+      greenTable[i] = green[i] << 8;
+      blueTable[i] = blue[i];
     }
 
-    return new RGBALayerImage(resultPixels);
+    return (pixels, from, to) -> {
+      for (int i = from; i < to; i++) {
+        int pixel = pixels[i];
+        pixels[i] = (pixel & 0xFF000000) | redTable[(pixel >> 16) & 0xFF]
+                | greenTable[(pixel >> 8) & 0xFF] | blueTable[pixel & 0xFF];
+      }
+    };
+  }
+
+  /*
+   * Determines if the table either keeps or removes every value of a channel.
+   */
+  private static boolean isMask(int[] table) {
+    for (int i = MIN; i <= MAX; i++) {
+
+      if (table[i] != (table[MAX] == MAX ? i : 0)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Creates a table for {@code channelKernel} that keeps each value of a channel.
+   *
+   * @return the table.
+   */
+  protected static int[] keepChannel() {
+    int[] table = new int[MAX + 1];
+
+    for (int i = MIN; i <= MAX; i++) {
+      table[i] = i;
+    }
+
+    return table;
+  }
+
+  /**
+   * Creates a table for {@code channelKernel} that removes a channel.
+   *
+   * @return the table.
+   */
+  protected static int[] removeChannel() {
+    return new int[MAX + 1];
   }
 
   /**
-   * Creates the filtered pixel to add to the image given the original pixel.
-   * The resulting pixel must have a 255 maximum amount for the values.
+   * Creates the filtered pixel to add to the image given the original pixel. Both pixels are
+   * packed as ARGB integers (see {@code PackedPixelUtil}).
    *
-   * @param pixel is the pixel to be filtered.
-   * @return the {@code Pixel} to add to the image (max 255).
+   * @param pixel is the packed pixel to be filtered.
+   * @return the packed pixel to add to the image.
    */
-  protected abstract Pixel createResultPixel(Pixel pixel);
+  protected abstract int createResultPixel(int pixel);
 }
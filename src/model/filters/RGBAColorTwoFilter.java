@@ -1,9 +1,8 @@
 package model.filters;
 
 import model.Image;
-import model.Pixel;
-import model.RGBALayerImage;
-import model.RGBAPixel;
+import model.PackedRGBAImage;
+import model.utils.PackedPixelUtil;
 
 /**
  * Defines a general {@code TwoFilter} that can be applied with two images. This uses
@@ -11,6 +10,9 @@ import model.RGBAPixel;
  */
 public abstract class RGBAColorTwoFilter extends RGBAColorFilter implements TwoFilter {
 
+  // The number of pixels of the second image that are read at a time
+  private static final int BAND_PIXELS = 1 << 16;
+
   /**
    * Applies the filter given the images to use in the filter.
    *
@@ -32,29 +34,87 @@ public abstract class RGBAColorTwoFilter extends RGBAColorFilter implements TwoF
       throw new IllegalArgumentException("Images must be same size");
     }
 
-    Pixel[][] pixels1 = img1.getPixels();
-    Pixel[][] pixels2 = img2.getPixels();
-    Pixel[][] resultPixels = new Pixel[img1.getHeight()][img1.getWidth()];
+    int height = img1.getHeight();
+    int width = img1.getWidth();
 
-    for (int i = 0; i < img1.getHeight(); i++) {
+    // The copy of the first image becomes the result, and the second image is only read a band of
+    // rows at a time
+    int[] pixels1 = img1.getARGBPixels();
+    int rows = Math.max(1, BAND_PIXELS / width);
+    int[] pixels2 = new int[Math.min(rows, height) * width];
 
-      for (int j = 0; j < img1.getWidth(); j++) {
+    for (int y = 0; y < height; y += rows) {
 
-        if (pixels1[i][j] == null || pixels2[i][j] == null) {
-          throw new IllegalArgumentException("Pixels in images cannot be null");
-        }
+      int bandRows = Math.min(rows, height - y);
+      int offset = y * width;
 
-        resultPixels[i][j] = createResultPixel(pixels1[i][j], pixels2[i][j]);
-      }
+      img2.getARGBRegion(y, 0, bandRows, width, pixels2, 0, width);
+      createResultPixels(pixels1, offset, pixels2, 0, bandRows * width);
     }
 
-    return new RGBALayerImage(resultPixels);
+    return new PackedRGBAImage(height, width, pixels1);
   }
 
   @Override
-  protected Pixel createResultPixel(Pixel pixel) {
-    return createResultPixel(pixel, new RGBAPixel(255, 255, 255, 0, 255));
+  protected int createResultPixel(int pixel) {
+    return createResultPixel(pixel, PackedPixelUtil.TRANSPARENT);
+  }
+
+  /**
+   * Compiles this filter, applied to a single image, to a kernel that filters each pixel over a
+   * fully transparent pixel with {@code createResultPixel}.
+   *
+   * @return the kernel that filters each pixel over a fully transparent pixel.
+   */
+  @Override
+  protected PixelKernel compile() {
+    return (pixels, from, to) -> {
+      for (int i = from; i < to; i++) {
+        pixels[i] = createResultPixel(pixels[i], PackedPixelUtil.TRANSPARENT);
+      }
+    };
   }
 
-  protected abstract Pixel createResultPixel(Pixel pixel1, Pixel pixel2);
+  /**
+   * Determines if this filter keeps fully transparent pixels fully transparent. The result of
+   * these filters depends on the pixel below, so none of them are said to keep them.
+   *
+   * @return false, since the result depends on the pixel below.
+   */
+  @Override
+  public boolean keepsTransparent() {
+    return false;
+  }
+
+  @Override
+  public TwoPixelKernel getTwoKernel() {
+    return this::createResultPixels;
+  }
+
+  /**
+   * Replaces the pixels of the first image with the filtered pixels, given the pixels at the same
+   * positions of the second image, the same as {@code createResultPixel} for each pixel.
+   *
+   * @param pixels1 is the array of packed pixels from the first (top) image.
+   * @param offset1 is the index of the first pixel to filter in the first array.
+   * @param pixels2 is the array of packed pixels from the second (lower) image.
+   * @param offset2 is the index of the first pixel of the second image in the second array.
+   * @param length  is the number of pixels to filter.
+   */
+  protected void createResultPixels(int[] pixels1, int offset1, int[] pixels2, int offset2,
+                                    int length) {
+    for (int i = 0; i < length; i++) {
+      pixels1[offset1 + i] = createResultPixel(pixels1[offset1 + i], pixels2[offset2 + i]);
+    }
+  }
+
+  /**
+   * Creates the filtered pixel to add to the image given the pixels at the same position in both
+   * images. All pixels are packed as ARGB integers (see {@code PackedPixelUtil}).
+   *
+   * @param pixel1 is the packed pixel from the first (top) image.
+   * @param pixel2 is the packed pixel from the second (lower) image.
+   * @return the packed pixel to add to the image.
+   */
+  protected abstract int createResultPixel(int pixel1, int pixel2);
 }
@@ -10,4 +10,9 @@ public class RGBADarkenIntensity extends RGBABrightenDarken {
   protected int createDifference(int red, int green, int blue) {
     return -1 * ((int) Math.round((red + green + blue) / 3.0));
   }
+
+  @Override
+  protected PixelKernel compile() {
+    return intensityKernel(-1);
+  }
 }
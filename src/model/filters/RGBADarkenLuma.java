@@ -10,4 +10,9 @@ public class RGBADarkenLuma extends RGBABrightenDarken {
   protected int createDifference(int red, int green, int blue) {
     return -1 * ((int) Math.round(red * .2126 + green * .7152 + blue * .0722));
   }
+
+  @Override
+  protected PixelKernel compile() {
+    return lumaKernel(-1);
+  }
 }
@@ -10,4 +10,9 @@ public class RGBADarkenMax extends RGBABrightenDarken {
   protected int createDifference(int red, int green, int blue) {
     return -1 * Math.max(Math.max(red, green), blue);
   }
+
+  @Override
+  protected PixelKernel compile() {
+    return maxKernel(-1);
+  }
 }
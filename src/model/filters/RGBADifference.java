@@ -1,7 +1,7 @@
 package model.filters;
 
-import model.Pixel;
-import model.RGBAPixel;
+import model.utils.PackedPixelLoops;
+import model.utils.PackedPixelUtil;
 
 /**
  * Defines how the inversion difference filter creates new pixels. Subtracts the RGB values of the
@@ -11,15 +11,20 @@ import model.RGBAPixel;
 public class RGBADifference extends RGBAColorTwoFilter {
 
   @Override
-  protected Pixel createResultPixel(Pixel pixel1, Pixel pixel2) {
-    int[] rgba1 = pixel1.asRGB();
-    int[] rgba2 = pixel2.asRGBA();
+  protected int createResultPixel(int pixel1, int pixel2) {
+    int rgb1 = PackedPixelUtil.toRGB(pixel1);
 
-    int newRed = Math.abs(rgba1[0] - rgba2[0]);
-    int newGreen = Math.abs(rgba1[1] - rgba2[1]);
-    int newBlue = Math.abs(rgba1[2] - rgba2[2]);
+    int newRed = Math.abs(PackedPixelUtil.red(rgb1) - PackedPixelUtil.red(pixel2));
+    int newGreen = Math.abs(PackedPixelUtil.green(rgb1) - PackedPixelUtil.green(pixel2));
+    int newBlue = Math.abs(PackedPixelUtil.blue(rgb1) - PackedPixelUtil.blue(pixel2));
 
-    return new RGBAPixel(newRed, newGreen, newBlue, rgba2[3], 255);
+    return PackedPixelUtil.pack(newRed, newGreen, newBlue, PackedPixelUtil.alpha(pixel2));
+  }
+
+  @Override
+  protected void createResultPixels(int[] pixels1, int offset1, int[] pixels2, int offset2,
+                                    int length) {
+    PackedPixelLoops.get().difference(pixels1, offset1, pixels2, offset2, length);
   }
 
 }
@@ -1,7 +1,6 @@
 package model.filters;
 
-import model.Pixel;
-import model.RGBAPixel;
+import model.utils.PackedPixelUtil;
 
 /**
  * Defines a filter that only displays the green hue of the original image.
@@ -9,9 +8,12 @@ import model.RGBAPixel;
 public class RGBAGreenFilter extends RGBAColorFilter {
 
   @Override
-  protected Pixel createResultPixel(Pixel pixel) {
-    int[] pixelData = pixel.asRGBA();
+  protected int createResultPixel(int pixel) {
+    return PackedPixelUtil.pack(0, PackedPixelUtil.green(pixel), 0, PackedPixelUtil.alpha(pixel));
+  }
 
-    return new RGBAPixel(0, pixelData[1], 0, pixelData[3], pixel.getMax());
+  @Override
+  protected PixelKernel compile() {
+    return channelKernel(removeChannel(), keepChannel(), removeChannel());
   }
 }
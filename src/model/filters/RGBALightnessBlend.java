@@ -0,0 +1,112 @@
+package model.filters;
+
+/**
+ * Defines a filter that blends the lightness of the two images in their HSL form, keeping the hue
+ * and saturation of the lower image. The HSL conversions are the same as the ones in
+ * {@code RepresentationConverterUtil}, done step by step on primitives so that no arrays are
+ * created for each pixel, and give exactly the same pixels.
+ */
+public abstract class RGBALightnessBlend extends RGBAColorTwoFilter {
+
+  // Each color value as a fraction of 255, computed the same way as RepresentationConverterUtil
+  private static final double[] FRACTIONS = new double[MAX + 1];
+
+  // Each color value changed by each opacity, as done by PackedPixelUtil.toRGB
+  private static final byte[] OPAQUE = new byte[(MAX + 1) * (MAX + 1)];
+
+  static {
+    for (int i = MIN; i <= MAX; i++) {
+      double value = i;
+      FRACTIONS[i] = value / 255;
+    }
+
+    for (int alpha = MIN; alpha <= MAX; alpha++) {
+      double calcAlpha = alpha / 255.0;
+
+      for (int value = MIN; value <= MAX; value++) {
+        OPAQUE[alpha << 8 | value] = (byte) Math.round(value * calcAlpha);
+      }
+    }
+  }
+
+  @Override
+  protected final int createResultPixel(int pixel1, int pixel2) {
+
+    // Only the lightness of the top pixel is used, which is found from its largest and smallest
+    // color values once they are changed by its opacity
+    int opacity = (pixel1 >>> 24) << 8;
+    int max1 = Math.max(Math.max((pixel1 >> 16) & 0xFF, (pixel1 >> 8) & 0xFF), pixel1 & 0xFF);
+    int min1 = Math.min(Math.min((pixel1 >> 16) & 0xFF, (pixel1 >> 8) & 0xFF), pixel1 & 0xFF);
+    double lightness1 = (FRACTIONS[OPAQUE[opacity | max1] & 0xFF]
+            + FRACTIONS[OPAQUE[opacity | min1] & 0xFF]) / 2;
+
+    double r = FRACTIONS[(pixel2 >> 16) & 0xFF];
+    double g = FRACTIONS[(pixel2 >> 8) & 0xFF];
+    double b = FRACTIONS[pixel2 & 0xFF];
+
+    double componentMax = Math.max(r, Math.max(g, b));
+    double componentMin = Math.min(r, Math.min(g, b));
+    double delta = componentMax - componentMin;
+    double lightness2 = (componentMax + componentMin) / 2;
+
+    double lightness = blendLightness(lightness1, lightness2);
+    int alpha = pixel2 & 0xFF000000;
+
+    if (delta == 0) {
+      // Without saturation every color value is the lightness
+      int gray = (int) Math.round(lightness * 255);
+      return alpha | gray << 16 | gray << 8 | gray;
+    }
+
+    double saturation = delta / (1 - Math.abs(2 * lightness2 - 1));
+    double hue;
+
+    if (componentMax == r) {
+      hue = (g - b) / delta;
+
+      // The hue is above -1, so adding 6 once is the same as taking the modulus
+      if (hue < 0) {
+        hue += 6;
+      }
+    } else if (componentMax == g) {
+      hue = (b - r) / delta;
+      hue += 2;
+    } else {
+      hue = (r - g) / delta;
+      hue += 4;
+    }
+
+    hue = hue * 60;
+
+    double sector = hue / 30;
+    double a = saturation * Math.min(lightness, 1 - lightness);
+
+    return alpha | toValue(sector, lightness, a, 0) << 16 | toValue(sector, lightness, a, 8) << 8
+            | toValue(sector, lightness, a, 4);
+  }
+
+  /**
+   * Blends the lightness of the two pixels.
+   *
+   * @param lightness1 is the lightness of the pixel from the first (top) image.
+   * @param lightness2 is the lightness of the pixel from the second (lower) image.
+   * @return the lightness of the resulting pixel, between 0 and 1.
+   */
+  protected abstract double blendLightness(double lightness1, double lightness2);
+
+  /*
+   * Finds one color value of an HSL color, as done by RepresentationConverterUtil, given the hue
+   * divided by 30. The hue is below 360, so the value taken the modulus of is below 24 and
+   * subtracting 12 once is exact.
+   */
+  private static int toValue(double sector, double lightness, double a, int n) {
+    double k = n + sector;
+
+    if (k >= 12) {
+      k -= 12;
+    }
+
+    return (int) Math.round((lightness - a * Math.max(-1, Math.min(k - 3, Math.min(9 - k, 1))))
+            * 255);
+  }
+}
@@ -1,7 +1,6 @@
 package model.filters;
 
-import model.Pixel;
-import model.RGBAPixel;
+import model.utils.PackedPixelUtil;
 
 /**
  * Defines a filter that only displays the red hue of the original image.
@@ -9,9 +8,12 @@ import model.RGBAPixel;
 public class RGBARedFilter extends RGBAColorFilter {
 
   @Override
-  protected Pixel createResultPixel(Pixel pixel) {
-    int[] pixelData = pixel.asRGBA();
+  protected int createResultPixel(int pixel) {
+    return PackedPixelUtil.pack(PackedPixelUtil.red(pixel), 0, 0, PackedPixelUtil.alpha(pixel));
+  }
 
-    return new RGBAPixel(pixelData[0], 0, 0, pixelData[3], pixel.getMax());
+  @Override
+  protected PixelKernel compile() {
+    return channelKernel(keepChannel(), removeChannel(), removeChannel());
   }
 }
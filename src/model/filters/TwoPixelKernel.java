@@ -0,0 +1,21 @@
+package model.filters;
+
+/**
+ * Defines a {@code TwoFilter} that has been compiled to work directly on arrays of pixels packed
+ * as ARGB integers (see {@code PackedPixelUtil}), replacing the pixels of the first image with the
+ * filtered pixels given the pixels at the same positions of the second image.
+ */
+@FunctionalInterface
+public interface TwoPixelKernel {
+
+  /**
+   * Filters the pixels of the first array in place, given the pixels of the second array.
+   *
+   * @param pixels1 is the array of packed pixels from the first (top) image.
+   * @param offset1 is the index of the first pixel to filter in the first array.
+   * @param pixels2 is the array of packed pixels from the second (lower) image.
+   * @param offset2 is the index of the first pixel of the second image in the second array.
+   * @param length  is the number of pixels to filter.
+   */
+  void apply(int[] pixels1, int offset1, int[] pixels2, int offset2, int length);
+}
@@ -0,0 +1,295 @@
+package model.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import model.Image;
+import model.PackedRGBAImage;
+
+/**
+ * Decodes images in the plain (P3) and binary (P6) PPM formats straight from a stream of bytes.
+ * The format is chosen by the magic number at the start of the stream. The values are parsed as
+ * the bytes are read and are packed directly into the pixels of the image, so the file is never
+ * held in memory as text. Comments start with '#' and run to the end of the line, and can appear
+ * anywhere whitespace can in the header, and anywhere in the values of a plain PPM.
+ */
+public class PPMDecoder {
+
+  private static final int BUFFER_SIZE = 1 << 16;
+  private static final int MAX_BINARY_VALUE = 65535;
+
+  private final InputStream in;
+  private final byte[] buffer;
+  private int position;
+  private int limit;
+  private boolean binary;
+  private int height;
+  private int width;
+  private int maxValue;
+
+  private PPMDecoder(InputStream in) {
+    this.in = in;
+    this.buffer = new byte[BUFFER_SIZE];
+    this.position = 0;
+    this.limit = 0;
+  }
+
+  /**
+   * Decodes a plain or binary PPM image from the given stream, which is not closed. The pixels of
+   * a plain PPM are converted the same way that the {@code Collager} converts the contents of a PPM
+   * file, so plain images read the same as they always have. The values of a binary PPM are one
+   * byte each if the maximum value is less than 256 and two bytes each (most significant first)
+   * otherwise, and are scaled linearly to the range 0-255, so a 16-bit image written from 8-bit
+   * values reads back exactly.
+   *
+   * <p>The two formats only decode the same image to the same pixels if its maximum value is 255.
+   * Otherwise the conversion of plain values, which multiplies each value by the maximum value
+   * and divides it by 255, does not give the intended colors, but is kept so that existing plain
+   * images and projects do not change.
+   *
+   * @param in is the stream to read the image from.
+   * @return the decoded image.
+   * @throws IllegalArgumentException if the stream is null, or if its contents are not a valid
+   *                                  plain or binary PPM image.
+   * @throws IOException              if the stream cannot be read.
+   */
+  public static Image decode(InputStream in) throws IllegalArgumentException, IOException {
+    if (in == null) {
+      throw new IllegalArgumentException("Input stream cannot be null");
+    }
+
+    PPMDecoder decoder = new PPMDecoder(in);
+    decoder.readHeader();
+
+    int[] pixels = new int[decoder.height * decoder.width];
+
+    if (decoder.binary) {
+      decoder.readBinary(pixels, decoder.maxValue);
+    } else {
+      decoder.readPlain(pixels, decoder.maxValue);
+    }
+
+    return new PackedRGBAImage(decoder.height, decoder.width, pixels);
+  }
+
+  /**
+   * Reads only the header of a plain or binary PPM image from the given stream, which is not
+   * closed, to find the size of the image without decoding its pixels. Every pixel of a PPM image
+   * is fully opaque.
+   *
+   * @param in is the stream to read the header from.
+   * @return the height and width of the image, in that order.
+   * @throws IllegalArgumentException if the stream is null, or if its header is not a valid plain
+   *                                  or binary PPM header.
+   * @throws IOException              if the stream cannot be read.
+   */
+  public static int[] decodeSize(InputStream in) throws IllegalArgumentException, IOException {
+    if (in == null) {
+      throw new IllegalArgumentException("Input stream cannot be null");
+    }
+
+    PPMDecoder decoder = new PPMDecoder(in);
+    decoder.readHeader();
+
+    return new int[] {decoder.height, decoder.width};
+  }
+
+  private void readHeader() throws IOException {
+    String magicNumber = nextMagicNumber();
+    this.binary = magicNumber.equals("P6");
+
+    if (!this.binary && !magicNumber.equals("P3")) {
+      throw new IllegalArgumentException("Invalid PPM file: plain RAW file should begin with P3");
+    }
+
+    this.width = nextInt();
+    this.height = nextInt();
+    this.maxValue = nextInt();
+
+    if ((long) this.width * this.height > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Invalid PPM file: image is too large");
+    }
+
+    if (this.height < 1 || this.width < 1) {
+      throw new IllegalArgumentException("Invalid PPM file: height and width must be at least 1");
+    }
+  }
+
+  /*
+   * Reads the values of a plain PPM, converting them the same way that the Collager converts the
+   * contents of a PPM file instead of scaling them linearly like the values of a binary PPM.
+   */
+  private void readPlain(int[] pixels, int maxValue) throws IOException {
+    for (int i = 0; i < pixels.length; i++) {
+
+      int r = nextInt();
+      int g = nextInt();
+      int b = nextInt();
+      pixels[i] = PackedPixelUtil.packOpaque(r, g, b, maxValue);
+    }
+  }
+
+  private void readBinary(int[] pixels, int maxValue) throws IOException {
+    if (maxValue < 1 || maxValue > MAX_BINARY_VALUE) {
+      throw new IllegalArgumentException("Invalid PPM file: maximum value must be between 1 and "
+              + MAX_BINARY_VALUE);
+    }
+
+    // A single whitespace character separates the header from the values
+    if (!isWhitespace(read())) {
+      throw new IllegalArgumentException("Invalid PPM file: expected whitespace after the header");
+    }
+
+    boolean wide = maxValue > 255;
+
+    for (int i = 0; i < pixels.length; i++) {
+
+      int r = nextSample(wide, maxValue);
+      int g = nextSample(wide, maxValue);
+      int b = nextSample(wide, maxValue);
+      pixels[i] = PackedPixelUtil.pack(r, g, b, 255);
+    }
+  }
+
+  /*
+   * Reads the next one or two byte value of a binary PPM and scales it to the range 0-255.
+   */
+  private int nextSample(boolean wide, int maxValue) throws IOException {
+    int value = read();
+
+    if (wide && value != -1) {
+      int low = read();
+      value = low == -1 ? -1 : value << 8 | low;
+    }
+
+    if (value == -1) {
+      throw new IllegalArgumentException("Invalid PPM file: file ended before the image did");
+    }
+
+    if (value > maxValue) {
+      throw new IllegalArgumentException("Invalid PPM file: value is greater than the maximum");
+    }
+
+    return maxValue == 255 ? value : (int) Math.round(value * 255.0 / maxValue);
+  }
+
+  /*
+   * Reads the magic number at the start of the stream, or returns an empty String if the stream
+   * does not start with a two character token.
+   */
+  private String nextMagicNumber() throws IOException {
+    skipWhitespace();
+
+    int first = read();
+    int second = read();
+
+    if (first == -1 || second == -1 || !isSeparator(peek())) {
+      return "";
+    }
+
+    return "" + (char) first + (char) second;
+  }
+
+  /*
+   * Reads the next non-negative integer of the stream.
+   */
+  private int nextInt() throws IOException, IllegalArgumentException {
+    skipWhitespace();
+
+    int c = read();
+
+    if (c == -1) {
+      throw new IllegalArgumentException("Invalid PPM file: file ended before the image did");
+    }
+
+    if (c < '0' || c > '9') {
+      throw new IllegalArgumentException("Invalid PPM file: expected a non-negative number");
+    }
+
+    long value = c - '0';
+
+    while (this.position < this.limit || fill()) {
+
+      c = this.buffer[this.position];
+
+      if (c < '0' || c > '9') {
+        break;
+      }
+
+      value = value * 10 + (c - '0');
+      this.position++;
+
+      if (value > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("Invalid PPM file: number is too large");
+      }
+    }
+
+    if (!isSeparator(peek())) {
+      throw new IllegalArgumentException("Invalid PPM file: expected a non-negative number");
+    }
+
+    return (int) value;
+  }
+
+  /*
+   * Skips over any whitespace and comments.
+   */
+  private void skipWhitespace() throws IOException {
+    int c = peek();
+
+    while (c != -1) {
+
+      if (c == '#') {
+        while (c != -1 && c != '\n' && c != '\r') {
+          read();
+          c = peek();
+        }
+      } else if (isWhitespace(c)) {
+        read();
+        c = peek();
+      } else {
+        return;
+      }
+    }
+  }
+
+  private int peek() throws IOException {
+    if (this.position < this.limit || fill()) {
+      return this.buffer[this.position] & 0xff;
+    }
+
+    return -1;
+  }
+
+  private int read() throws IOException {
+    if (this.position < this.limit || fill()) {
+      return this.buffer[this.position++] & 0xff;
+    }
+
+    return -1;
+  }
+
+  /*
+   * Refills the buffer from the stream, returning false if the stream has ended.
+   */
+  private boolean fill() throws IOException {
+    int read = this.in.read(this.buffer, 0, this.buffer.length);
+
+    while (read == 0) {
+      read = this.in.read(this.buffer, 0, this.buffer.length);
+    }
+
+    this.position = 0;
+    this.limit = Math.max(read, 0);
+
+    return read > 0;
+  }
+
+  private static boolean isSeparator(int c) {
+    return c == -1 || c == '#' || isWhitespace(c);
+  }
+
+  private static boolean isWhitespace(int c) {
+    return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f' || c == 0x0B;
+  }
+}
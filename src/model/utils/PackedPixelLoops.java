@@ -0,0 +1,182 @@
+package model.utils;
+
+/**
+ * Runs the loops over arrays of packed pixels (see {@code PackedPixelUtil}) that are the innermost
+ * loops of compositing and filtering. Every loop gives exactly the same pixels as the methods of
+ * {@code PackedPixelUtil} and the filters that they replace.
+ *
+ * <p>This class runs the loops one pixel at a time. The loops that are used are chosen once, when
+ * this class is loaded, by the system property {@code collager.loops}. Setting it to
+ * {@code vector} uses {@code VectorPackedPixelLoops} from the {@code vector} source folder
+ * instead, which runs the loops on several pixels at a time with the incubating Java Vector API.
+ * That needs the {@code jdk.incubator.vector} module, added with
+ * {@code --add-modules jdk.incubator.vector} when compiling and running. If the module or the
+ * class is missing, these loops are used instead.
+ */
+public class PackedPixelLoops {
+
+  /**
+   * The system property that chooses the loops, either {@code scalar} or {@code vector}.
+   */
+  public static final String PROPERTY = "collager.loops";
+
+  private static final int MAX = 255;
+  private static final PackedPixelLoops LOOPS = choose(System.getProperty(PROPERTY, "scalar"));
+
+  /**
+   * Creates the loops that run one pixel at a time. Use {@code get} for the loops that were chosen.
+   */
+  protected PackedPixelLoops() {
+    // Only subclasses and choose create loops
+  }
+
+  /**
+   * Gets the loops that were chosen when this class was loaded.
+   *
+   * @return the loops.
+   */
+  public static PackedPixelLoops get() {
+    return LOOPS;
+  }
+
+  /**
+   * Gets the name of these loops, which is the value of {@code collager.loops} that chooses them.
+   *
+   * @return the name of the loops.
+   */
+  public String getName() {
+    return "scalar";
+  }
+
+  /**
+   * Combines each pixel of the top array over the pixel at the same position of the bottom array,
+   * the same as {@code PackedPixelUtil.combine}, and puts the result in the result array. The
+   * result array can be either of the other arrays, at the same offset.
+   *
+   * @param bottom       is the array of pixels underneath.
+   * @param bottomOffset is the index of the first pixel underneath.
+   * @param top          is the array of pixels placed on top.
+   * @param topOffset    is the index of the first pixel placed on top.
+   * @param result       is the array to put the combined pixels in.
+   * @param resultOffset is the index to put the first combined pixel at.
+   * @param length       is the number of pixels to combine.
+   */
+  public void combine(int[] bottom, int bottomOffset, int[] top, int topOffset, int[] result,
+                      int resultOffset, int length) {
+
+    for (int i = 0; i < length; i++) {
+      result[resultOffset + i] = PackedPixelUtil.combine(bottom[bottomOffset + i],
+              top[topOffset + i]);
+    }
+  }
+
+  /**
+   * Keeps only the bits of each pixel that are set in the mask, which removes whole channels.
+   *
+   * @param pixels is the array of pixels to mask in place.
+   * @param from   is the index of the first pixel to mask.
+   * @param to     is the index after the last pixel to mask.
+   * @param mask   is the bits to keep.
+   */
+  public void mask(int[] pixels, int from, int to, int mask) {
+    for (int i = from; i < to; i++) {
+      pixels[i] &= mask;
+    }
+  }
+
+  /**
+   * Adds the average of the color values of each pixel to its color values, rounded, and clamps
+   * them between 0 and 255, keeping its opacity. This is the kernel of the intensity filters.
+   *
+   * @param pixels is the array of pixels to change in place.
+   * @param from   is the index of the first pixel to change.
+   * @param to     is the index after the last pixel to change.
+   * @param sign   is 1 to brighten the pixels and -1 to darken them.
+   */
+  public void addIntensity(int[] pixels, int from, int to, int sign) {
+    for (int i = from; i < to; i++) {
+      int pixel = pixels[i];
+      int red = (pixel >> 16) & 0xFF;
+      int green = (pixel >> 8) & 0xFF;
+      int blue = pixel & 0xFF;
+
+      // A sum over 3 is never halfway between two integers, so rounding it is adding 1 first
+      pixels[i] = addDifference(pixel, red, green, blue, sign * ((red + green + blue + 1) / 3));
+    }
+  }
+
+  /**
+   * Adds the largest color value of each pixel to its color values and clamps them between 0 and
+   * 255, keeping its opacity. This is the kernel of the max filters.
+   *
+   * @param pixels is the array of pixels to change in place.
+   * @param from   is the index of the first pixel to change.
+   * @param to     is the index after the last pixel to change.
+   * @param sign   is 1 to brighten the pixels and -1 to darken them.
+   */
+  public void addMax(int[] pixels, int from, int to, int sign) {
+    for (int i = from; i < to; i++) {
+      int pixel = pixels[i];
+      int red = (pixel >> 16) & 0xFF;
+      int green = (pixel >> 8) & 0xFF;
+      int blue = pixel & 0xFF;
+
+      pixels[i] = addDifference(pixel, red, green, blue,
+              sign * Math.max(Math.max(red, green), blue));
+    }
+  }
+
+  /**
+   * Replaces each top pixel with the difference between its RGB form (see
+   * {@code PackedPixelUtil.toRGB}) and the pixel at the same position of the bottom array, with
+   * the opacity of the bottom pixel. This is the kernel of the inversion difference filter.
+   *
+   * @param top          is the array of top pixels to change in place.
+   * @param topOffset    is the index of the first top pixel.
+   * @param bottom       is the array of bottom pixels.
+   * @param bottomOffset is the index of the first bottom pixel.
+   * @param length       is the number of pixels to change.
+   */
+  public void difference(int[] top, int topOffset, int[] bottom, int bottomOffset, int length) {
+    for (int i = 0; i < length; i++) {
+      int rgb = PackedPixelUtil.toRGB(top[topOffset + i]);
+      int pixel = bottom[bottomOffset + i];
+
+      top[topOffset + i] = PackedPixelUtil.pack(
+              Math.abs(PackedPixelUtil.red(rgb) - PackedPixelUtil.red(pixel)),
+              Math.abs(PackedPixelUtil.green(rgb) - PackedPixelUtil.green(pixel)),
+              Math.abs(PackedPixelUtil.blue(rgb) - PackedPixelUtil.blue(pixel)),
+              PackedPixelUtil.alpha(pixel));
+    }
+  }
+
+  /*
+   * Adds the difference to each color value of the pixel and clamps them, keeping the opacity.
+   */
+  private static int addDifference(int pixel, int red, int green, int blue, int difference) {
+    return (pixel & 0xFF000000) | clamp(red + difference) << 16
+            | clamp(green + difference) << 8 | clamp(blue + difference);
+  }
+
+  private static int clamp(int value) {
+    return Math.min(Math.max(value, 0), MAX);
+  }
+
+  /*
+   * Chooses the loops with the given name, using these loops if the vector loops cannot be
+   * loaded.
+   */
+  private static PackedPixelLoops choose(String name) {
+    if (!name.equals("vector")) {
+      return new PackedPixelLoops();
+    }
+
+    try {
+      return (PackedPixelLoops) Class.forName("model.utils.VectorPackedPixelLoops")
+              .getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException | LinkageError e) {
+      // The vector source folder or the incubator module is missing
+      return new PackedPixelLoops();
+    }
+  }
+}
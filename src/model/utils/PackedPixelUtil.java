@@ -0,0 +1,347 @@
+package model.utils;
+
+/**
+ * This class contains utility methods to work with pixels packed into a single ARGB integer, where
+ * bits 24-31 hold the alpha level, bits 16-23 the red value, bits 8-15 the green value, and bits
+ * 0-7 the blue value. Every value of a packed pixel is between 0 and 255.
+ */
+public class PackedPixelUtil {
+
+  /**
+   * The packed representation of a fully transparent white pixel, which is what blank layers
+   * and images are filled with.
+   */
+  public static final int TRANSPARENT = 0x00FFFFFF;
+
+  private static final int MIN = 0;
+  private static final int MAX = 255;
+  private static final long HALF = 1L << 31;
+
+  /**
+   * Packs the given values into a single ARGB integer. The values are assumed to already be
+   * between 0 and 255 and are not checked.
+   *
+   * @param red   is the red value of the pixel.
+   * @param green is the green value of the pixel.
+   * @param blue  is the blue value of the pixel.
+   * @param alpha is the alpha level of the pixel.
+   * @return the packed ARGB pixel.
+   */
+  public static int pack(int red, int green, int blue, int alpha) {
+    return alpha << 24 | red << 16 | green << 8 | blue;
+  }
+
+  /**
+   * Packs the given values into a single ARGB integer after converting them from the range
+   * 0-max to the range 0-255. This is the same conversion done by the five argument
+   * {@code RGBAPixel} constructor.
+   *
+   * @param red   is the red value of the pixel.
+   * @param green is the green value of the pixel.
+   * @param blue  is the blue value of the pixel.
+   * @param alpha is the alpha value of the pixel.
+   * @param max   is the maximum amount that the values of the pixel can be.
+   * @return the packed ARGB pixel.
+   * @throws IllegalArgumentException if the max is less than 1, or if any value is greater than
+   *                                  the max or less than 0 (MIN).
+   */
+  public static int packScaled(int red, int green, int blue, int alpha, int max)
+          throws IllegalArgumentException {
+
+    if (max < 1) {
+      throw new IllegalArgumentException("Maximum value must be greater than 0 (min)");
+    }
+
+    if (red > max || red < MIN) {
+      throw new IllegalArgumentException("Red value is invalid, must be between " + MIN +
+              " and " + max);
+    }
+
+    if (blue > max || blue < MIN) {
+      throw new IllegalArgumentException("Blue value is invalid, must be between " + MIN +
+              " and " + max);
+    }
+    if (green > max || green < MIN) {
+      throw new IllegalArgumentException("Green value is invalid, must be between " + MIN +
+              " and " + max);
+    }
+
+    if (alpha > max || alpha < MIN) {
+      throw new IllegalArgumentException("Alpha value is invalid, must be between " + MIN +
+              " and " + max);
+    }
+
+    if (max == MAX) {
+      return pack(red, green, blue, alpha);
+    }
+
+    return pack(scale(red, max), scale(green, max), scale(blue, max), scale(alpha, max));
+  }
+
+  /**
+   * Packs the given values into a single, fully opaque ARGB integer after converting them using
+   * the given max. This is the same conversion done by the four argument {@code RGBAPixel}
+   * constructor.
+   *
+   * @param red   is the red value of the pixel.
+   * @param green is the green value of the pixel.
+   * @param blue  is the blue value of the pixel.
+   * @param max   is the maximum amount that the values of the pixel can be.
+   * @return the packed ARGB pixel.
+   * @throws IllegalArgumentException if any value is greater than the max or less than 0 (MIN).
+   */
+  public static int packOpaque(int red, int green, int blue, int max)
+          throws IllegalArgumentException {
+
+    if (red > max || red < MIN) {
+      throw new IllegalArgumentException("Red value is invalid, must be between " + MIN +
+              " and " + max);
+    }
+
+
+    if (green > max || green < MIN) {
+      throw new IllegalArgumentException("Green value is invalid, must be between " + MIN +
+              " and " + max);
+    }
+
+    if (blue > max || blue < MIN) {
+      throw new IllegalArgumentException("Blue value is invalid, must be between " + MIN +
+              " and " + max);
+    }
+
+    if (max == MAX) {
+      return pack(red, green, blue, MAX);
+    }
+
+    return pack((int) ((red * ((double) max)) / 255), (int) ((green * ((double) max)) / 255),
+            (int) ((blue * ((double) max)) / 255), MAX);
+  }
+
+  /**
+   * Gets the alpha level of a packed pixel.
+   *
+   * @param pixel is the packed ARGB pixel.
+   * @return the alpha level (max 255).
+   */
+  public static int alpha(int pixel) {
+    return pixel >>> 24;
+  }
+
+  /**
+   * Gets the red value of a packed pixel.
+   *
+   * @param pixel is the packed ARGB pixel.
+   * @return the red value (max 255).
+   */
+  public static int red(int pixel) {
+    return pixel >> 16 & 0xff;
+  }
+
+  /**
+   * Gets the green value of a packed pixel.
+   *
+   * @param pixel is the packed ARGB pixel.
+   * @return the green value (max 255).
+   */
+  public static int green(int pixel) {
+    return pixel >> 8 & 0xff;
+  }
+
+  /**
+   * Gets the blue value of a packed pixel.
+   *
+   * @param pixel is the packed ARGB pixel.
+   * @return the blue value (max 255).
+   */
+  public static int blue(int pixel) {
+    return pixel & 0xff;
+  }
+
+  /**
+   * Converts a packed pixel to its RGB form, where the colors are changed based on the opacity.
+   * This is the packed equivalent of {@code Pixel.asRGB}. The alpha level of the result is 0.
+   *
+   * @param pixel is the packed ARGB pixel.
+   * @return the packed RGB pixel.
+   */
+  public static int toRGB(int pixel) {
+    return premultiply(pixel) & 0x00FFFFFF;
+  }
+
+  /**
+   * Multiplies the red, green, and blue values of a packed pixel by its opacity, keeping its alpha
+   * level, which is how {@code BufferedImage.TYPE_INT_ARGB_PRE} stores pixels. Each value is
+   * rounded the same as {@code toRGB}, and is found with a multiply-add instead of doubles.
+   *
+   * @param pixel is the packed ARGB pixel.
+   * @return the premultiplied packed ARGB pixel.
+   */
+  public static int premultiply(int pixel) {
+    int alpha = alpha(pixel);
+
+    if (alpha == MAX) {
+      return pixel;
+    }
+
+    return pack(divide(red(pixel) * alpha), divide(green(pixel) * alpha),
+            divide(blue(pixel) * alpha), alpha);
+  }
+
+  /**
+   * Combines two packed pixels by placing the top pixel over the bottom pixel. This is the
+   * packed equivalent of {@code Pixel.combine}. The values are computed with integers, and give
+   * exactly the same pixel as computing them with doubles, which is what this method did before.
+   * The only values that are still computed with doubles are the ones that are exactly halfway
+   * between two integers, since rounding them depends on the rounding errors of the doubles.
+   *
+   * @param bottom is the packed pixel underneath.
+   * @param top    is the packed pixel placed on top.
+   * @return the resulting packed pixel.
+   */
+  public static int combine(int bottom, int top) {
+    int topAlpha = alpha(top);
+    int bottomAlpha = alpha(bottom);
+
+    if (topAlpha == MAX) {
+      return top;
+    }
+
+    if (bottomAlpha == MAX) {
+      // Over an opaque pixel the weight is always 255 * 255, so each value is the premultiplied
+      // value of the top pixel plus the bottom value times the rest of the opacity, over 255
+      return combineOpaque(bottom, top, topAlpha);
+    }
+
+    // The new alpha level is weight / 255, and each value is the sum of the values of both
+    // pixels times their weight, divided by the weight
+    int topWeight = topAlpha * MAX;
+    int bottomWeight = bottomAlpha * (MAX - topAlpha);
+    int weight = topWeight + bottomWeight;
+
+    if (weight == 0) {
+      return 0;
+    }
+
+    if (topAlpha == 0) {
+      return bottom;
+    }
+
+    int newRed = average(red(bottom), red(top), bottomWeight, topWeight, weight);
+    int newGreen = average(green(bottom), green(top), bottomWeight, topWeight, weight);
+    int newBlue = average(blue(bottom), blue(top), bottomWeight, topWeight, weight);
+
+    if (newRed < 0 || newGreen < 0 || newBlue < 0) {
+      return combineDoubles(bottom, top);
+    }
+
+    return pack(newRed, newGreen, newBlue, (2 * weight + MAX) / (2 * MAX));
+  }
+
+  /**
+   * Combines two packed pixels by placing the top pixel over the bottom pixel, the same as
+   * {@code combine} but with fixed-point values and a single division. The alpha level is always
+   * the same as the one given by {@code combine}, and the red, green, and blue values differ from
+   * it by at most 1, which happens for less than 0.1% of the values. This is meant for images that
+   * are only displayed, like previews, and never for images that are saved.
+   *
+   * @param bottom is the packed pixel underneath.
+   * @param top    is the packed pixel placed on top.
+   * @return the resulting packed pixel.
+   */
+  public static int combineFast(int bottom, int top) {
+    int topAlpha = alpha(top);
+
+    if (topAlpha == MAX) {
+      return top;
+    }
+
+    int bottomAlpha = alpha(bottom);
+
+    if (bottomAlpha == MAX) {
+      return combineOpaque(bottom, top, topAlpha);
+    }
+
+    int topWeight = topAlpha * MAX;
+    int bottomWeight = bottomAlpha * (MAX - topAlpha);
+    int weight = topWeight + bottomWeight;
+
+    if (weight == 0) {
+      return 0;
+    }
+
+    // Dividing by the weight is multiplying by its reciprocal in 32.32 fixed point, which is off
+    // by less than 1/256 before rounding, since every sum is less than 2^24
+    long reciprocal = (1L << 32) / weight;
+    int newAlpha = divide(weight);
+    int newRed = (int) (((long) (red(top) * topWeight + red(bottom) * bottomWeight) * reciprocal
+            + HALF) >>> 32);
+    int newGreen = (int) (((long) (green(top) * topWeight + green(bottom) * bottomWeight)
+            * reciprocal + HALF) >>> 32);
+    int newBlue = (int) (((long) (blue(top) * topWeight + blue(bottom) * bottomWeight)
+            * reciprocal + HALF) >>> 32);
+
+    return pack(newRed, newGreen, newBlue, newAlpha);
+  }
+
+  /*
+   * Helper method that combines a pixel over a fully opaque pixel, which is exact without any
+   * division, since no value is ever exactly halfway between two integers.
+   */
+  private static int combineOpaque(int bottom, int top, int topAlpha) {
+    int bottomAlpha = MAX - topAlpha;
+
+    return pack(divide(red(top) * topAlpha + red(bottom) * bottomAlpha),
+            divide(green(top) * topAlpha + green(bottom) * bottomAlpha),
+            divide(blue(top) * topAlpha + blue(bottom) * bottomAlpha), MAX);
+  }
+
+  /*
+   * Helper method that rounds a value between 0 and 255 * 255 divided by 255, using only
+   * additions and shifts. An integer over 255 is never exactly halfway between two integers.
+   */
+  private static int divide(int value) {
+    int rounded = value + 128;
+
+    return (rounded + (rounded >> 8)) >> 8;
+  }
+
+  /*
+   * Helper method that rounds the weighted average of a value of two pixels, or gives -1 if the
+   * average is exactly halfway between two integers.
+   */
+  private static int average(int bottom, int top, int bottomWeight, int topWeight, int weight) {
+    int sum = 2 * (top * topWeight + bottom * bottomWeight) + weight;
+    int value = sum / (2 * weight);
+
+    return value * 2 * weight == sum ? -1 : value;
+  }
+
+  /*
+   * Helper method that combines two packed pixels using doubles, which is how combine computes
+   * them if a value is exactly halfway between two integers.
+   */
+  private static int combineDoubles(int bottom, int top) {
+    double topAlpha = alpha(top) / 255.0;
+    double bottomAlpha = alpha(bottom) / 255.0;
+
+    double calcAlpha = topAlpha + bottomAlpha * (1 - topAlpha);
+    int newAlpha = (int) Math.round(calcAlpha * 255);
+
+    int newRed = (int) Math.round(((topAlpha * red(top)) +
+            (red(bottom) * bottomAlpha) * (1 - topAlpha)) * (1 / calcAlpha));
+    int newGreen = (int) Math.round(((topAlpha * green(top)) +
+            (green(bottom) * bottomAlpha) * (1 - topAlpha)) * (1 / calcAlpha));
+    int newBlue = (int) Math.round(((topAlpha * blue(top)) +
+            (blue(bottom) * bottomAlpha) * (1 - topAlpha)) * (1 / calcAlpha));
+
+    return pack(newRed, newGreen, newBlue, newAlpha);
+  }
+
+  /*
+   * Helper method that converts a value from the range 0-max to the range 0-255.
+   */
+  private static int scale(int value, int max) {
+    return (int) Math.round((1 - Math.pow(0, value)) * ((MAX + 1) * ((value + 1) /
+            ((double) max + 1)) - 1));
+  }
+}
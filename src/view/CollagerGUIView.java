@@ -1,13 +1,21 @@
 package view;
 
+import java.awt.Component;
 import java.awt.Dimension;
+import java.awt.Graphics;
 import java.awt.GridLayout;
 import java.awt.FlowLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.image.BufferedImage;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 
 import javax.swing.JFrame;
@@ -21,7 +29,10 @@ import javax.swing.ListSelectionModel;
 import javax.swing.JButton;
 import javax.swing.JOptionPane;
 import javax.swing.JFileChooser;
+import javax.swing.Icon;
 import javax.swing.ImageIcon;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
 import javax.swing.filechooser.FileNameExtensionFilter;
@@ -32,13 +43,22 @@ import controller.CollageController;
  * Defines a view for the collager program that uses a GUI. This view will not display until a
  * controller is given to it. This view processes GUI information by being a {@code JFrame},
  * {@code ActionListener}, and {@code ListSelectionListener}. When these changes need to happen,
- * they are forwarded to the model through the controller.
+ * they are forwarded to the model through the controller. Images are rendered in the background
+ * so the window stays responsive, and a render that is no longer needed is interrupted as soon as
+ * another one is asked for. Only the most recently asked for image is ever displayed. A preview
+ * the size of the window is displayed first, stretched to the size of the image, and is replaced
+ * by the full image once it has been rendered.
  */
 public class CollagerGUIView extends JFrame implements GUIView, ActionListener,
         ListSelectionListener {
 
   private final JLabel image;
+  private final JLabel renderStatus;
+  private final JScrollPane mainScrollPane;
   private CollageController controller;
+  private final ExecutorService modelExecutor;
+  private SwingWorker<BufferedImage, BufferedImage> renderWorker;
+  private int renderRequests;
   private final JList<String> listOfStrings;
   private final DefaultListModel<String> dataForListOfStrings;
 
@@ -54,10 +74,19 @@ public class CollagerGUIView extends JFrame implements GUIView, ActionListener,
     this.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
     this.setTitle("Collager");
 
+    this.modelExecutor = Executors.newSingleThreadExecutor(task -> {
+      Thread thread = new Thread(task, "Collager model");
+      thread.setDaemon(true);
+      return thread;
+    });
+
     JPanel mainPanel = new JPanel();
     mainPanel.setLayout(new BoxLayout(mainPanel, BoxLayout.PAGE_AXIS));
-    JScrollPane mainScrollPane = new JScrollPane(mainPanel);
-    this.add(mainScrollPane);
+    this.mainScrollPane = new JScrollPane(mainPanel);
+    this.add(this.mainScrollPane);
+
+    this.renderStatus = new JLabel(" ");
+    mainPanel.add(this.renderStatus);
 
     this.image = new JLabel();
     mainPanel.add(this.image);
@@ -152,6 +181,14 @@ public class CollagerGUIView extends JFrame implements GUIView, ActionListener,
 
   @Override
   public void actionPerformed(ActionEvent e) {
+    performAction(e);
+  }
+
+  /*
+   * Performs the action of the given event, forwarding any changes to the controller. Dialogs are
+   * shown on the event dispatch thread, but the model is only used on the model thread.
+   */
+  private void performAction(ActionEvent e) {
 
     switch (e.getActionCommand()) {
       case "Create project": {
@@ -178,14 +215,10 @@ public class CollagerGUIView extends JFrame implements GUIView, ActionListener,
           return;
         }
 
-        try {
-          controller.createProject(height, width);
+        changeModel(() -> controller.createProject(height, width), () -> {
           dataForListOfStrings.clear();
           listOfStrings.clearSelection();
-        } catch (IllegalArgumentException e1) {
-          renderMessage(e1.getMessage());
-          return;
-        }
+        });
       }
       break;
       case "Add layer": {
@@ -195,72 +228,52 @@ public class CollagerGUIView extends JFrame implements GUIView, ActionListener,
           return;
         }
 
-        try {
-          try {
-            controller.addLayer(name);
-            dataForListOfStrings.addElement(name);
-            listOfStrings.setSelectedIndex(dataForListOfStrings.size() - 1);
-          } catch (IllegalStateException e1) {
-            renderMessage(e1.getMessage());
-            return;
-          }
-        } catch (IllegalArgumentException e1) {
-          renderMessage(e1.getMessage());
-          return;
-        }
+        changeModel(() -> controller.addLayer(name), () -> {
+          dataForListOfStrings.addElement(name);
+          listOfStrings.setSelectedIndex(dataForListOfStrings.size() - 1);
+        });
       }
       break;
       case "Set filter": {
-        java.util.List<String> layerNames;
-
-        try {
-          layerNames = controller.getLayerNames();
-        } catch (IllegalStateException e1) {
-          renderMessage(e1.getMessage());
-          return;
-        }
-
-        String[] options = new String[layerNames.size()];
-        layerNames.toArray(options);
-        String retvalue = (String) JOptionPane.showInputDialog(this, "Please choose layer " +
-                        "to change filter at", "Layers", JOptionPane.INFORMATION_MESSAGE,
-                null, options, options[0]);
+        runOnModel(controller::getLayerNames, layerNames -> {
+          String[] options = new String[layerNames.size()];
+          layerNames.toArray(options);
+          String retvalue = (String) JOptionPane.showInputDialog(this, "Please choose layer " +
+                          "to change filter at", "Layers", JOptionPane.INFORMATION_MESSAGE,
+                  null, options, options[0]);
 
-        if (retvalue == null) {
-          return;
-        }
+          if (retvalue == null) {
+            return;
+          }
 
-        String selectedLayer = retvalue;
+          String selectedLayer = retvalue;
 
-        String[] filterNames = controller.getFilterNames();
+          String[] filterNames = controller.getFilterNames();
 
-        retvalue = (String) JOptionPane.showInputDialog(this, "Please choose filter " +
-                        "to change to", "Filters", JOptionPane.INFORMATION_MESSAGE,
-                null, filterNames, filterNames[0]);
+          retvalue = (String) JOptionPane.showInputDialog(this, "Please choose filter " +
+                          "to change to", "Filters", JOptionPane.INFORMATION_MESSAGE,
+                  null, filterNames, filterNames[0]);
 
-        if (retvalue == null) {
-          return;
-        }
+          if (retvalue == null) {
+            return;
+          }
 
-        String selectedFilter = retvalue;
+          String selectedFilter = retvalue;
 
-        try {
-          controller.setFilter(selectedLayer, selectedFilter);
-        } catch (IllegalStateException e1) {
-          renderMessage(e1.getMessage());
-          return;
-        }
+          changeModel(() -> controller.setFilter(selectedLayer, selectedFilter));
+        });
       }
       break;
       case "Open project": {
         final JFileChooser fchooser = new JFileChooser(".");
         FileNameExtensionFilter filter = new FileNameExtensionFilter(
-                "Collager Project Files", "collage");
+                "Collager Project Files", "collage", "bcollage");
         fchooser.setFileFilter(filter);
         int retvalue = fchooser.showOpenDialog(this);
         if (retvalue == JFileChooser.APPROVE_OPTION) {
           File f = fchooser.getSelectedFile();
-          try {
+
+          runOnModel(() -> {
             this.controller.loadProject(f.getAbsolutePath());
 
             List<String> layerNames = new ArrayList<>();
@@ -271,15 +284,12 @@ public class CollagerGUIView extends JFrame implements GUIView, ActionListener,
               // Do nothing
             }
 
+            return layerNames;
+          }, layerNames -> {
             dataForListOfStrings.clear();
             dataForListOfStrings.addAll(layerNames);
             listOfStrings.setSelectedIndex(layerNames.size() - 1);
-          } catch (IllegalArgumentException e1) {
-            renderMessage(e1.getMessage());
-            return;
-          }
-        } else {
-          return;
+          });
         }
       }
       break;
@@ -288,33 +298,22 @@ public class CollagerGUIView extends JFrame implements GUIView, ActionListener,
         int retvalue = fchooser.showSaveDialog(this);
         if (retvalue == JFileChooser.APPROVE_OPTION) {
           File f = fchooser.getSelectedFile();
-          try {
-            this.controller.saveProject(f.getAbsolutePath());
-          } catch (IllegalStateException e1) {
-            renderMessage(e1.getMessage());
-            return;
-          }
-        } else {
-          return;
+
+          changeModel(() -> this.controller.saveProject(f.getAbsolutePath()));
         }
       }
       break;
       case "Open image": {
-        List<String> layerNames;
-
-        try {
-          layerNames = controller.getLayerNames();
-        } catch (IllegalStateException e1) {
-          renderMessage(e1.getMessage());
-          return;
-        }
+        runOnModel(controller::getLayerNames, layerNames -> {
+          final JFileChooser fchooser = new JFileChooser(".");
+          FileNameExtensionFilter filter = new FileNameExtensionFilter(
+                  "PPM, PNG, and JPEG Image Files", "ppm", "pnm", "jpg", "jpeg", "png");
+          fchooser.setFileFilter(filter);
+          int retvalue = fchooser.showOpenDialog(this);
+          if (retvalue != JFileChooser.APPROVE_OPTION) {
+            return;
+          }
 
-        final JFileChooser fchooser = new JFileChooser(".");
-        FileNameExtensionFilter filter = new FileNameExtensionFilter(
-                "PPM, PNG, and JPEG Image Files", "ppm", "jpg", "jpeg", "png");
-        fchooser.setFileFilter(filter);
-        int retvalue = fchooser.showOpenDialog(this);
-        if (retvalue == JFileChooser.APPROVE_OPTION) {
           File f = fchooser.getSelectedFile();
 
           String[] options = new String[layerNames.size()];
@@ -350,20 +349,8 @@ public class CollagerGUIView extends JFrame implements GUIView, ActionListener,
             return;
           }
 
-          try {
-            try {
-              controller.addImage(retValue, f.getAbsolutePath(), yPos, xPos);
-            } catch (IllegalStateException e1) {
-              renderMessage(e1.getMessage());
-              return;
-            }
-          } catch (IllegalArgumentException e1) {
-            renderMessage(e1.getMessage());
-            return;
-          }
-        } else {
-          return;
-        }
+          changeModel(() -> controller.addImage(retValue, f.getAbsolutePath(), yPos, xPos));
+        });
       }
       break;
       case "Save image": {
@@ -371,14 +358,9 @@ public class CollagerGUIView extends JFrame implements GUIView, ActionListener,
         int retvalue = fchooser.showSaveDialog(this);
         if (retvalue == JFileChooser.APPROVE_OPTION) {
           File f = fchooser.getSelectedFile();
-          try {
-            this.controller.saveImage(f.getAbsolutePath(), listOfStrings.getSelectedValue());
-          } catch (IllegalStateException e1) {
-            this.renderMessage(e1.getMessage());
-            return;
-          }
-        } else {
-          return;
+          String selectedLayer = listOfStrings.getSelectedValue();
+
+          changeModel(() -> this.controller.saveImage(f.getAbsolutePath(), selectedLayer));
         }
       }
       break;
@@ -386,23 +368,61 @@ public class CollagerGUIView extends JFrame implements GUIView, ActionListener,
         // Do nothing
       }
     }
+  }
 
-    try {
-      String currentLayer = listOfStrings.getSelectedValue();
+  /*
+   * Changes the model on the model thread.
+   */
+  private void changeModel(Runnable change) {
+    changeModel(change, () -> {
+    });
+  }
 
-      if (currentLayer == null) {
-        image.setIcon(new ImageIcon(controller.getFinalImage()));
-      } else {
-        image.setIcon(new ImageIcon(controller.getImageAt(currentLayer)));
-      }
-      this.pack();
-    } catch (IllegalStateException e1) {
-      if (!e1.getMessage().equals("No image to save")) {
-        throw e1;
+  /*
+   * Changes the model on the model thread, and then runs the given update of the window on the
+   * event dispatch thread if the change was made.
+   */
+  private void changeModel(Runnable change, Runnable then) {
+    runOnModel(() -> {
+      change.run();
+      return null;
+    }, result -> then.run());
+  }
+
+  /*
+   * Uses the model on the model thread, holding its lock only while it is used, and then gives
+   * the result to the given update of the window on the event dispatch thread. If the model
+   * rejects what it is asked to do, the message is shown instead. The render in progress is
+   * stopped first, since the model is not changed while an image is rendered, and the image is
+   * rendered again once the model has been used.
+   */
+  private <T> void runOnModel(Supplier<T> task, Consumer<T> then) {
+    cancelRender();
+
+    CollageController modelController = this.controller;
+
+    this.modelExecutor.execute(() -> {
+      Runnable update;
+
+      try {
+        T result;
+
+        synchronized (modelController) {
+          result = task.get();
+        }
+
+        update = () -> then.accept(result);
+      } catch (IllegalArgumentException | IllegalStateException e1) {
+        update = () -> renderMessage(e1.getMessage());
       }
 
-      image.setIcon(new ImageIcon());
-    }
+      Runnable finalUpdate = update;
+
+      SwingUtilities.invokeLater(() -> {
+        finalUpdate.run();
+        requestRender(true);
+      });
+    });
   }
 
   @Override
@@ -420,14 +440,164 @@ public class CollagerGUIView extends JFrame implements GUIView, ActionListener,
 
   @Override
   public void valueChanged(ListSelectionEvent e) {
+    requestRender(false);
+  }
+
+  /*
+   * Starts rendering the image of the selected layer, or the final image if no layer is selected,
+   * in the background. Any render that has not finished yet is stopped, and its image is never
+   * displayed.
+   */
+  private void requestRender(boolean resize) {
+    cancelRender();
+
+    int request = ++this.renderRequests;
 
     if (dataForListOfStrings.isEmpty()) {
+      renderStatus.setText(" ");
       image.setIcon(new ImageIcon());
-    } else if (listOfStrings.getSelectedValue() == null) {
-      image.setIcon(new ImageIcon(controller.getFinalImage()));
-    } else {
-      image.setIcon(new ImageIcon(controller.getImageAt(listOfStrings.getSelectedValue())));
+      return;
+    }
+
+    String currentLayer = listOfStrings.getSelectedValue();
+    CollageController renderController = this.controller;
+
+    Dimension viewport = this.mainScrollPane.getViewport().getExtentSize();
+
+    if (viewport.width < 1 || viewport.height < 1) {
+      viewport = this.getMaximumSize();
     }
 
+    int previewHeight = viewport.height;
+    int previewWidth = viewport.width;
+    Icon shown = image.getIcon();
+
+    renderStatus.setText("Rendering...");
+
+    this.renderWorker = new SwingWorker<>() {
+      @Override
+      protected BufferedImage doInBackground() {
+        synchronized (renderController) {
+          if (currentLayer == null) {
+            publish(renderController.getFinalPreview(previewHeight, previewWidth));
+          } else {
+            publish(renderController.getPreviewAt(currentLayer, previewHeight, previewWidth));
+          }
+        }
+
+        synchronized (renderController) {
+          if (currentLayer == null) {
+            return renderController.getFinalImage();
+          }
+
+          return renderController.getImageAt(currentLayer);
+        }
+      }
+
+      @Override
+      protected void process(List<BufferedImage> previews) {
+        if (isCancelled() || request != renderRequests) {
+          return;
+        }
+
+        BufferedImage preview = previews.get(previews.size() - 1);
+
+        // The preview is stretched to the size of the image shown before, unless the size of the
+        // canvas changed
+        if (shown != null && shown.getIconWidth() > 0
+                && isPreviewOf(preview, shown.getIconWidth(), shown.getIconHeight())) {
+          image.setIcon(new PreviewIcon(preview, shown.getIconWidth(), shown.getIconHeight()));
+        } else {
+          image.setIcon(new ImageIcon(preview));
+        }
+      }
+
+      @Override
+      protected void done() {
+        if (isCancelled() || request != renderRequests) {
+          return;
+        }
+
+        renderStatus.setText(" ");
+
+        try {
+          image.setIcon(new ImageIcon(get()));
+        } catch (InterruptedException e1) {
+          Thread.currentThread().interrupt();
+          return;
+        } catch (ExecutionException e1) {
+          image.setIcon(new ImageIcon());
+
+          // A project with no image to show is not an error, anything else is shown to the user
+          if (!(e1.getCause() instanceof IllegalStateException)
+                  || !"No image to save".equals(e1.getCause().getMessage())) {
+            renderMessage("Could not render image: " + e1.getCause().getMessage());
+          }
+        }
+
+        if (resize) {
+          pack();
+        }
+      }
+    };
+
+    this.renderWorker.execute();
+  }
+
+  /*
+   * Determines if the given preview could be a preview of an image of the given size, which is
+   * halved until it fits.
+   */
+  private static boolean isPreviewOf(BufferedImage preview, int width, int height) {
+    for (int level = 0; level < Integer.SIZE; level++) {
+
+      if (((width - 1) >> level) + 1 == preview.getWidth()
+              && ((height - 1) >> level) + 1 == preview.getHeight()) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /*
+   * Interrupts the render that is in progress, if there is one.
+   */
+  private void cancelRender() {
+    if (this.renderWorker != null) {
+      this.renderWorker.cancel(true);
+      this.renderWorker = null;
+    }
+  }
+
+  /**
+   * Displays a preview stretched to the size of the image that it is a preview of.
+   */
+  private static class PreviewIcon implements Icon {
+
+    private final BufferedImage preview;
+    private final int width;
+    private final int height;
+
+    PreviewIcon(BufferedImage preview, int width, int height) {
+      this.preview = preview;
+      this.width = width;
+      this.height = height;
+    }
+
+    @Override
+    public void paintIcon(Component c, Graphics g, int x, int y) {
+      g.drawImage(this.preview, x, y, this.width, this.height, c);
+    }
+
+    @Override
+    public int getIconWidth() {
+      return this.width;
+    }
+
+    @Override
+    public int getIconHeight() {
+      return this.height;
+    }
   }
 }
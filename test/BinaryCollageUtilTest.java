@@ -0,0 +1,205 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import controller.utils.BinaryCollageUtil;
+import controller.utils.ImageUtil;
+import helpers.TestImages;
+import model.Collager;
+import model.Image;
+import model.Layer;
+import model.PackedRGBAImage;
+import model.RGBACollager;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Defines tests for the behavior of reading and writing binary collage files.
+ */
+public class BinaryCollageUtilTest {
+
+  private Collager collager;
+
+  @Before
+  public void init() {
+    Image noise = TestImages.noise(6, 5);
+
+    collager = new RGBACollager(8, 7);
+    collager.addLayer("bottom");
+    collager.addLayer("top");
+    collager.addLayer("empty");
+    collager.addImage("bottom", noise, 1, 2);
+    collager.addImage("top", noise, 2, 0);
+    collager.setFilter("top", "brighten_screen");
+  }
+
+  private static void assertSameProject(Collager expected, Collager actual) {
+    assertEquals(expected.getHeight(), actual.getHeight());
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getLayerNames(), actual.getLayerNames());
+
+    List<Layer> expectedLayers = expected.getLayers();
+    List<Layer> actualLayers = actual.getLayers();
+
+    for (int i = 0; i < expectedLayers.size(); i++) {
+
+      assertEquals(expectedLayers.get(i).getFilterName(), actualLayers.get(i).getFilterName());
+      assertArrayEquals(expectedLayers.get(i).getImage().getARGBPixels(),
+              actualLayers.get(i).getImage().getARGBPixels());
+    }
+
+    assertArrayEquals(expected.getFinalImage().getARGBPixels(),
+            actual.getFinalImage().getARGBPixels());
+  }
+
+  @Test
+  public void testSaveAndReadCollage() throws IOException {
+    ImageUtil.saveCollage("testLoadResult.collage", 8, 7, collager.getLayers());
+    Collager text = new RGBACollager();
+    ImageUtil.readCollage("testLoadResult.collage", text);
+    assertFalse(BinaryCollageUtil.isBinaryCollage("testLoadResult.collage"));
+
+    for (boolean compress : new boolean[]{false, true}) {
+
+      BinaryCollageUtil.saveCollage("testLoadResult.bcollage", 8, 7, collager.getLayers(),
+              compress);
+      assertTrue(BinaryCollageUtil.isBinaryCollage("testLoadResult.bcollage"));
+
+      Collager binary = new RGBACollager();
+      ImageUtil.readCollage("testLoadResult.bcollage", binary);
+
+      // Loading either format gives the same project
+      assertSameProject(text, binary);
+    }
+
+    Files.delete(Path.of("testLoadResult.collage"));
+    Files.delete(Path.of("testLoadResult.bcollage"));
+  }
+
+  @Test
+  public void testReadCollageInBands() throws IOException {
+    int[] opaque = TestImages.noisePixels(270 * 250, 1);
+
+    for (int i = 0; i < opaque.length; i++) {
+      opaque[i] |= 0xFF000000;
+    }
+
+    Collager large = new RGBACollager(270, 250);
+    large.addLayer("bottom");
+    large.addLayer("top");
+    large.addImage("bottom", new PackedRGBAImage(270, 250, opaque), 0, 0);
+    large.addImage("top", TestImages.noise(200, 150, 2), 40, 60);
+    large.setFilter("top", "darken_multiply");
+
+    ImageUtil.saveCollage("testLoadResult.collage", 270, 250, large.getLayers());
+    BinaryCollageUtil.saveCollage("testLoadResult.bcollage", 270, 250, large.getLayers(), true);
+
+    Collager expected = new RGBACollager();
+    ImageUtil.readCollage("testLoadResult.collage", expected);
+
+    // An opaque layer is read exactly as it was saved
+    assertArrayEquals(opaque, expected.getLayers().get(0).getImage().getARGBPixels());
+
+    // Layers with more rows than a band are read a band at a time, into the heap or scratch files
+    for (String filename : List.of("testLoadResult.collage", "testLoadResult.bcollage")) {
+
+      for (boolean mapped : new boolean[]{false, true}) {
+        Collager loaded = new RGBACollager();
+        loaded.setPixelBudget(mapped ? 1 : RGBACollager.DEFAULT_PIXEL_BUDGET);
+
+        ImageUtil.readCollage(filename, loaded);
+        assertSameProject(expected, loaded);
+      }
+    }
+
+    Files.delete(Path.of("testLoadResult.collage"));
+    Files.delete(Path.of("testLoadResult.bcollage"));
+  }
+
+  @Test
+  public void testReadCollageLazily() throws IOException {
+    BinaryCollageUtil.saveCollage("testLoadResult.bcollage", 8, 7, collager.getLayers(), true);
+
+    Collager binary = new RGBACollager();
+    BinaryCollageUtil.readCollage("testLoadResult.bcollage", binary);
+
+    // Saving over the open project loads its layers before the file is replaced
+    BinaryCollageUtil.saveCollage("testLoadResult.bcollage", 8, 7, binary.getLayers(), false);
+    assertEquals(collager.getLayerNames(), binary.getLayerNames());
+    assertArrayEquals(collager.getFinalImage().getARGBPixels(),
+            binary.getFinalImage().getARGBPixels());
+
+    binary = new RGBACollager();
+    BinaryCollageUtil.readCollage("testLoadResult.bcollage", binary);
+    Files.delete(Path.of("testLoadResult.bcollage"));
+
+    // The layer table is all that is read when opening the project
+    assertEquals(List.of("bottom", "top", "empty"), binary.getLayerNames());
+    assertEquals("brighten_screen", binary.getLayers().get(1).getFilterName());
+
+    try {
+      binary.getFinalImage();
+      fail("Should not render layers that can no longer be read");
+    } catch (IllegalStateException expected) {
+      // Do nothing, test passed
+    }
+  }
+
+  @Test
+  public void testInvalidReadCollage() throws IOException {
+    BinaryCollageUtil.saveCollage("testLoadResult.bcollage", 8, 7, collager.getLayers(), false);
+    byte[] contents = Files.readAllBytes(Path.of("testLoadResult.bcollage"));
+
+    byte[] truncated = new byte[20];
+    System.arraycopy(contents, 0, truncated, 0, truncated.length);
+    Files.write(Path.of("testLoadResult.bcollage"), truncated);
+
+    try {
+      ImageUtil.readCollage("testLoadResult.bcollage", new RGBACollager());
+      fail("Should not read a truncated file");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+
+    contents[5] = 2;
+    Files.write(Path.of("testLoadResult.bcollage"), contents);
+
+    try {
+      ImageUtil.readCollage("testLoadResult.bcollage", new RGBACollager());
+      fail("Should not read an unsupported version");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+
+    Files.delete(Path.of("testLoadResult.bcollage"));
+
+    try {
+      BinaryCollageUtil.readCollage("testLoadResult.bcollage", new RGBACollager());
+      fail("Should not read a file that does not exist");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+
+    try {
+      BinaryCollageUtil.saveCollage(null, 8, 7, collager.getLayers(), false);
+      fail("Should not save with invalid parameters");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+
+    try {
+      BinaryCollageUtil.saveCollage("testLoadResult.bcollage", 0, 7, collager.getLayers(), false);
+      fail("Should not save with invalid parameters");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+  }
+}
@@ -29,6 +29,20 @@ public class ConfirmInputsTest {
             log.toString());
   }
 
+  @Test
+  public void testInputsOfCreateMappedProject() {
+    Readable in = new StringReader("new-project -mapped 100 100");
+    StringBuilder log = new StringBuilder();
+    ConfirmInputs mock = new ConfirmInputs(log);
+    CollagerView view = new CollagerTextView(log);
+    CollageController c = new RGBACollageController(in, mock, view);
+
+    c.runCollage();
+    assertEquals("A new project creation was attempted with , height: 100, width: 100, and " +
+                    "mapped: true.\n",
+            log.toString());
+  }
+
   @Test
   public void testInputsOfAddLayer() {
     Readable in = new StringReader("add-layer layer1");
@@ -88,6 +88,101 @@ public class ImageUtilTest {
 
   }
 
+  @Test
+  public void testReadPPMImage() {
+    Image image = ImageUtil.readPPMImage("./res/testLoadSource.ppm");
+
+    assertEquals(4, image.getHeight());
+    assertEquals(5, image.getWidth());
+    assertEquals(0xFF050301, image.getARGB(0, 1));
+    assertEquals(0xFF390312, image.getARGB(1, 1));
+
+    try {
+      ImageUtil.readPPMImage(null);
+      fail("Should not read an image if invalid parameters");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+
+    try {
+      ImageUtil.readPPMImage("wedewbfweubf");
+      fail("Should not read an image if invalid parameters");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+
+    try {
+      ImageUtil.readPPMImage("./res/testLoadSource.collage");
+      fail("Should not read an image if invalid parameters");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+  }
+
+  @Test
+  public void testSaveBinaryPPM() {
+    image2 = new RGBALayerImage(new RGBAPixel[][]{{new RGBAPixel(255, 255, 255, 255),
+            new RGBAPixel(134, 122, 3, 5, 255)},
+        {new RGBAPixel(0, 0, 0, 0, 255),
+            new RGBAPixel(10, 220, 40, 65, 255)}});
+
+    ImageUtil.saveBinaryPPM("testBinaryResult.pnm", image2, 255);
+
+    try {
+      byte[] contents = Files.readAllBytes(Path.of("testBinaryResult.pnm"));
+      assertArrayEquals(new byte[]{'P', '6', '\n', '2', ' ', '2', '\n', '2', '5', '5', '\n',
+          (byte) 255, (byte) 255, (byte) 255, 3, 2, 0, 0, 0, 0, 3, 56, 10}, contents);
+    } catch (IOException e) {
+      fail("Unknown IOException: " + e.getMessage());
+    }
+
+    Image read = ImageUtil.readPPMImage("testBinaryResult.pnm");
+    ImageUtil.saveBinaryPPM("testBinaryResult.pnm", image2, 65535);
+
+    assertArrayEquals(read.getARGBPixels(),
+            ImageUtil.readPPMImage("testBinaryResult.pnm").getARGBPixels());
+
+    try {
+      Files.delete(Path.of("testBinaryResult.pnm"));
+    } catch (IOException e) {
+      fail("Unknown IOException: " + e.getMessage());
+    }
+
+    try {
+      ImageUtil.saveBinaryPPM("testBinaryResult.pnm", image2, 0);
+      fail("Should not save with an invalid maximum value");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+
+    try {
+      ImageUtil.saveBinaryPPM(null, image2, 255);
+      fail("Should not save with an invalid file path");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+  }
+
+  @Test
+  public void testReadPPMImageLazilyAfterFileChanges() throws IOException {
+    Path path = Path.of("testLazySource.ppm");
+
+    Files.writeString(path, "P3\n1 2\n255\n1 2 3 4 5 6\n");
+    Image image = ImageUtil.readPPMImageLazily("testLazySource.ppm", new RGBACollager());
+
+    // The file is only decoded once its pixels are needed, and must not have changed by then
+    Files.writeString(path, "P3\n1 2\n255\n10 20 30 40 50 60\n");
+
+    try {
+      image.getARGB(0, 0);
+      fail("Should not decode a file that changed after its header was read");
+    } catch (IllegalArgumentException expected) {
+      assertEquals("File testLazySource.ppm changed after it was added", expected.getMessage());
+    } finally {
+      Files.delete(path);
+    }
+  }
+
   @Test
   public void testInvalidReadPPM() {
 
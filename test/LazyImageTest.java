@@ -0,0 +1,65 @@
+import org.junit.Test;
+
+import model.Image;
+import model.LazyImage;
+import model.PackedRGBAImage;
+import model.filters.RGBARedFilter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Defines tests for the behavior of a {@code LazyImage}.
+ */
+public class LazyImageTest {
+
+  private int loads;
+
+  @Test
+  public void testLoadOnce() {
+    Image loaded = new PackedRGBAImage(1, 2, new int[]{0xFF102030, 0x80405060});
+    LazyImage image = new LazyImage(1, 2, () -> {
+      loads++;
+      return loaded;
+    });
+
+    assertEquals(1, image.getHeight());
+    assertEquals(2, image.getWidth());
+    assertFalse(image.isLoaded());
+    assertEquals(0, loads);
+
+    assertArrayEquals(loaded.getARGBPixels(), image.getARGBPixels());
+    assertArrayEquals(loaded.applyFilter(new RGBARedFilter()).getARGBPixels(),
+            image.applyFilter(new RGBARedFilter()).getARGBPixels());
+    assertEquals(0x80405060, image.getARGB(0, 1));
+    assertTrue(image.isLoaded());
+    assertEquals(1, loads);
+  }
+
+  @Test
+  public void testInvalidLazyImage() {
+    try {
+      new LazyImage(0, 1, () -> null);
+      fail("Should not create image with invalid inputs");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+
+    try {
+      new LazyImage(1, 1, null);
+      fail("Should not create image with invalid inputs");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+
+    try {
+      new LazyImage(2, 2, () -> new PackedRGBAImage(1, 1)).getARGBPixels();
+      fail("Should not load an image of the wrong size");
+    } catch (IllegalStateException expected) {
+      // Do nothing, test passed
+    }
+  }
+}
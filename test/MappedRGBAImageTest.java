@@ -0,0 +1,135 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import helpers.TestImages;
+import model.Image;
+import model.MappedRGBAImage;
+import model.PackedRGBAImage;
+import model.filters.RGBABrightenLuma;
+import model.filters.RGBADifference;
+import model.utils.PackedPixelUtil;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Defines tests for the behavior of a {@code MappedRGBAImage}.
+ */
+public class MappedRGBAImageTest {
+
+  private Path directory;
+  private Image blank;
+  private Image noise;
+
+  @Before
+  public void init() throws IOException {
+
+    directory = Files.createTempDirectory("mappedtest");
+    directory.toFile().deleteOnExit();
+    blank = new MappedRGBAImage(150, 70, directory);
+
+    noise = TestImages.noise(90, 70);
+  }
+
+  @Test
+  public void createInvalidMappedRGBAImage() {
+
+    try {
+      new MappedRGBAImage(0, 1, directory);
+      fail("Should not create image with invalid inputs");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+
+    try {
+      new MappedRGBAImage(1, 0, directory);
+      fail("Should not create image with invalid inputs");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+
+    try {
+      new MappedRGBAImage(1, 1, null);
+      fail("Should not create image with invalid inputs");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+
+    try {
+      new MappedRGBAImage(1, 1, directory.resolve("missing"));
+      fail("Should not create image in a directory that does not exist");
+    } catch (IllegalStateException expected) {
+      // Do nothing, test passed
+    }
+  }
+
+  @Test
+  public void testBlankImage() {
+    int[] expected = new int[150 * 70];
+    Arrays.fill(expected, PackedPixelUtil.TRANSPARENT);
+
+    assertArrayEquals(expected, blank.getARGBPixels());
+    assertEquals(PackedPixelUtil.TRANSPARENT, blank.getARGB(149, 69));
+    assertEquals(150, blank.getHeight());
+    assertEquals(70, blank.getWidth());
+
+    try {
+      blank.getARGB(150, 0);
+      fail("Should not get a pixel outside of the image");
+    } catch (IllegalArgumentException expected1) {
+      // Do nothing, test passed
+    }
+  }
+
+  @Test
+  public void testCombineMatchesPackedRGBAImage() {
+    Image expected = new PackedRGBAImage(150, 70).combine(noise, 40, 0);
+    Image actual = blank.combine(noise, 40, 0);
+
+    assertArrayEquals(expected.getARGBPixels(), actual.getARGBPixels());
+
+    expected = expected.combine(noise.getRegion(10, 5, 80, 60), 70, 10);
+    actual = actual.combine(noise.getRegion(10, 5, 80, 60), 70, 10);
+
+    assertArrayEquals(expected.getARGBPixels(), actual.getARGBPixels());
+    assertArrayEquals(expected.getRegion(60, 3, 30, 40).getARGBPixels(),
+            actual.getRegion(60, 3, 30, 40).getARGBPixels());
+
+    // Combining never changes the image that was combined onto
+    assertEquals(PackedPixelUtil.TRANSPARENT, blank.getARGB(40, 0));
+
+    try {
+      blank.combine(noise, 61, 0);
+      fail("Should not combine with an image that is not fully contained");
+    } catch (IllegalArgumentException expected1) {
+      // Do nothing, test passed
+    }
+  }
+
+  @Test
+  public void testApplyFilters() {
+    Image packed = new PackedRGBAImage(150, 70).combine(noise, 60, 0);
+    Image mapped = blank.combine(noise, 60, 0);
+
+    assertArrayEquals(packed.applyFilter(new RGBABrightenLuma()).getARGBPixels(),
+            mapped.applyFilter(new RGBABrightenLuma()).getARGBPixels());
+
+    Image other = new PackedRGBAImage(150, 70).combine(noise, 0, 0);
+
+    assertArrayEquals(packed.applyTwoFilter(new RGBADifference(), other).getARGBPixels(),
+            mapped.applyTwoFilter(new RGBADifference(), other).getARGBPixels());
+
+    try {
+      mapped.applyTwoFilter(new RGBADifference(), noise);
+      fail("Should not apply a filter with an image of a different size");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+  }
+}
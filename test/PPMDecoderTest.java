@@ -0,0 +1,150 @@
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import model.Image;
+import model.RGBACollager;
+import model.utils.PPMDecoder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Defines tests for the behavior of decoding plain PPM images.
+ */
+public class PPMDecoderTest {
+
+  private static Image decode(String contents) throws IOException {
+    return PPMDecoder.decode(new ByteArrayInputStream(
+            contents.getBytes(StandardCharsets.ISO_8859_1)));
+  }
+
+  private static String binary(int... values) {
+    StringBuilder builder = new StringBuilder();
+
+    for (int value : values) {
+      builder.append((char) value);
+    }
+
+    return builder.toString();
+  }
+
+  @Test
+  public void testDecode() throws IOException {
+    Image image = decode("P3\n2 2\n255\n255 255 255 3 2 0\n0 0 0 3 56 10\n");
+
+    assertEquals(2, image.getHeight());
+    assertEquals(2, image.getWidth());
+    assertArrayEquals(new int[]{0xFFFFFFFF, 0xFF030200, 0xFF000000, 0xFF03380A},
+            image.getARGBPixels());
+  }
+
+  @Test
+  public void testDecodeComments() throws IOException {
+    Image image = decode("P3# magic number\n# size\r\n2# width\n2\n#max\n255 255 255 255#first" +
+            "\n3 2 0\n\n0 0 0 3 56 10 # trailing");
+
+    assertArrayEquals(new int[]{0xFFFFFFFF, 0xFF030200, 0xFF000000, 0xFF03380A},
+            image.getARGBPixels());
+  }
+
+  @Test
+  public void testDecodeSize() throws IOException {
+    assertArrayEquals(new int[]{3, 2}, PPMDecoder.decodeSize(new ByteArrayInputStream(
+            "P3 # comment\n2 3\n255\n".getBytes(StandardCharsets.ISO_8859_1))));
+
+    // Only the header is read, so the pixels are not checked
+    assertArrayEquals(new int[]{1, 4}, PPMDecoder.decodeSize(new ByteArrayInputStream(
+            "P6 4 1 255 abc".getBytes(StandardCharsets.ISO_8859_1))));
+
+    try {
+      PPMDecoder.decodeSize(new ByteArrayInputStream(
+              "P5 4 1 255".getBytes(StandardCharsets.ISO_8859_1)));
+      fail("Should not read the size of an image that is not a PPM image");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+
+    try {
+      PPMDecoder.decodeSize(new ByteArrayInputStream(
+              "P3 0 1 255".getBytes(StandardCharsets.ISO_8859_1)));
+      fail("Should not read the size of an empty image");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+  }
+
+  @Test
+  public void testDecodeMatchesCollager() throws IOException {
+    String contents = "P3 3 1 15 15 0 7 1 2 3 0 0 15";
+    RGBACollager collager = new RGBACollager(1, 3);
+
+    collager.addLayer("test");
+    collager.addImage("test", contents, 0, 0);
+
+    assertArrayEquals(collager.getFinalImage().getARGBPixels(),
+            decode(contents).getARGBPixels());
+  }
+
+  @Test
+  public void testDecodeBinary() throws IOException {
+    Image image = decode("P6\n2 2 # comment\n255\n" + binary(255, 255, 255, 3, 2, 0, 0, 0, 0,
+            3, 56, 10));
+
+    assertArrayEquals(new int[]{0xFFFFFFFF, 0xFF030200, 0xFF000000, 0xFF03380A},
+            image.getARGBPixels());
+
+    image = decode("P6 1 3 65535 " + binary(255, 255, 0, 0, 128, 0, 0, 0, 0, 0, 0, 0, 1, 1,
+            255, 255, 0, 255));
+
+    assertArrayEquals(new int[]{0xFFFF0080, 0xFF000000, 0xFF01FF01}, image.getARGBPixels());
+  }
+
+  @Test
+  public void testDecodePlainAndBinary() throws IOException {
+    // The same image decodes to the same pixels in both formats if its maximum value is 255
+    Image plain = decode("P3\n3 1\n255\n255 128 0 3 56 10 0 0 255\n");
+    Image binary = decode("P6\n3 1\n255\n" + binary(255, 128, 0, 3, 56, 10, 0, 0, 255));
+
+    assertArrayEquals(new int[]{0xFFFF8000, 0xFF03380A, 0xFF0000FF}, plain.getARGBPixels());
+    assertArrayEquals(plain.getARGBPixels(), binary.getARGBPixels());
+
+    // Otherwise plain values are converted the same way as the Collager, and binary values are
+    // scaled linearly
+    plain = decode("P3\n1 1\n1000\n500 250 1000\n");
+    binary = decode("P6\n1 1\n1000\n" + binary(1, 244, 0, 250, 3, 232));
+
+    assertArrayEquals(new int[]{0xFFABDF51}, plain.getARGBPixels());
+    assertArrayEquals(new int[]{0xFF8040FF}, binary.getARGBPixels());
+  }
+
+  @Test
+  public void testDecodeInvalid() throws IOException {
+    String[] invalid = new String[]{"", "P5 1 1 255 0 0 0", "P33 1 1 255 0 0 0",
+        "P3 1 1 255 0 0", "P3 1 1 255 0 0 a", "P3 1 1 255 0 0 5a", "P3 1 1 255 0 0 -5",
+        "P3 0 1 255", "P3 1 1 255 0 0 256", "P3 1 1 99999999999 0 0 0",
+        "P3 100000 100000 255 0 0 0", "P6 1 1 255\n" + binary(0, 0), "P6 1 1 255" +
+        binary(0, 0, 0), "P6 1 1 65536\n" + binary(0, 0, 0, 0, 0, 0), "P6 1 1 1000\n" +
+        binary(0, 0, 0, 0, 255, 255)};
+
+    for (String contents : invalid) {
+
+      try {
+        decode(contents);
+        fail("Should not decode an invalid PPM file: " + contents);
+      } catch (IllegalArgumentException expected) {
+        // Do nothing, test passed
+      }
+    }
+
+    try {
+      PPMDecoder.decode(null);
+      fail("Should not decode a null stream");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+  }
+}
@@ -0,0 +1,150 @@
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import helpers.TestImages;
+import model.utils.PackedPixelLoops;
+import model.utils.PackedPixelUtil;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Defines the tests for the loops of {@code PackedPixelLoops}, which are the loops chosen by the
+ * system property {@code collager.loops} when the tests are run.
+ */
+public class PackedPixelLoopsTest {
+
+  private final PackedPixelLoops loops = PackedPixelLoops.get();
+
+  /*
+   * Creates pixels of noise where about a third are opaque and a third are transparent, offset by
+   * a few pixels, so the loops have pixels left over at the start and end of the arrays.
+   */
+  private static int[] noise(int length, int seed) {
+    int[] pixels = TestImages.noisePixels(length, seed);
+
+    for (int i = 0; i < length; i++) {
+      int pixel = pixels[i];
+
+      if (i / 16 % 3 == 0) {
+        pixel |= 0xFF000000;
+      } else if (i / 16 % 3 == 1 && i % 5 != 0) {
+        pixel &= 0x00FFFFFF;
+      }
+
+      pixels[i] = pixel;
+    }
+
+    return pixels;
+  }
+
+  @Test
+  public void testName() {
+    assertEquals(System.getProperty(PackedPixelLoops.PROPERTY, "scalar"), this.loops.getName());
+  }
+
+  @Test
+  public void testCombine() {
+    int[] bottom = noise(1003, 1);
+    int[] top = noise(1003, 2);
+    int[] result = new int[1003];
+
+    // Every bottom pixel is opaque for some runs of lanes, and every top pixel for others
+    for (int i = 0; i < 320; i++) {
+      bottom[i] |= 0xFF000000;
+    }
+
+    this.loops.combine(bottom, 3, top, 0, result, 1, 999);
+
+    for (int i = 0; i < 999; i++) {
+      assertEquals(PackedPixelUtil.combine(bottom[3 + i], top[i]), result[1 + i]);
+    }
+
+    // The result can replace either of the other arrays
+    int[] expected = result.clone();
+
+    this.loops.combine(bottom, 3, top, 0, top, 0, 999);
+    this.loops.combine(bottom, 3, noise(1003, 2), 0, bottom, 3, 999);
+
+    assertArrayEquals(Arrays.copyOfRange(expected, 1, 1000),
+            Arrays.copyOf(top, 999));
+    assertArrayEquals(Arrays.copyOfRange(expected, 1, 1000),
+            Arrays.copyOfRange(bottom, 3, 1002));
+  }
+
+  @Test
+  public void testMask() {
+    int[] pixels = noise(777, 3);
+    int[] expected = pixels.clone();
+
+    for (int i = 5; i < 770; i++) {
+      expected[i] &= 0xFF00FF00;
+    }
+
+    this.loops.mask(pixels, 5, 770, 0xFF00FF00);
+
+    assertArrayEquals(expected, pixels);
+  }
+
+  @Test
+  public void testAddIntensityAndMax() {
+    for (int sign : new int[] {1, -1}) {
+
+      int[] intensity = noise(1 << 12, 4);
+      int[] max = intensity.clone();
+      int[] original = intensity.clone();
+
+      this.loops.addIntensity(intensity, 1, intensity.length - 2, sign);
+      this.loops.addMax(max, 1, max.length - 2, sign);
+
+      for (int i = 0; i < original.length; i++) {
+
+        int pixel = original[i];
+        int red = PackedPixelUtil.red(pixel);
+        int green = PackedPixelUtil.green(pixel);
+        int blue = PackedPixelUtil.blue(pixel);
+        boolean changed = i >= 1 && i < original.length - 2;
+
+        assertEquals(changed ? add(pixel, sign * (int) Math.round((red + green + blue) / 3.0))
+                : pixel, intensity[i]);
+        assertEquals(changed ? add(pixel, sign * Math.max(Math.max(red, green), blue))
+                : pixel, max[i]);
+      }
+    }
+  }
+
+  @Test
+  public void testDifference() {
+    int[] top = noise(1001, 5);
+    int[] bottom = noise(1001, 6);
+    int[] original = top.clone();
+
+    this.loops.difference(top, 0, bottom, 2, 999);
+
+    for (int i = 0; i < 999; i++) {
+
+      int rgb = PackedPixelUtil.toRGB(original[i]);
+      int pixel = bottom[2 + i];
+
+      assertEquals(PackedPixelUtil.pack(
+              Math.abs(PackedPixelUtil.red(rgb) - PackedPixelUtil.red(pixel)),
+              Math.abs(PackedPixelUtil.green(rgb) - PackedPixelUtil.green(pixel)),
+              Math.abs(PackedPixelUtil.blue(rgb) - PackedPixelUtil.blue(pixel)),
+              PackedPixelUtil.alpha(pixel)), top[i]);
+    }
+
+    assertEquals(original[999], top[999]);
+  }
+
+  /*
+   * Adds the difference to each color value of the pixel, clamped between 0 and 255.
+   */
+  private static int add(int pixel, int difference) {
+    return PackedPixelUtil.pack(
+            Math.min(255, Math.max(0, PackedPixelUtil.red(pixel) + difference)),
+            Math.min(255, Math.max(0, PackedPixelUtil.green(pixel) + difference)),
+            Math.min(255, Math.max(0, PackedPixelUtil.blue(pixel) + difference)),
+            PackedPixelUtil.alpha(pixel));
+  }
+}
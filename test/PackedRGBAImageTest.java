@@ -0,0 +1,192 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import model.Image;
+import model.PackedRGBAImage;
+import model.Pixel;
+import model.RGBALayerImage;
+import model.RGBAPixel;
+import model.filters.RGBADifference;
+import model.filters.RGBARedFilter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Defines tests for the behavior of a {@code PackedRGBAImage}.
+ */
+public class PackedRGBAImageTest {
+
+  private Image image1;
+  private Image image2;
+  private Image image3;
+  private Pixel[][] pixels2;
+  private Pixel[][] pixels3;
+
+  @Before
+  public void init() {
+
+    image1 = new PackedRGBAImage(3, 3);
+    pixels2 = new RGBAPixel[][]{{new RGBAPixel(255, 255, 255, 255),
+            new RGBAPixel(134, 122, 3, 5, 255)}, {new RGBAPixel(0, 0, 0, 0, 255),
+            new RGBAPixel(10, 220, 40, 65, 255)}};
+    image2 = new PackedRGBAImage(pixels2);
+
+    pixels3 = new RGBAPixel[][]{{new RGBAPixel(255, 255, 255, 255),
+            new RGBAPixel(38, 122, 22, 25, 255)},
+        {new RGBAPixel(5, 72, 30, 120, 255),
+            new RGBAPixel(100, 60, 57, 72, 255)}};
+    image3 = new PackedRGBAImage(2, 2,
+            new int[]{0xFFFFFFFF, 0x19267A16, 0x7805481E, 0x48643C39});
+  }
+
+  @Test
+  public void createInvalidPackedRGBAImage() {
+
+    try {
+      new PackedRGBAImage(0, 1);
+      fail("Should not create image with invalid inputs");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+
+    try {
+      new PackedRGBAImage(1, 0);
+      fail("Should not create image with invalid inputs");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+
+    try {
+      new PackedRGBAImage(2, 2, null);
+      fail("Should not create image with invalid inputs");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+
+    try {
+      new PackedRGBAImage(2, 2, new int[3]);
+      fail("Should not create image with invalid inputs");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+
+    try {
+      new PackedRGBAImage(null);
+      fail("Should not create image with invalid inputs");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+
+    try {
+      new PackedRGBAImage(new Pixel[][]{{new RGBAPixel(1, 1, 1, 255), null}});
+      fail("Should not create image with invalid inputs");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+  }
+
+  @Test
+  public void testGetPixels() {
+    Pixel[][] actualPixels1 = image1.getPixels();
+
+    for (Pixel[] row : actualPixels1) {
+
+      for (Pixel pixel : row) {
+
+        assertArrayEquals(new int[]{255, 255, 255, 0}, pixel.asRGBA());
+      }
+    }
+
+    Pixel[][] actualPixels3 = image3.getPixels();
+
+    for (int i = 0; i < 2; i++) {
+
+      for (int j = 0; j < 2; j++) {
+
+        assertArrayEquals(pixels3[i][j].asRGBA(), actualPixels3[i][j].asRGBA());
+      }
+    }
+  }
+
+  @Test
+  public void testGetARGB() {
+    assertEquals(0x00FFFFFF, image1.getARGB(2, 2));
+    assertEquals(0x05867A03, image2.getARGB(0, 1));
+    assertEquals(0x410ADC28, image2.getARGB(1, 1));
+
+    assertArrayEquals(new int[]{0xFFFFFFFF, 0x05867A03, 0x00000000, 0x410ADC28},
+            image2.getARGBPixels());
+
+    try {
+      image2.getARGB(2, 0);
+      fail("Should not get a pixel outside of the image");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+  }
+
+  @Test
+  public void testGetARGBRegion() {
+    int[] dest = new int[6];
+
+    image2.getARGBRegion(0, 1, 2, 1, dest, 1, 3);
+
+    assertArrayEquals(new int[]{0, 0x05867A03, 0, 0, 0x410ADC28, 0}, dest);
+
+    try {
+      image2.getARGBRegion(1, 1, 2, 1, dest, 0, 1);
+      fail("Should not copy a region outside of the image");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+
+    try {
+      image2.getARGBRegion(0, 0, 2, 2, new int[3], 0, 2);
+      fail("Should not copy a region into a small array");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+  }
+
+  @Test
+  public void testCombineMatchesRGBALayerImage() {
+    Image expected = new RGBALayerImage(pixels2).combine(new RGBALayerImage(pixels3), 0, 0);
+
+    assertArrayEquals(expected.getARGBPixels(), image2.combine(image3, 0, 0).getARGBPixels());
+
+    expected = new RGBALayerImage(3, 3).combine(new RGBALayerImage(pixels2), 1, 1);
+
+    assertArrayEquals(expected.getARGBPixels(), image1.combine(image2, 1, 1).getARGBPixels());
+
+    try {
+      image2.combine(image1, 0, 0);
+      fail("Should not combine with an image that is not fully contained");
+    } catch (IllegalArgumentException expected1) {
+      // Do nothing, test passed
+    }
+  }
+
+  @Test
+  public void testApplyFilters() {
+    Image expected = new RGBALayerImage(pixels2).applyFilter(new RGBARedFilter());
+
+    assertArrayEquals(expected.getARGBPixels(),
+            image2.applyFilter(new RGBARedFilter()).getARGBPixels());
+
+    expected = new RGBALayerImage(pixels2).applyTwoFilter(new RGBADifference(),
+            new RGBALayerImage(pixels3));
+
+    assertArrayEquals(expected.getARGBPixels(),
+            image2.applyTwoFilter(new RGBADifference(), image3).getARGBPixels());
+  }
+
+  @Test
+  public void testGetHeightWidth() {
+    assertEquals(3, image1.getHeight());
+    assertEquals(3, image1.getWidth());
+    assertEquals(2, image2.getHeight());
+    assertEquals(2, image2.getWidth());
+  }
+}
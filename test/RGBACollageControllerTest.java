@@ -15,6 +15,7 @@ import view.CollagerTextView;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -350,6 +351,76 @@ public class RGBACollageControllerTest {
     }
   }
 
+  @Test
+  public void testLazyAddImageToLayer() throws IOException {
+    // A file with a valid header whose pixels end early
+    Files.writeString(Path.of("testTruncated.ppm"), "P3\n2 2\n255\n1 2 3 4 5 6\n");
+
+    String[] scripts = {"load-project ./res/testLoadSource.collage " +
+            "add-image-to-layer test ./res/testLoadSource.collage 0 0 quit",
+        "load-project ./res/testLoadSource.collage " +
+            "add-image-to-layer test ./res/testLoadSource.ppm 1 0 quit",
+        "load-project ./res/testLoadSource.collage " +
+            "add-image-to-layer test ./res/missing.ppm 0 0 quit",
+        "load-project ./res/testLoadSource.collage add-layer test2 add-layer test3 " +
+            "add-image-to-layer test2 ./res/testLoadSource.ppm 0 0 " +
+            "add-image-to-layer test3 ./res/testLoadSource.ppm 0 0 " +
+            "add-image-to-layer test2 ./res/testLoadSource.ppm 1 1 " +
+            "set-filter test2 darken_luma add-image-to-layer test3 ./res/testLoadSource.ppm 0 0 " +
+            "save-project testLazyResult.collage quit",
+        "load-project ./res/testLoadSource.collage " +
+            "add-image-to-layer test ./res/testLoadSource.ppm 0 0 " +
+            "add-image-to-layer test testTruncated.ppm 1 1 " +
+            "save-image testLazyResult.ppm quit",
+        "load-project ./res/testLoadSource.collage " +
+            "add-image-to-layer test testTruncated.ppm 0 0 set-filter test darken_luma " +
+            "save-project testLazyResult.collage save-image testLazyResult.ppm quit"};
+
+    // Adding images lazily plans the same project and reports the same errors
+    for (String script : scripts) {
+      Appendable eagerOut = new StringBuilder();
+      Appendable lazyOut = new StringBuilder();
+
+      new RGBACollageController(new StringReader(script), new RGBACollager(),
+              new CollagerTextView(eagerOut)).runCollage();
+
+      String eagerProject = readAndDelete("testLazyResult.collage");
+      String eagerImage = readAndDelete("testLazyResult.ppm");
+
+      new RGBACollageController(new StringReader(script), new RGBACollager(),
+              new CollagerTextView(lazyOut), true).runCollage();
+
+      assertEquals(eagerOut.toString(), lazyOut.toString());
+      assertEquals(eagerProject, readAndDelete("testLazyResult.collage"));
+      assertEquals(eagerImage, readAndDelete("testLazyResult.ppm"));
+
+      // An image that cannot be decoded is reported, and the image is still saved without it
+      if (script.contains("testTruncated.ppm")) {
+        assertTrue(lazyOut.toString().startsWith("Invalid PPM file: file ended before the "
+                + "image did\n"));
+        assertNotNull(eagerImage);
+      }
+    }
+
+    Files.delete(Path.of("testTruncated.ppm"));
+  }
+
+  private static String readAndDelete(String filename) {
+    try {
+      if (!Files.exists(Path.of(filename))) {
+        return null;
+      }
+
+      String contents = Files.readString(Path.of(filename));
+      Files.delete(Path.of(filename));
+
+      return contents;
+    } catch (IOException e) {
+      fail("Unknown IOException: " + e.getMessage());
+      return null;
+    }
+  }
+
   @Test
   public void testInvalidSetFilter() {
     Readable in1 = new StringReader("set-filter test red_filter quit");
@@ -531,6 +602,8 @@ public class RGBACollageControllerTest {
             "the provided dimensions\n" +
             "    CANVAS-HEIGHT and CANVAS-WIDTH must be integers\n" +
             "    there are no layers by default\n" +
+            "    add -mapped before the dimensions to keep the images in scratch files " +
+            "instead of memory\n" +
             "load-project PATH-TO-PROJECT-FILE -- loads a project from a .collage formatted " +
             "file\nsave-project PATH-TO-PROJECT-FILE -- saves the project in the .collage " +
             "format to the specified file\nadd-layer LAYER-NAME -- adds a layer to the project " +
@@ -564,10 +637,26 @@ public class RGBACollageControllerTest {
             " the different of RGB values of the composite image and top image \n" +
             "save-image PATH-TO-IMAGE-FILE -- save the result of applying all filters on " +
             "their respective layers, and combining those layers\n" +
+            "cache-stats -- displays how many times the combined layers were reused or " +
+            "combined again\n" +
             "quit -- quits the program\n" +
             "help -- displays this dialog\n", out.toString());
   }
 
+  @Test
+  public void testCacheStats() {
+    Readable in = new StringReader("new-project 2 2 add-layer bottom add-layer top cache-stats "
+            + "save-image testCacheResult.ppm save-image testCacheResult.ppm cache-stats quit");
+    Appendable out = new StringBuilder();
+
+    new RGBACollageController(in, new RGBACollager(), new CollagerTextView(out)).runCollage();
+    readAndDelete("testCacheResult.ppm");
+
+    // The second save uses the layers combined by the first
+    assertEquals("Cache hits: 0, cache misses: 0\nCache hits: 1, cache misses: 1\nQuit!\n",
+            out.toString());
+  }
+
   @Test
   public void testInvalidCommand() {
     Readable in = new StringReader("ragh");
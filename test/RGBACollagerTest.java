@@ -2,22 +2,33 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 
 import controller.utils.ImageUtil;
+import helpers.TestImages;
 import model.Collager;
 import model.Image;
+import model.ImageWriter;
 import model.Layer;
+import model.LazyImage;
+import model.MappedRGBAImage;
+import model.PackedRGBAImage;
 import model.Pixel;
 import model.RGBACollager;
 import model.RGBALayerImage;
 import model.RGBAPixel;
+import model.utils.PackedPixelUtil;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -710,6 +721,124 @@ public class RGBACollagerTest {
     }
   }
 
+  @Test
+  public void testCreateJavaImageMatchesSetRGB() throws IOException {
+    Image noise = TestImages.noise(90, 70);
+    Path directory = Files.createTempDirectory("javaimagetest");
+    directory.toFile().deleteOnExit();
+
+    for (Image image : List.of(noise,
+            new MappedRGBAImage(90, 70, directory).combine(noise, 0, 0))) {
+
+      BufferedImage argb = collage1.createJavaImage(image, BufferedImage.TYPE_INT_ARGB);
+      BufferedImage rgb = collage1.createJavaImage(image, BufferedImage.TYPE_INT_RGB);
+      BufferedImage premultiplied = collage1.createJavaImage(image,
+              BufferedImage.TYPE_INT_ARGB_PRE);
+
+      assertEquals(BufferedImage.TYPE_INT_ARGB, argb.getType());
+      assertEquals(BufferedImage.TYPE_INT_RGB, rgb.getType());
+      assertEquals(BufferedImage.TYPE_INT_ARGB_PRE, premultiplied.getType());
+
+      // Each pixel matches setting it through the color model
+      int[] expected = image.getARGBPixels();
+      BufferedImage expectedARGB = new BufferedImage(70, 90, BufferedImage.TYPE_INT_ARGB);
+      BufferedImage expectedRGB = new BufferedImage(70, 90, BufferedImage.TYPE_INT_RGB);
+
+      for (int y = 0; y < 90; y++) {
+
+        for (int x = 0; x < 70; x++) {
+          expectedARGB.setRGB(x, y, expected[y * 70 + x]);
+          expectedRGB.setRGB(x, y, PackedPixelUtil.toRGB(expected[y * 70 + x]));
+        }
+      }
+
+      assertArrayEquals(expectedARGB.getRGB(0, 0, 70, 90, null, 0, 70),
+              argb.getRGB(0, 0, 70, 90, null, 0, 70));
+      assertArrayEquals(expectedRGB.getRGB(0, 0, 70, 90, null, 0, 70),
+              rgb.getRGB(0, 0, 70, 90, null, 0, 70));
+
+      // The premultiplied values are the RGB form of each pixel, with its alpha level
+      int[] data = ((DataBufferInt) premultiplied.getRaster().getDataBuffer()).getData();
+
+      for (int i = 0; i < expected.length; i++) {
+        assertEquals(PackedPixelUtil.toRGB(expected[i]) | expected[i] & 0xFF000000, data[i]);
+      }
+    }
+  }
+
+  @Test
+  public void testAddBufferedImageTypes() {
+    int[] noise = TestImages.noisePixels(90 * 70, 0);
+    BufferedImage argb = new BufferedImage(70, 90, BufferedImage.TYPE_INT_ARGB);
+
+    for (int y = 0; y < 90; y++) {
+
+      for (int x = 0; x < 70; x++) {
+
+        int color = noise[y * 70 + x];
+        int alpha = (x + y) % 3 == 0 ? 255 : ((color >>> 24) | 0x80);
+
+        // Every color value is at most the opacity, or the pixel cannot be added
+        argb.setRGB(x, y, PackedPixelUtil.pack(Math.min(alpha, color >> 16 & 0xFF),
+                Math.min(alpha, color >> 8 & 0xFF), Math.min(alpha, color & 0xFF), alpha));
+      }
+    }
+
+    for (int type : new int[]{BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_RGB,
+        BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR,
+        BufferedImage.TYPE_INT_ARGB_PRE, BufferedImage.TYPE_USHORT_565_RGB}) {
+
+      BufferedImage converted = new BufferedImage(70, 90, type);
+      converted.createGraphics().drawImage(argb, 0, 0, null);
+
+      for (BufferedImage image : List.of(converted, converted.getSubimage(5, 7, 40, 50))) {
+
+        // Each pixel is converted the same way as reading it through the color model
+        int[] expected = new int[image.getHeight() * image.getWidth()];
+        boolean valid = true;
+
+        for (int i = 0; i < expected.length; i++) {
+
+          int pixel = image.getRGB(i % image.getWidth(), i / image.getWidth());
+
+          try {
+            expected[i] = PackedPixelUtil.packOpaque(PackedPixelUtil.red(pixel),
+                    PackedPixelUtil.green(pixel), PackedPixelUtil.blue(pixel),
+                    PackedPixelUtil.alpha(pixel));
+          } catch (IllegalArgumentException e) {
+            valid = false;
+          }
+        }
+
+        Collager collager = new RGBACollager(image.getHeight(), image.getWidth());
+        collager.addLayer("layer");
+
+        try {
+          collager.addImage("layer", image, 0, 0);
+          assertTrue(valid);
+        } catch (IllegalArgumentException e) {
+          // Premultiplying can round a color value above the opacity
+          assertFalse(valid);
+          continue;
+        }
+
+        assertArrayEquals(expected, collager.getFinalImage().getARGBPixels());
+      }
+    }
+
+    BufferedImage invalid = new BufferedImage(1, 1, BufferedImage.TYPE_4BYTE_ABGR);
+    invalid.setRGB(0, 0, 0x80FF0000);
+    collage1.createProject(1, 1);
+    collage1.addLayer("layer");
+
+    try {
+      collage1.addImage("layer", invalid, 0, 0);
+      fail("Should not add a pixel with a color value greater than its opacity");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+  }
+
   @Test
   public void testInvalidCreateJavaImage() {
 
@@ -728,6 +857,624 @@ public class RGBACollagerTest {
     }
   }
 
+  @Test
+  public void testCompositeCache() {
+    RGBACollager collager = new RGBACollager(2, 2);
+    Image red = new RGBALayerImage(new Pixel[][]{{new RGBAPixel(200, 10, 10, 255),
+        new RGBAPixel(5, 5, 5, 100, 255)}});
+
+    collager.addLayer("bottom");
+    collager.addLayer("top");
+    collager.addImage("bottom", red, 0, 0);
+    collager.addImage("top", red, 1, 0);
+
+    int[] first = collager.getFinalImage().getARGBPixels();
+    assertEquals(0, collager.getCacheHits());
+    assertEquals(1, collager.getCacheMisses());
+
+    assertArrayEquals(first, collager.getFinalImage().getARGBPixels());
+    collager.getImageAtLayer("bottom");
+    assertEquals(2, collager.getCacheHits());
+    assertEquals(1, collager.getCacheMisses());
+
+    collager.setFilter("top", "inversion_difference");
+    collager.getImageAtLayer("bottom");
+    assertEquals(3, collager.getCacheHits());
+
+    Collager uncached = new RGBACollager(2, 2);
+    uncached.addLayer("bottom");
+    uncached.addLayer("top");
+    uncached.addImage("bottom", red, 0, 0);
+    uncached.addImage("top", red, 1, 0);
+    uncached.setFilter("top", "inversion_difference");
+
+    assertArrayEquals(uncached.getFinalImage().getARGBPixels(),
+            collager.getFinalImage().getARGBPixels());
+    assertEquals(2, collager.getCacheMisses());
+
+    collager.addImage("bottom", red, 1, 0);
+    uncached.addImage("bottom", red, 1, 0);
+
+    assertArrayEquals(uncached.getFinalImage().getARGBPixels(),
+            collager.getFinalImage().getARGBPixels());
+    assertEquals(3, collager.getCacheMisses());
+
+    // Changing the filter of a returned layer does not change the project or its cache
+    collager.getLayers().get(1).updateFilter("red_filter");
+
+    assertEquals("inversion_difference", collager.getLayers().get(1).getFilterName());
+    assertArrayEquals(uncached.getFinalImage().getARGBPixels(),
+            collager.getFinalImage().getARGBPixels());
+  }
+
+  @Test
+  public void testParallelism() {
+    try {
+      collage1.setParallelism(0);
+      fail("Should not set parallelism below 1");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+
+    Image noise = TestImages.noise(90, 70);
+    Collager serial = new RGBACollager(150, 140);
+    Collager parallel = new RGBACollager(150, 140);
+
+    serial.setParallelism(1);
+    parallel.setParallelism(4);
+    assertEquals(1, serial.getParallelism());
+    assertEquals(4, parallel.getParallelism());
+
+    for (Collager collager : List.of(serial, parallel)) {
+      collager.addLayer("bottom");
+      collager.addLayer("middle");
+      collager.addLayer("top");
+      collager.addImage("bottom", noise, 0, 0);
+      collager.addImage("middle", noise, 50, 60);
+      collager.addImage("top", noise, 30, 10);
+      collager.setFilter("middle", "brighten_screen");
+      collager.setFilter("top", "darken_luma");
+    }
+
+    assertArrayEquals(serial.getImageAtLayer("middle").getARGBPixels(),
+            parallel.getImageAtLayer("middle").getARGBPixels());
+    assertArrayEquals(serial.getFinalImage().getARGBPixels(),
+            parallel.getFinalImage().getARGBPixels());
+
+    serial.addImage("bottom", noise, 60, 70);
+    parallel.addImage("bottom", noise, 60, 70);
+
+    assertArrayEquals(serial.getFinalImage().getARGBPixels(),
+            parallel.getFinalImage().getARGBPixels());
+
+    // Changing the parallelism stops the threads of the old renderer
+    long threads = renderThreads();
+
+    for (int i = 0; i < 20; i++) {
+      parallel.setParallelism(2 + i % 2);
+      parallel.addImage("top", noise, i, i);
+      parallel.getFinalImage();
+    }
+
+    long deadline = System.currentTimeMillis() + 10000;
+
+    while (renderThreads() > threads && System.currentTimeMillis() < deadline) {
+      Thread.onSpinWait();
+    }
+
+    assertTrue(renderThreads() <= threads);
+  }
+
+  /*
+   * Counts the live threads of ForkJoinPools other than the common pool.
+   */
+  private static long renderThreads() {
+    return Thread.getAllStackTraces().keySet().stream()
+            .filter(thread -> thread.getName().matches("ForkJoinPool-\\d+-worker-\\d+"))
+            .count();
+  }
+
+  @Test
+  public void testPixelBudget() {
+    try {
+      collage1.setPixelBudget(0);
+      fail("Should not set pixel budget below 1");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+
+    assertEquals(RGBACollager.DEFAULT_PIXEL_BUDGET, collage1.getPixelBudget());
+
+    Image noise = TestImages.noise(90, 70);
+    Collager heap = new RGBACollager();
+    Collager budget = new RGBACollager();
+    Collager mapped = new RGBACollager();
+
+    heap.createProject(150, 140);
+    budget.setPixelBudget(150 * 140 - 1);
+    assertEquals(150 * 140 - 1, budget.getPixelBudget());
+    budget.createProject(150, 140);
+    mapped.createProject(150, 140, true);
+
+    for (Collager collager : List.of(heap, budget, mapped)) {
+      collager.addLayer("bottom");
+      collager.addLayer("middle");
+      collager.addLayer("top");
+      collager.addImage("bottom", noise, 0, 0);
+      collager.addImage("middle", noise, 50, 60);
+      collager.addImage("top", noise, 30, 10);
+      collager.setFilter("middle", "brighten_screen");
+      collager.setFilter("top", "darken_luma");
+    }
+
+    TestImages.assertSameRenders(List.of(heap, budget, mapped), "middle");
+
+    for (Collager collager : List.of(budget, mapped)) {
+      collager.addImage("bottom", noise, 60, 70);
+    }
+
+    heap.addImage("bottom", noise, 60, 70);
+
+    TestImages.assertSameRenders(List.of(heap, budget, mapped));
+  }
+
+  @Test
+  public void testMappedRendersReleaseScratchFiles() {
+    Image noise = TestImages.noise(90, 70);
+    Collager collager = new RGBACollager();
+
+    collager.createProject(150, 140, true);
+    collager.addLayer("bottom");
+    collager.addLayer("top");
+    collager.addImage("bottom", noise, 0, 0);
+    collager.addImage("top", noise, 50, 60);
+
+    Image first = collager.getFinalImage();
+    long scratchBytes = MappedRGBAImage.getScratchBytes();
+
+    // Every render and edit replaces the images it changes, whose scratch files are released
+    for (int i = 0; i < 20; i++) {
+      collager.addImage("top", noise, i, i);
+      collager.getFinalImage();
+      collager.setFilter("top", i % 2 == 0 ? "darken_luma" : "brighten_screen");
+      collager.getImageAtLayer("top");
+    }
+
+    assertEquals(scratchBytes, MappedRGBAImage.getScratchBytes());
+
+    try {
+      first.getARGB(0, 0);
+      fail("Should not read a composite that was replaced");
+    } catch (IllegalStateException expected) {
+      assertEquals("Image has been released", expected.getMessage());
+    }
+
+    // Creating a new project releases the images of the old one
+    collager.createProject(150, 140, true);
+
+    assertEquals(scratchBytes - 4L * 4 * 150 * 140, MappedRGBAImage.getScratchBytes());
+  }
+
+  @Test
+  public void testInterruptedRender() {
+    Image noise = TestImages.noise(90, 70);
+    Collager collager = new RGBACollager(150, 140);
+
+    collager.addLayer("bottom");
+    collager.addLayer("top");
+    collager.addImage("bottom", noise, 0, 0);
+    collager.addImage("top", noise, 30, 10);
+    collager.setFilter("top", "brighten_screen");
+    collager.setParallelism(2);
+
+    Thread.currentThread().interrupt();
+
+    try {
+      collager.getFinalImage();
+      fail("Should not render an image while interrupted");
+    } catch (CancellationException expected) {
+      // Do nothing, test passed
+    } finally {
+      assertTrue(Thread.interrupted());
+    }
+
+    // The project is unchanged, so the image renders once the thread is no longer interrupted
+    Collager expected = new RGBACollager(150, 140);
+
+    expected.addLayer("bottom");
+    expected.addLayer("top");
+    expected.addImage("bottom", noise, 0, 0);
+    expected.addImage("top", noise, 30, 10);
+    expected.setFilter("top", "brighten_screen");
+
+    assertArrayEquals(expected.getFinalImage().getARGBPixels(),
+            collager.getFinalImage().getARGBPixels());
+  }
+
+  @Test
+  public void testAddManyImagesToLayer() {
+    Image noise = TestImages.noise(20, 30);
+    Collager batched = new RGBACollager(150, 140);
+    Collager mapped = new RGBACollager();
+    Collager rendered = new RGBACollager(150, 140);
+
+    mapped.createProject(150, 140, true);
+
+    for (Collager collager : List.of(batched, mapped, rendered)) {
+      collager.addLayer("bottom");
+      collager.addLayer("top");
+    }
+
+    Layer before = mapped.getLayers().get(0);
+    int[] beforePixels = before.getImage().getARGBPixels();
+
+    for (int i = 0; i < 60; i++) {
+
+      String layer = i % 20 < 15 ? "bottom" : "top";
+
+      for (Collager collager : List.of(batched, mapped, rendered)) {
+        collager.addImage(layer, noise, i * 37 % 130, i * 53 % 110);
+
+        if (i == 30) {
+          collager.setFilter("bottom", "darken_luma");
+        }
+      }
+
+      // Rendering after every image finishes the edits of the layer every time
+      rendered.getFinalImage();
+
+      if (i == 40) {
+        assertArrayEquals(rendered.getImageAtLayer("bottom").getARGBPixels(),
+                batched.getImageAtLayer("bottom").getARGBPixels());
+      }
+    }
+
+    TestImages.assertSameRenders(List.of(rendered, batched, mapped));
+    assertEquals(rendered.getLayers().get(0).getBounds(), batched.getLayers().get(0).getBounds());
+
+    // Editing a layer never changes an image of the layer that was already read
+    assertArrayEquals(beforePixels, before.getImage().getARGBPixels());
+  }
+
+  @Test
+  public void testSparseLayers() {
+    Image noise = TestImages.noise(20, 30);
+    List<Collager> collagers = TestImages.heapAndMapped(300, 400);
+
+    for (Collager collager : collagers) {
+
+      for (int i = 0; i < 5; i++) {
+        collager.addLayer("layer" + i);
+      }
+
+      collager.addImage("layer0", noise, 0, 0);
+      collager.setFilter("layer1", "brighten_luma");
+      collager.setFilter("layer3", "darken_multiply");
+      collager.addImage("layer2", noise, 10, 5);
+      collager.addImage("layer2", noise, 270, 360);
+      collager.addImage("layer3", noise, 100, 200);
+      collager.addImage("layer4", noise, 150, 70);
+    }
+
+    TestImages.assertSameRenders(collagers);
+
+    // Only part of the bounds of the layer changes, the rest of the cached composites are reused
+    for (Collager collager : collagers) {
+      collager.addImage("layer2", noise, 140, 60);
+      collager.addImage("layer4", noise, 5, 370);
+    }
+
+    TestImages.assertSameRenders(collagers, "layer2");
+  }
+
+  @Test
+  public void testCreateImages() {
+    int[] pixels = TestImages.noisePixels(6 * 5, 1);
+
+    // Written images are stored the same way as the images of the project
+    for (Collager collager : TestImages.heapAndMapped(6, 5)) {
+      ImageWriter writer = collager.createImageWriter(6, 5);
+      writer.setARGBRegion(0, 0, 6, 5, pixels, 0, 5);
+
+      assertArrayEquals(pixels, writer.getImage().getARGBPixels());
+
+      Image lazy = collager.createLazyImage(6, 5, false, writer::getImage);
+      assertEquals(6, lazy.getHeight());
+      assertArrayEquals(pixels, lazy.getARGBPixels());
+    }
+
+    assertTrue(TestImages.heapAndMapped(6, 5).get(1).createImageWriter(6, 5).getImage()
+            instanceof MappedRGBAImage);
+
+    try {
+      collage1.createImageWriter(0, 5);
+      fail("Should not create an image with an invalid size");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+  }
+
+  @Test
+  public void testAddLayersToHugeCanvas() {
+    RGBACollager collager = new RGBACollager();
+
+    // Blank layers take no memory, so neither storage allocates the canvas for them
+    for (boolean mapped : new boolean[] {false, true}) {
+      collager.setPixelBudget(Long.MAX_VALUE);
+      collager.createProject(100000, 100000, mapped);
+
+      for (int i = 0; i < 100; i++) {
+        collager.addLayer("layer" + i);
+      }
+
+      assertEquals(PackedPixelUtil.TRANSPARENT,
+              collager.getLayers().get(99).getImage().getARGB(99999, 99999));
+    }
+
+    collager.createProject(100000, 100000, false);
+    collager.addLayer("bottom");
+    collager.addLayer("top");
+    collager.addImage("top", new PackedRGBAImage(1, 1, new int[] {0xFF102030}), 99999, 5);
+
+    Image top = collager.getLayers().get(1).getImage();
+
+    assertEquals(0xFF102030, top.getARGB(99999, 5));
+    assertEquals(PackedPixelUtil.TRANSPARENT, top.getARGB(99999, 4));
+    assertEquals(PackedPixelUtil.TRANSPARENT,
+            collager.getLayers().get(0).getImage().getARGB(99999, 5));
+  }
+
+  @Test
+  public void testLazyImagesArePlanned() {
+    int[] pixels = TestImages.noisePixels(20 * 30, 0);
+
+    for (int i = 0; i < pixels.length; i++) {
+      pixels[i] |= 0xFF000000;
+    }
+
+    Image opaque = new PackedRGBAImage(20, 30, pixels);
+    Image noise = new PackedRGBAImage(20, 30, new int[20 * 30]).combine(
+            new PackedRGBAImage(10, 30, Arrays.copyOf(pixels, 10 * 30)), 5, 0);
+    List<String> loads = new ArrayList<>();
+
+    for (boolean mapped : new boolean[] {false, true}) {
+      Collager eager = new RGBACollager();
+      Collager lazy = new RGBACollager();
+
+      for (Collager collager : List.of(eager, lazy)) {
+        collager.createProject(60, 70, mapped);
+        collager.addLayer("bottom");
+        collager.addLayer("top");
+      }
+
+      loads.clear();
+
+      for (int i = 0; i < 12; i++) {
+
+        String layer = i % 3 == 0 ? "top" : "bottom";
+        Image image = i % 4 == 1 ? noise : opaque;
+        int startY = i * 13 % 40;
+        int startX = i * 7 % 40;
+        String name = "image" + i;
+
+        eager.addImage(layer, image, startY, startX);
+        lazy.addImage(layer, new LazyImage(20, 30, image == opaque, () -> {
+          loads.add(name);
+          return image;
+        }), startY, startX);
+      }
+
+      // The last opaque image covers both images below it, so they are never loaded
+      int[] coverPixels = new int[25 * 35];
+      Arrays.fill(coverPixels, 0xFF123456);
+      List<Image> covers = List.of(opaque, opaque, new PackedRGBAImage(25, 35, coverPixels));
+      int[][] positions = {{9, 10}, {6, 6}, {5, 5}};
+
+      for (int i = 0; i < covers.size(); i++) {
+
+        Image cover = covers.get(i);
+        String name = "cover" + i;
+
+        eager.addImage("bottom", cover, positions[i][0], positions[i][1]);
+        lazy.addImage("bottom", new LazyImage(cover.getHeight(), cover.getWidth(), true, () -> {
+          loads.add(name);
+          return cover;
+        }), positions[i][0], positions[i][1]);
+      }
+
+      assertTrue(loads.isEmpty());
+      assertEquals(eager.getLayers().get(0).getBounds(), lazy.getLayers().get(0).getBounds());
+      assertArrayEquals(eager.getFinalImage().getARGBPixels(),
+              lazy.getFinalImage().getARGBPixels());
+      assertEquals(13, loads.size());
+      assertTrue(loads.contains("cover2"));
+      assertFalse(loads.contains("cover0") || loads.contains("cover1"));
+    }
+  }
+
+  @Test
+  public void testLazyImageThatCannotBeLoaded() {
+    Image opaque = new PackedRGBAImage(2, 2, new int[] {0xFF102030, 0xFF405060, 0xFF708090,
+        0xFFA0B0C0});
+    Collager collager = new RGBACollager(4, 4);
+
+    collager.addLayer("layer");
+    collager.addImage("layer", new LazyImage(2, 2, true, () -> opaque), 0, 0);
+    collager.addImage("layer", new LazyImage(2, 2, true, () -> {
+      throw new IllegalArgumentException("File missing.ppm not found");
+    }), 2, 2);
+    collager.addImage("layer", new LazyImage(2, 2, true, () -> opaque), 0, 2);
+
+    // An opaque image that cannot be loaded does not hide the image that it would cover
+    collager.addImage("layer", new LazyImage(2, 2, true, () -> {
+      throw new IllegalStateException("File covering.ppm could not be read");
+    }), 0, 0);
+
+    assertEquals(List.of(), collager.takeLoadErrors());
+
+    // The images that cannot be loaded are left out, and the rest are still added
+    Image expected = new PackedRGBAImage(4, 4).combine(opaque, 0, 0).combine(opaque, 0, 2);
+
+    assertArrayEquals(expected.getARGBPixels(), collager.getFinalImage().getARGBPixels());
+
+    List<RuntimeException> errors = collager.takeLoadErrors();
+
+    assertEquals(2, errors.size());
+    assertEquals("File missing.ppm not found", errors.get(0).getMessage());
+    assertEquals("File covering.ppm could not be read", errors.get(1).getMessage());
+    assertEquals(List.of(), collager.takeLoadErrors());
+  }
+
+  @Test
+  public void testManyLayers() {
+    Collager collager = new RGBACollager(20, 30);
+    List<String> names = new ArrayList<>();
+
+    for (int i = 0; i < 500; i++) {
+      names.add("layer" + (i * 7919 % 500));
+      collager.addLayer(names.get(i));
+    }
+
+    // Layers keep the order that they were added in, and are found by name
+    assertEquals(names, collager.getLayerNames());
+
+    collager.addImage("layer123", new PackedRGBAImage(2, 2, new int[]{0xFF010203, 0xFF040506,
+        0xFF070809, 0xFF0A0B0C}), 3, 4);
+    collager.setFilter("layer123", "red_filter");
+
+    assertEquals("red_filter", collager.getLayers().get(names.indexOf("layer123"))
+            .getFilterName());
+    assertEquals(0xFF010000, collager.getImageAtLayer("layer123").getARGB(3, 4));
+
+    try {
+      collager.addLayer("layer499");
+      fail("Should not add a layer with a name that already exists");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+
+    // Creating a new project forgets the names of the old layers
+    collager.createProject(20, 30);
+    collager.addLayer("layer499");
+
+    assertEquals(List.of("layer499"), collager.getLayerNames());
+
+    try {
+      collager.setFilter("layer123", "normal");
+      fail("Should not set the filter of a layer that no longer exists");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+  }
+
+  @Test
+  public void testPreviews() {
+    Image noise = TestImages.noise(90, 70);
+    Collager collager = new RGBACollager(150, 140);
+
+    collager.addLayer("bottom");
+    collager.addLayer("top");
+    collager.addImage("bottom", noise, 0, 0);
+    collager.addImage("top", noise, 30, 10);
+    collager.setFilter("top", "brighten_screen");
+
+    // The canvas is halved until it fits
+    Image preview = collager.getFinalPreview(40, 40);
+
+    assertEquals(38, preview.getHeight());
+    assertEquals(35, preview.getWidth());
+    assertEquals(1, collager.getPreviewAtLayer("bottom", 1, 1000).getHeight());
+    assertEquals(1, collager.getPreviewAtLayer("bottom", 1, 1000).getWidth());
+
+    // A canvas that already fits is the full image
+    assertArrayEquals(collager.getFinalImage().getARGBPixels(),
+            collager.getFinalPreview(150, 140).getARGBPixels());
+
+    // Updating the previews only where images were added matches creating them from scratch
+    collager.addImage("bottom", noise, 60, 70);
+    collager.addImage("top", noise.getRegion(5, 5, 13, 9), 101, 3);
+    collager.setFilter("bottom", "red_filter");
+
+    Collager expected = new RGBACollager(150, 140);
+
+    expected.addLayer("bottom");
+    expected.addLayer("top");
+    expected.addImage("bottom", noise, 0, 0);
+    expected.addImage("top", noise, 30, 10);
+    expected.setFilter("top", "brighten_screen");
+    expected.addImage("bottom", noise, 60, 70);
+    expected.addImage("top", noise.getRegion(5, 5, 13, 9), 101, 3);
+    expected.setFilter("bottom", "red_filter");
+
+    assertArrayEquals(expected.getFinalPreview(40, 40).getARGBPixels(),
+            collager.getFinalPreview(40, 40).getARGBPixels());
+    assertArrayEquals(expected.getPreviewAtLayer("bottom", 9, 9).getARGBPixels(),
+            collager.getPreviewAtLayer("bottom", 9, 9).getARGBPixels());
+
+    try {
+      collager.getFinalPreview(0, 10);
+      fail("Should not get a preview with an invalid size");
+    } catch (IllegalArgumentException expected1) {
+      // Do nothing, test passed
+    }
+
+    try {
+      collager.getPreviewAtLayer("missing", 10, 10);
+      fail("Should not get a preview of a layer that does not exist");
+    } catch (IllegalArgumentException expected1) {
+      // Do nothing, test passed
+    }
+  }
+
+  @Test
+  public void testPreviewAveragesPixels() {
+    Collager collager = new RGBACollager(2, 3);
+
+    collager.addLayer("layer");
+    collager.addImage("layer", new PackedRGBAImage(2, 3, new int[]{0xFFFF0000, 0x00FFFFFF,
+        0xFF000000, 0xFF0000FF, 0x00FFFFFF, 0x8000FF00}), 0, 0);
+
+    // Transparent pixels do not change the color of the average, only its opacity
+    assertArrayEquals(new int[]{0x80800080, 0xC0005500},
+            collager.getFinalPreview(1, 2).getARGBPixels());
+  }
+
+  @Test
+  public void testLayersMatchUnfusedFilters() {
+    Image noise = TestImages.noise(90, 70);
+    Collager collager = new RGBACollager(150, 140);
+    String[] filters = collager.getFilterNames();
+
+    // Each filter is used on a layer of its own, which only partly covers some tiles
+    for (int i = 0; i < filters.length; i++) {
+      collager.addLayer("layer" + i);
+      collager.addImage("layer" + i, noise, i * 4, i * 5);
+      collager.setFilter("layer" + i, filters[i]);
+    }
+
+    Image expected = null;
+
+    for (Layer layer : collager.getLayers()) {
+
+      if (expected == null) {
+        expected = layer.applyFilter().getImage();
+      } else {
+        try {
+          expected = layer.applyTwoFilter(expected).getImage();
+        } catch (IllegalStateException e) {
+          // Do nothing, filter is not a TwoFilter
+        }
+
+        expected = expected.combine(layer.applyFilter().getImage(), 0, 0);
+      }
+
+      assertArrayEquals(expected.getARGBPixels(),
+              collager.getImageAtLayer(layer.getLayerName()).getARGBPixels());
+    }
+
+    assertArrayEquals(expected.getARGBPixels(), collager.getFinalImage().getARGBPixels());
+  }
+
   @Test
   public void testGetFilterNames() {
     assertArrayEquals(new String[]{"normal", "red_filter", "blue_filter", "green_filter",
@@ -1,6 +1,8 @@
 import org.junit.Before;
 import org.junit.Test;
 
+import java.awt.Rectangle;
+
 import model.Image;
 import model.Layer;
 import model.Pixel;
@@ -16,6 +18,8 @@ import static model.filters.FilterName.NORMAL;
 import static model.filters.FilterName.RED_FILTER;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 /**
@@ -495,6 +499,44 @@ public class RGBALayerTest {
 
   }
 
+  @Test
+  public void testGetBounds() {
+    Layer layer = new RGBALayer("bounds", NORMAL, 5, 6);
+
+    assertTrue(layer.getBounds().isEmpty());
+
+    layer = layer.combine(image2, 1, 2);
+    assertEquals(new Rectangle(2, 1, 2, 2), layer.getBounds());
+
+    layer = layer.combine(image3, 3, 4);
+    assertEquals(new Rectangle(2, 1, 4, 4), layer.getBounds());
+
+    assertEquals(new Rectangle(0, 0, 6, 5), layer.applyFilter().getBounds());
+  }
+
+  @Test
+  public void testGetRegion() {
+    Layer layer = new RGBALayer("region", RED_FILTER, 4, 4).combine(image2, 1, 1);
+    Layer region = layer.getRegion(2, 0, 2, 3);
+
+    assertEquals("region", region.getLayerName());
+    assertEquals("red_filter", region.getFilterName());
+    assertEquals(2, region.getImage().getHeight());
+    assertEquals(3, region.getImage().getWidth());
+    assertEquals(new Rectangle(1, 0, 2, 1), region.getBounds());
+    assertArrayEquals(new int[]{0x00FFFFFF, 0x00000000, 0x410ADC28, 0x00FFFFFF, 0x00FFFFFF,
+        0x00FFFFFF}, region.getImage().getARGBPixels());
+
+    assertTrue(layer.getRegion(0, 0, 1, 4).getBounds().isEmpty());
+
+    try {
+      layer.getRegion(3, 0, 2, 2);
+      fail("Should not get a region outside of the layer");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+  }
+
   @Test
   public void testInvalidApplyTwoFilter() {
 
@@ -558,4 +600,13 @@ public class RGBALayerTest {
     }
   }
 
-}
\ No newline at end of file
+  @Test
+  public void testGetImageIsShared() {
+    Layer layer = new RGBALayer("layer", NORMAL, 2, 3).combine(new RGBALayerImage(1, 1), 1, 2);
+
+    // Images never change, so the layer does not copy its image
+    assertSame(layer.getImage(), layer.getImage());
+    assertEquals(2, layer.getImage().getHeight());
+    assertEquals(3, layer.getImage().getWidth());
+  }
+}
@@ -1,11 +1,17 @@
 import org.junit.Before;
 import org.junit.Test;
 
+import model.PackedRGBAImage;
 import model.Pixel;
+import model.RGBALayerImage;
 import model.RGBAPixel;
+import model.utils.PackedPixelUtil;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 /**
@@ -275,10 +281,109 @@ public class RGBAPixelTest {
     assertArrayEquals(new int[]{133, 28, 63, 252}, c4.asRGBA());
   }
 
+  @Test
+  public void testCombineMatchesDoubles() {
+    // Every pair of alpha levels, with values that are combined exactly and approximately
+    for (int topAlpha = 0; topAlpha < 256; topAlpha++) {
+      for (int bottomAlpha = 0; bottomAlpha < 256; bottomAlpha++) {
+        for (int value = 0; value < 256; value += 15) {
+
+          int top = PackedPixelUtil.pack(value, 255 - value, 1, topAlpha);
+          int bottom = PackedPixelUtil.pack(0, value, 255 - value, bottomAlpha);
+          int expected = combineDoubles(bottom, top);
+
+          assertEquals(expected, PackedPixelUtil.combine(bottom, top));
+
+          int fast = PackedPixelUtil.combineFast(bottom, top);
+
+          assertEquals(PackedPixelUtil.alpha(expected), PackedPixelUtil.alpha(fast));
+          assertTrue(Math.abs(PackedPixelUtil.red(expected) - PackedPixelUtil.red(fast)) <= 1);
+          assertTrue(Math.abs(PackedPixelUtil.green(expected) - PackedPixelUtil.green(fast))
+                  <= 1);
+          assertTrue(Math.abs(PackedPixelUtil.blue(expected) - PackedPixelUtil.blue(fast)) <= 1);
+        }
+      }
+    }
+
+    // Red values that are exactly halfway between two integers are rounded like the doubles,
+    // which is up to 127 for 126.5 but down to 131 for 131.5
+    assertEquals(0x047F0000, PackedPixelUtil.combine(0x02FE0000, 0x02000000));
+    assertEquals(0x08830000, PackedPixelUtil.combine(0x06AE0000, 0x02050000));
+  }
+
+  @Test
+  public void testPremultiplyMatchesDoubles() {
+    for (int alpha = 0; alpha < 256; alpha++) {
+      for (int value = 0; value < 256; value++) {
+
+        int expected = (int) Math.round(value * (alpha / 255.0));
+        int pixel = PackedPixelUtil.pack(value, 255 - value, value / 2, alpha);
+        int premultiplied = PackedPixelUtil.premultiply(pixel);
+
+        assertEquals(alpha, PackedPixelUtil.alpha(premultiplied));
+        assertEquals(expected, PackedPixelUtil.red(premultiplied));
+        assertEquals(premultiplied & 0x00FFFFFF, PackedPixelUtil.toRGB(pixel));
+      }
+    }
+  }
+
+  @Test
+  public void testOf() {
+    RGBAPixel pixel = RGBAPixel.of(199, 37, 99, 240);
+
+    assertArrayEquals(new int[]{199, 37, 99, 240}, pixel.asRGBA());
+    assertEquals(PackedPixelUtil.pack(199, 37, 99, 240), pixel.asARGB());
+
+    // Pixels with the same values are shared while they are cached
+    long lookups = RGBAPixel.getCacheLookups();
+
+    assertSame(pixel, RGBAPixel.of(199, 37, 99, 240));
+    assertEquals(lookups + 1, RGBAPixel.getCacheLookups());
+    assertTrue(RGBAPixel.getCacheHitRate() > 0 && RGBAPixel.getCacheHitRate() <= 1);
+    assertNotSame(pixel, RGBAPixel.of(199, 37, 99, 241));
+
+    // Blank pixels are always shared, and not counted as lookups
+    lookups = RGBAPixel.getCacheLookups();
+
+    assertSame(RGBAPixel.TRANSPARENT, RGBAPixel.of(255, 255, 255, 0));
+    assertSame(RGBAPixel.WHITE, RGBAPixel.of(255, 255, 255, 255));
+    assertSame(RGBAPixel.TRANSPARENT, new RGBALayerImage(2, 3).getPixels()[1][2]);
+    assertEquals(lookups, RGBAPixel.getCacheLookups());
+
+    // Combining and reading pixels from images goes through the cache as well
+    assertSame(RGBAPixel.WHITE, p2.combine(p3));
+    assertSame(pixel, new PackedRGBAImage(1, 1, new int[]{pixel.asARGB()}).getPixels()[0][0]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testOfInvalidValue() {
+    RGBAPixel.of(0, 256, 0, 255);
+  }
+
   @Test
   public void testGetMax() {
     assertEquals(255, p3.getMax());
     assertEquals(255, p4.getMax());
     assertEquals(255, p5.getMax());
   }
+
+  /*
+   * Combines two packed pixels with doubles, the way that combine did before it used integers.
+   */
+  private static int combineDoubles(int bottom, int top) {
+    double topAlpha = PackedPixelUtil.alpha(top) / 255.0;
+    double bottomAlpha = PackedPixelUtil.alpha(bottom) / 255.0;
+    double calcAlpha = topAlpha + bottomAlpha * (1 - topAlpha);
+    int[] values = new int[3];
+
+    for (int i = 0; i < 3; i++) {
+      int shift = 16 - 8 * i;
+
+      values[i] = (int) Math.round(((topAlpha * (top >> shift & 0xff))
+              + ((bottom >> shift & 0xff) * bottomAlpha) * (1 - topAlpha)) * (1 / calcAlpha));
+    }
+
+    return PackedPixelUtil.pack(values[0], values[1], values[2],
+            (int) Math.round(calcAlpha * 255));
+  }
 }
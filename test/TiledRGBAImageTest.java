@@ -0,0 +1,131 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import helpers.TestImages;
+import model.Image;
+import model.PackedRGBAImage;
+import model.TiledRGBAImage;
+import model.filters.RGBABrightenLuma;
+import model.filters.RGBADifference;
+import model.utils.PackedPixelUtil;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Defines tests for the behavior of a {@code TiledRGBAImage}.
+ */
+public class TiledRGBAImageTest {
+
+  private Image blank;
+  private Image noise;
+
+  @Before
+  public void init() {
+
+    blank = new TiledRGBAImage(150, 70);
+
+    noise = TestImages.noise(90, 70);
+  }
+
+  @Test
+  public void createInvalidTiledRGBAImage() {
+
+    try {
+      new TiledRGBAImage(0, 1);
+      fail("Should not create image with invalid inputs");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+
+    try {
+      new TiledRGBAImage(1, 0);
+      fail("Should not create image with invalid inputs");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+  }
+
+  @Test
+  public void testBlankImage() {
+    int[] expected = new int[150 * 70];
+    Arrays.fill(expected, PackedPixelUtil.TRANSPARENT);
+
+    assertArrayEquals(expected, blank.getARGBPixels());
+    assertEquals(PackedPixelUtil.TRANSPARENT, blank.getARGB(149, 69));
+    assertEquals(150, blank.getHeight());
+    assertEquals(70, blank.getWidth());
+
+    try {
+      blank.getARGB(150, 0);
+      fail("Should not get a pixel outside of the image");
+    } catch (IllegalArgumentException expected1) {
+      // Do nothing, test passed
+    }
+
+    // A blank image takes no memory, no matter how large it is
+    Image huge = new TiledRGBAImage(1 << 20, 1 << 20);
+
+    assertEquals(PackedPixelUtil.TRANSPARENT, huge.getARGB((1 << 20) - 1, (1 << 20) - 1));
+  }
+
+  @Test
+  public void testCombineMatchesPackedRGBAImage() {
+    Image expected = new PackedRGBAImage(150, 70).combine(noise, 40, 0);
+    Image actual = blank.combine(noise, 40, 0);
+
+    assertArrayEquals(expected.getARGBPixels(), actual.getARGBPixels());
+
+    expected = expected.combine(noise.getRegion(10, 5, 80, 60), 70, 10);
+    Image combined = actual.combine(noise.getRegion(10, 5, 80, 60), 70, 10);
+
+    assertArrayEquals(expected.getARGBPixels(), combined.getARGBPixels());
+    assertArrayEquals(expected.getRegion(60, 3, 30, 40).getARGBPixels(),
+            combined.getRegion(60, 3, 30, 40).getARGBPixels());
+
+    for (int i = 0; i < 150; i += 7) {
+
+      for (int j = 0; j < 70; j += 3) {
+        assertEquals(expected.getARGB(i, j), combined.getARGB(i, j));
+      }
+    }
+
+    // Combining never changes the image that was combined onto, even though they share tiles
+    assertEquals(PackedPixelUtil.TRANSPARENT, blank.getARGB(40, 0));
+    assertArrayEquals(new PackedRGBAImage(150, 70).combine(noise, 40, 0).getARGBPixels(),
+            actual.getARGBPixels());
+
+    try {
+      blank.combine(noise, 61, 0);
+      fail("Should not combine with an image that is not fully contained");
+    } catch (IllegalArgumentException expected1) {
+      // Do nothing, test passed
+    }
+  }
+
+  @Test
+  public void testApplyFilters() {
+    Image packed = new PackedRGBAImage(150, 70).combine(noise, 60, 0);
+    Image tiled = blank.combine(noise, 60, 0);
+
+    assertArrayEquals(packed.applyFilter(new RGBABrightenLuma()).getARGBPixels(),
+            tiled.applyFilter(new RGBABrightenLuma()).getARGBPixels());
+    assertArrayEquals(new PackedRGBAImage(150, 70).applyFilter(new RGBABrightenLuma())
+            .getARGBPixels(), blank.applyFilter(new RGBABrightenLuma()).getARGBPixels());
+
+    Image other = new PackedRGBAImage(150, 70).combine(noise, 0, 0);
+
+    assertArrayEquals(packed.applyTwoFilter(new RGBADifference(), other).getARGBPixels(),
+            tiled.applyTwoFilter(new RGBADifference(), other).getARGBPixels());
+
+    try {
+      tiled.applyTwoFilter(new RGBADifference(), noise);
+      fail("Should not apply a filter with an image of a different size");
+    } catch (IllegalArgumentException expected) {
+      // Do nothing, test passed
+    }
+  }
+}
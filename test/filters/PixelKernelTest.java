@@ -0,0 +1,103 @@
+package filters;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import model.Image;
+import model.PackedRGBAImage;
+import model.filters.FilterName;
+import model.filters.RGBABlueFilter;
+import model.filters.RGBABrightenIntensity;
+import model.filters.RGBABrightenLuma;
+import model.filters.RGBABrightenMax;
+import model.filters.RGBAColorFilter;
+import model.filters.RGBADarkenIntensity;
+import model.filters.RGBADarkenLuma;
+import model.filters.RGBADarkenMax;
+import model.filters.RGBAGreenFilter;
+import model.filters.RGBARedFilter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Defines tests for the compiled {@code PixelKernel}s of the {@code RGBAColorFilter}s, which must
+ * give exactly the same pixels as filtering each pixel on its own.
+ */
+public class PixelKernelTest {
+
+  @Test
+  public void testKernelsMatchEveryColor() {
+    List<RGBAColorFilter> compiled = List.of(new RGBARedFilter(), new RGBAGreenFilter(),
+            new RGBABlueFilter(), new RGBABrightenIntensity(), new RGBADarkenIntensity(),
+            new RGBABrightenLuma(), new RGBADarkenLuma(), new RGBABrightenMax(),
+            new RGBADarkenMax());
+
+    int[] pixels = new int[1 << 16];
+
+    // Every color is checked once, with the opacity changing between pixels
+    for (int start = 0; start < 1 << 24; start += pixels.length) {
+
+      for (int i = 0; i < pixels.length; i++) {
+        int color = start + i;
+        pixels[i] = ((color * 31) & 0xFF) << 24 | color;
+      }
+
+      Image image = new PackedRGBAImage(256, 256, pixels);
+
+      // Each filter is compared to filtering each pixel on its own
+      for (RGBAColorFilter filter : compiled) {
+        assertNotNull(filter.getKernel());
+
+        int[] expected = pixels.clone();
+        filter.getUncompiledKernel().apply(expected, 0, expected.length);
+
+        assertArrayEquals(expected, filter.apply(image).getARGBPixels());
+      }
+    }
+  }
+
+  @Test
+  public void testKernelRange() {
+    int[] pixels = new int[]{0xFF102030, 0x80405060, 0x00708090, 0xFFA0B0C0};
+
+    new RGBARedFilter().getKernel().apply(pixels, 1, 3);
+
+    assertArrayEquals(new int[]{0xFF102030, 0x80400000, 0x00700000, 0xFFA0B0C0}, pixels);
+
+    new RGBABrightenMax().getKernel().apply(pixels, 0, 1);
+
+    assertEquals(0xFF405060, pixels[0]);
+  }
+
+  @Test
+  public void testKeepsTransparent() {
+    int[] pixels = new int[1 << 16];
+
+    for (int i = 0; i < pixels.length; i++) {
+      pixels[i] = (i * 0x9E3779B1) & 0x00FFFFFF;
+    }
+
+    Image image = new PackedRGBAImage(256, 256, pixels);
+
+    // Every filter that says it keeps fully transparent pixels must keep them for any color
+    for (FilterName filter : FilterName.values()) {
+
+      if (filter.keepsTransparent()) {
+
+        for (int pixel : filter.getFilter().apply(image).getARGBPixels()) {
+          assertEquals(0, pixel >>> 24);
+        }
+      }
+    }
+
+    assertTrue(FilterName.NORMAL.keepsTransparent());
+    assertTrue(FilterName.RED_FILTER.keepsTransparent());
+    assertTrue(FilterName.DARKEN_MAX.keepsTransparent());
+    assertFalse(FilterName.MULTIPLY.keepsTransparent());
+  }
+}
@@ -3,13 +3,18 @@ package filters;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
+
+import helpers.TestImages;
 import model.Image;
+import model.PackedRGBAImage;
 import model.Pixel;
 import model.RGBALayerImage;
 import model.RGBAPixel;
 import model.filters.RGBADifference;
 import model.filters.TwoFilter;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -59,4 +64,22 @@ public class RGBADifferenceTest extends RGBAColorTwoFilterTest {
     assertTrue(super.validApply(img1, img2, filter, expectedPixels2));
   }
 
+  @Test
+  public void testApplyLargeImage() {
+    int[] pixels1 = TestImages.noisePixels(300 * 290, 0);
+    Image img1 = new PackedRGBAImage(300, 290, pixels1);
+    Image img2 = TestImages.noise(300, 290, 1);
+    int[] result = filter.apply(img1, img2).getARGBPixels();
+
+    // The lower image is read in bands of rows, which must match filtering each row on its own
+    for (int y = 0; y < 300; y++) {
+
+      assertArrayEquals(filter.apply(img1.getRegion(y, 0, 1, 290),
+              img2.getRegion(y, 0, 1, 290)).getARGBPixels(),
+              Arrays.copyOfRange(result, y * 290, (y + 1) * 290));
+    }
+
+    // The images that were filtered do not change
+    assertArrayEquals(pixels1, img1.getARGBPixels());
+  }
 }
@@ -0,0 +1,119 @@
+package filters;
+
+import org.junit.Test;
+
+import helpers.TestImages;
+import model.PackedRGBAImage;
+import model.filters.RGBALightnessBlend;
+import model.filters.RGBAMultiply;
+import model.filters.RGBAScreen;
+import model.utils.PackedPixelUtil;
+import model.utils.RepresentationConverterUtil;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * Defines tests for the {@code RGBALightnessBlend} filters, which must give exactly the same
+ * pixels as converting both pixels with {@code RepresentationConverterUtil}.
+ */
+public class RGBALightnessBlendTest {
+
+  private static final int CHUNK = 1 << 16;
+
+  @Test
+  public void testEveryLowerColor() {
+    int[] top = new int[CHUNK];
+    int[] bottom = new int[CHUNK];
+
+    // Every lower color, with an opacity and a top pixel that change between pixels
+    for (int start = 0; start < 1 << 24; start += CHUNK) {
+
+      int[] noise = TestImages.noisePixels(CHUNK, start / CHUNK);
+
+      for (int i = 0; i < CHUNK; i++) {
+        int color = start + i;
+        bottom[i] = ((color * 31) & 0xFF) << 24 | color;
+        top[i] = noise[i];
+      }
+
+      assertMatches(top, bottom);
+    }
+  }
+
+  @Test
+  public void testEveryTopLightness() {
+    int[] top = new int[CHUNK];
+    int[] bottom = new int[CHUNK];
+    int[] noise = TestImages.noisePixels(CHUNK, 0);
+    int index = 0;
+    int chunks = 0;
+
+    // Only the opacity and the largest and smallest color values decide the top lightness
+    for (int alpha = 0; alpha < 256; alpha++) {
+
+      for (int max = 0; max < 256; max++) {
+
+        for (int min = 0; min <= max; min++) {
+
+          int middle = (min + max) / 2;
+          top[index] = PackedPixelUtil.pack(min, max, middle, alpha);
+          bottom[index] = noise[index] | 0xFF000000;
+          index++;
+
+          if (index == CHUNK) {
+            assertMatches(top, bottom);
+            noise = TestImages.noisePixels(CHUNK, ++chunks);
+            index = 0;
+          }
+        }
+      }
+    }
+
+    for (int i = index; i < CHUNK; i++) {
+      top[i] = 0;
+      bottom[i] = 0;
+    }
+
+    assertMatches(top, bottom);
+  }
+
+  /*
+   * Checks both filters on the given pixels against the conversion in
+   * RepresentationConverterUtil.
+   */
+  private static void assertMatches(int[] top, int[] bottom) {
+    PackedRGBAImage topImage = new PackedRGBAImage(256, CHUNK / 256, top);
+    PackedRGBAImage bottomImage = new PackedRGBAImage(256, CHUNK / 256, bottom);
+
+    for (RGBALightnessBlend filter : new RGBALightnessBlend[]{new RGBAMultiply(),
+        new RGBAScreen()}) {
+
+      boolean multiply = filter instanceof RGBAMultiply;
+      int[] expected = new int[CHUNK];
+
+      for (int i = 0; i < CHUNK; i++) {
+        expected[i] = reference(top[i], bottom[i], multiply);
+      }
+
+      assertArrayEquals(expected, filter.apply(topImage, bottomImage).getARGBPixels());
+    }
+  }
+
+  /*
+   * Blends the two pixels the way the filters did before they were done on primitives.
+   */
+  private static int reference(int pixel1, int pixel2, boolean multiply) {
+    int rgb1 = PackedPixelUtil.toRGB(pixel1);
+
+    double[] hsl1 = RepresentationConverterUtil.convertRGBtoHSL(PackedPixelUtil.red(rgb1),
+            PackedPixelUtil.green(rgb1), PackedPixelUtil.blue(rgb1));
+    double[] hsl2 = RepresentationConverterUtil.convertRGBtoHSL(PackedPixelUtil.red(pixel2),
+            PackedPixelUtil.green(pixel2), PackedPixelUtil.blue(pixel2));
+
+    double lightness = multiply ? hsl1[2] * hsl2[2] : (1 - ((1 - hsl1[2]) * (1 - hsl2[2])));
+    int[] rgbResult = RepresentationConverterUtil.convertHSLtoRGB(hsl2[0], hsl2[1], lightness);
+
+    return PackedPixelUtil.pack(rgbResult[0], rgbResult[1], rgbResult[2],
+            PackedPixelUtil.alpha(pixel2));
+  }
+}
@@ -3,9 +3,11 @@ package helpers;
 
 import java.awt.image.BufferedImage;
 import java.util.List;
+import java.util.function.Supplier;
 
 import model.Collager;
 import model.Image;
+import model.ImageWriter;
 import model.Layer;
 
 /**
@@ -35,6 +37,15 @@ public class ConfirmInputs implements Collager {
             + ", and width: " + width + ".\n");
   }
 
+  @Override
+  public void createProject(int height, int width, boolean mapped)
+          throws IllegalArgumentException {
+    this.log.append("A new project creation was attempted with "
+            + ", height: " + height
+            + ", width: " + width
+            + ", and mapped: " + mapped + ".\n");
+  }
+
   @Override
   public void addLayer(String name) throws IllegalArgumentException, IllegalStateException {
     this.log.append("A new layer addition was attempted. The layer's name was "
@@ -46,6 +57,14 @@ public class ConfirmInputs implements Collager {
     this.log.append("collagerContents:" + collagerContents);
   }
 
+  @Override
+  public void loadProject(int height, int width, List<String> layerNames,
+                          List<String> filterNames, List<Image> images)
+          throws IllegalArgumentException {
+    this.log.append("height:" + height + " width:" + width + " layerNames:" + layerNames
+            + " filterNames:" + filterNames);
+  }
+
   @Override
   public void setFilter(String layerName, String filterName)
           throws IllegalArgumentException, IllegalStateException {
@@ -95,6 +114,20 @@ public class ConfirmInputs implements Collager {
     return null;
   }
 
+  @Override
+  public Image getFinalPreview(int maxHeight, int maxWidth)
+          throws IllegalStateException, IllegalArgumentException {
+    return null;
+  }
+
+  @Override
+  public Image getPreviewAtLayer(String layername, int maxHeight, int maxWidth)
+          throws IllegalStateException, IllegalArgumentException {
+    log.append("layername:" + layername);
+
+    return null;
+  }
+
   @Override
   public int getHeight() throws IllegalStateException {
     return 0;
@@ -110,6 +143,41 @@ public class ConfirmInputs implements Collager {
     return null;
   }
 
+  @Override
+  public List<RuntimeException> takeLoadErrors() {
+    return List.of();
+  }
+
+  @Override
+  public void setParallelism(int parallelism) throws IllegalArgumentException {
+    log.append("parallelism:" + parallelism);
+  }
+
+  @Override
+  public int getParallelism() {
+    return 1;
+  }
+
+  @Override
+  public void setPixelBudget(long pixelBudget) throws IllegalArgumentException {
+    log.append("pixelBudget:" + pixelBudget);
+  }
+
+  @Override
+  public long getPixelBudget() {
+    return 1;
+  }
+
+  @Override
+  public long getCacheHits() {
+    return 0;
+  }
+
+  @Override
+  public long getCacheMisses() {
+    return 0;
+  }
+
   @Override
   public BufferedImage createJavaImage(Image img, int bufferedImageType) {
     log.append("img:" + img + " bufferedImageType:" + bufferedImageType);
@@ -117,6 +185,21 @@ public class ConfirmInputs implements Collager {
     return null;
   }
 
+  @Override
+  public Image createLazyImage(int height, int width, boolean opaque, Supplier<Image> loader)
+          throws IllegalArgumentException {
+    log.append("height:" + height + " width:" + width + " opaque:" + opaque);
+
+    return null;
+  }
+
+  @Override
+  public ImageWriter createImageWriter(int height, int width) throws IllegalArgumentException {
+    log.append("height:" + height + " width:" + width);
+
+    return null;
+  }
+
   @Override
   public String[] getFilterNames() {
     return new String[0];
@@ -0,0 +1,101 @@
+package helpers;
+
+import java.util.List;
+
+import model.Collager;
+import model.Image;
+import model.PackedRGBAImage;
+import model.RGBACollager;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * This class creates the images of noise that tests render, and the collagers whose renders are
+ * compared. The noise is the same every time, so a failing test can be run again.
+ */
+public final class TestImages {
+
+  private TestImages() {
+  }
+
+  /**
+   * Creates packed pixels of noise with a multiplicative hash of their position. Pixels of every
+   * opacity are created, including fully opaque and fully transparent pixels.
+   *
+   * @param length is the number of pixels.
+   * @param seed   decides the noise, where a seed of 0 hashes the index of each pixel.
+   * @return the pixels.
+   */
+  public static int[] noisePixels(int length, int seed) {
+    int[] pixels = new int[length];
+
+    for (int i = 0; i < pixels.length; i++) {
+      pixels[i] = (i + seed * 0x632BE5AB) * 0x9E3779B1;
+    }
+
+    return pixels;
+  }
+
+  /**
+   * Creates a packed image of noise.
+   *
+   * @param height is the height of the image.
+   * @param width  is the width of the image.
+   * @return the image.
+   */
+  public static Image noise(int height, int width) {
+    return noise(height, width, 0);
+  }
+
+  /**
+   * Creates a packed image of noise.
+   *
+   * @param height is the height of the image.
+   * @param width  is the width of the image.
+   * @param seed   decides the noise.
+   * @return the image.
+   */
+  public static Image noise(int height, int width, int seed) {
+    return new PackedRGBAImage(height, width, noisePixels(height * width, seed));
+  }
+
+  /**
+   * Creates two collagers with projects of the given size, the first keeping its images on the
+   * heap and the second in memory mapped scratch files.
+   *
+   * @param height is the height of the projects.
+   * @param width  is the width of the projects.
+   * @return the heap collager and the mapped collager, in that order.
+   */
+  public static List<Collager> heapAndMapped(int height, int width) {
+    Collager heap = new RGBACollager();
+    Collager mapped = new RGBACollager();
+
+    heap.createProject(height, width);
+    mapped.createProject(height, width, true);
+
+    return List.of(heap, mapped);
+  }
+
+  /**
+   * Asserts that every collager renders the same final image as the first one, and the same image
+   * at each of the given layers.
+   *
+   * @param collagers are the collagers to compare.
+   * @param layers    are the names of the layers to compare.
+   */
+  public static void assertSameRenders(List<Collager> collagers, String... layers) {
+    Collager expected = collagers.get(0);
+
+    for (Collager collager : collagers.subList(1, collagers.size())) {
+
+      for (String layer : layers) {
+        assertArrayEquals(expected.getImageAtLayer(layer).getARGBPixels(),
+                collager.getImageAtLayer(layer).getARGBPixels());
+      }
+
+      assertArrayEquals(expected.getFinalImage().getARGBPixels(),
+              collager.getFinalImage().getARGBPixels());
+    }
+  }
+}
@@ -0,0 +1,202 @@
+package model.utils;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Runs the loops of {@code PackedPixelLoops} on as many pixels at a time as the CPU has lanes for,
+ * using the incubating Java Vector API, and gives exactly the same pixels. The pixels that are left
+ * over at the end of an array are run one at a time.
+ *
+ * <p>Combining only uses the lanes for the pixels that do not need a division, which are the ones
+ * with a fully opaque or fully transparent top pixel, or a fully opaque bottom pixel. Whenever some
+ * pixel of a group of lanes needs a division, the group is combined one pixel at a time. Over an
+ * opaque image, which is the usual case, every group uses the lanes.
+ *
+ * <p>This class is in its own source folder and IntelliJ module, {@code Collager-vector}, since
+ * it needs JDK 17 or later and the {@code jdk.incubator.vector} module to compile and run. Both
+ * {@code javac} and {@code java} are given {@code --add-modules jdk.incubator.vector}, and the
+ * loops are chosen by setting the system property {@code collager.loops} to {@code vector}.
+ */
+public class VectorPackedPixelLoops extends PackedPixelLoops {
+
+  private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+  private static final int MAX = 255;
+
+  /**
+   * Creates the loops, which is done by {@code PackedPixelLoops} when they are chosen.
+   */
+  public VectorPackedPixelLoops() {
+    // Only created by PackedPixelLoops when the system property chooses these loops
+  }
+
+  @Override
+  public String getName() {
+    return "vector";
+  }
+
+  @Override
+  public void combine(int[] bottom, int bottomOffset, int[] top, int topOffset, int[] result,
+                      int resultOffset, int length) {
+
+    int bound = SPECIES.loopBound(length);
+    int i = 0;
+
+    for (; i < bound; i += SPECIES.length()) {
+
+      IntVector below = IntVector.fromArray(SPECIES, bottom, bottomOffset + i);
+      IntVector above = IntVector.fromArray(SPECIES, top, topOffset + i);
+      IntVector topAlpha = above.lanewise(VectorOperators.LSHR, 24);
+      IntVector bottomAlpha = below.lanewise(VectorOperators.LSHR, 24);
+      VectorMask<Integer> topOpaque = topAlpha.compare(VectorOperators.EQ, MAX);
+      VectorMask<Integer> topClear = topAlpha.compare(VectorOperators.EQ, 0);
+      VectorMask<Integer> bottomOpaque = bottomAlpha.compare(VectorOperators.EQ, MAX);
+
+      if (!topOpaque.or(topClear).or(bottomOpaque).allTrue()) {
+        super.combine(bottom, bottomOffset + i, top, topOffset + i, result, resultOffset + i,
+                SPECIES.length());
+        continue;
+      }
+
+      // Over an opaque pixel, each value is a multiply-add over 255, the same as
+      // PackedPixelUtil.combine. The red and blue values are found together, in the two halves
+      // of each lane, since neither half ever carries into the other
+      IntVector rest = IntVector.broadcast(SPECIES, MAX).sub(topAlpha);
+      IntVector redBlue = dividePairs(above.and(0x00FF00FF).mul(topAlpha)
+              .add(below.and(0x00FF00FF).mul(rest)));
+      IntVector green = dividePairs(channel(above, 8).mul(topAlpha)
+              .add(channel(below, 8).mul(rest)));
+      IntVector combined = redBlue.or(green.lanewise(VectorOperators.LSHL, 8)).or(0xFF000000);
+
+      // A transparent pixel leaves the pixel below it, unless it is transparent as well
+      IntVector clear = below.blend(IntVector.zero(SPECIES),
+              bottomAlpha.compare(VectorOperators.EQ, 0));
+
+      combined.blend(clear, topClear).blend(above, topOpaque)
+              .intoArray(result, resultOffset + i);
+    }
+
+    super.combine(bottom, bottomOffset + i, top, topOffset + i, result, resultOffset + i,
+            length - i);
+  }
+
+  @Override
+  public void mask(int[] pixels, int from, int to, int mask) {
+    int bound = from + SPECIES.loopBound(to - from);
+    int i = from;
+
+    for (; i < bound; i += SPECIES.length()) {
+      IntVector.fromArray(SPECIES, pixels, i).and(mask).intoArray(pixels, i);
+    }
+
+    super.mask(pixels, i, to, mask);
+  }
+
+  @Override
+  public void addIntensity(int[] pixels, int from, int to, int sign) {
+    int bound = from + SPECIES.loopBound(to - from);
+    int i = from;
+
+    for (; i < bound; i += SPECIES.length()) {
+
+      IntVector pixel = IntVector.fromArray(SPECIES, pixels, i);
+      IntVector red = channel(pixel, 16);
+      IntVector green = channel(pixel, 8);
+      IntVector blue = channel(pixel, 0);
+
+      // The rounded sum over 3, as a multiply and shift that is exact for every sum of three
+      // values
+      IntVector difference = red.add(green).add(blue).add(1).mul(43691)
+              .lanewise(VectorOperators.LSHR, 17).mul(sign);
+
+      addDifference(pixel, red, green, blue, difference).intoArray(pixels, i);
+    }
+
+    super.addIntensity(pixels, i, to, sign);
+  }
+
+  @Override
+  public void addMax(int[] pixels, int from, int to, int sign) {
+    int bound = from + SPECIES.loopBound(to - from);
+    int i = from;
+
+    for (; i < bound; i += SPECIES.length()) {
+
+      IntVector pixel = IntVector.fromArray(SPECIES, pixels, i);
+      IntVector red = channel(pixel, 16);
+      IntVector green = channel(pixel, 8);
+      IntVector blue = channel(pixel, 0);
+
+      addDifference(pixel, red, green, blue, red.max(green).max(blue).mul(sign))
+              .intoArray(pixels, i);
+    }
+
+    super.addMax(pixels, i, to, sign);
+  }
+
+  @Override
+  public void difference(int[] top, int topOffset, int[] bottom, int bottomOffset, int length) {
+    int bound = SPECIES.loopBound(length);
+    int i = 0;
+
+    for (; i < bound; i += SPECIES.length()) {
+
+      IntVector above = IntVector.fromArray(SPECIES, top, topOffset + i);
+      IntVector below = IntVector.fromArray(SPECIES, bottom, bottomOffset + i);
+      IntVector alpha = above.lanewise(VectorOperators.LSHR, 24);
+
+      // The RGB form of the top pixel is each value times its opacity over 255, the same as
+      // PackedPixelUtil.toRGB
+      IntVector red = divide(channel(above, 16).mul(alpha)).sub(channel(below, 16)).abs();
+      IntVector green = divide(channel(above, 8).mul(alpha)).sub(channel(below, 8)).abs();
+      IntVector blue = divide(channel(above, 0).mul(alpha)).sub(channel(below, 0)).abs();
+
+      below.and(0xFF000000).or(red.lanewise(VectorOperators.LSHL, 16))
+              .or(green.lanewise(VectorOperators.LSHL, 8)).or(blue)
+              .intoArray(top, topOffset + i);
+    }
+
+    super.difference(top, topOffset + i, bottom, bottomOffset + i, length - i);
+  }
+
+  /*
+   * Gets one channel of each pixel, given the shift of the channel.
+   */
+  private static IntVector channel(IntVector pixels, int shift) {
+    return pixels.lanewise(VectorOperators.LSHR, shift).and(0xFF);
+  }
+
+  /*
+   * Rounds each value between 0 and 255 * 255 divided by 255, the same as PackedPixelUtil.
+   */
+  private static IntVector divide(IntVector values) {
+    IntVector rounded = values.add(128);
+
+    return rounded.add(rounded.lanewise(VectorOperators.ASHR, 8))
+            .lanewise(VectorOperators.ASHR, 8);
+  }
+
+  /*
+   * Rounds both halves of each value divided by 255, where each half is between 0 and 255 * 255,
+   * the same as divide.
+   */
+  private static IntVector dividePairs(IntVector values) {
+    IntVector rounded = values.add(0x00800080);
+
+    return rounded.add(rounded.lanewise(VectorOperators.LSHR, 8).and(0x00FF00FF))
+            .lanewise(VectorOperators.LSHR, 8).and(0x00FF00FF);
+  }
+
+  /*
+   * Adds the difference to each color value of the pixels and clamps them, keeping the opacity.
+   */
+  private static IntVector addDifference(IntVector pixel, IntVector red, IntVector green,
+                                         IntVector blue, IntVector difference) {
+    return pixel.and(0xFF000000)
+            .or(red.add(difference).max(0).min(MAX).lanewise(VectorOperators.LSHL, 16))
+            .or(green.add(difference).max(0).min(MAX).lanewise(VectorOperators.LSHL, 8))
+            .or(blue.add(difference).max(0).min(MAX));
+  }
+}